@@ -18,14 +18,34 @@ package com.example.architecture.my.mviarchitecture;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 import com.example.architecture.my.mviarchitecture.data.FakeTasksRemoteDataSource;
+import com.example.architecture.my.mviarchitecture.data.source.TasksArchiver;
 import com.example.architecture.my.mviarchitecture.data.source.TasksDataSource;
 import com.example.architecture.my.mviarchitecture.data.source.TasksRepository;
 import com.example.architecture.my.mviarchitecture.data.source.local.TasksLocalDataSource;
+import com.example.architecture.my.mviarchitecture.mvibase.MviChoreographerFrameClock;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFrameClock;
+import com.example.architecture.my.mviarchitecture.mvibase.MviKeyedExecutor;
+import com.example.architecture.my.mviarchitecture.mvibase.MviLeakDetector;
+import com.example.architecture.my.mviarchitecture.mvibase.MviMiddleware;
+import com.example.architecture.my.mviarchitecture.mvibase.MviTracer;
+import com.example.architecture.my.mviarchitecture.mvibase.MviTracingMiddleware;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
+import com.example.architecture.my.mviarchitecture.util.schedulers.InstrumentedSchedulerProvider;
 import com.example.architecture.my.mviarchitecture.util.schedulers.SchedulerProvider;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Completable;
+import timber.log.Timber;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -35,13 +55,155 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class Injection {
 
+    private static final String TASKS_MAINTENANCE_PREFERENCES = "tasks_maintenance";
+
+    private static final int MVI_TRACE_CAPACITY = 1024;
+
+    private static final String MVI_FLIGHT_RECORD_FILE = "mvi-flight.rec";
+    private static final String MVI_PREVIOUS_FLIGHT_RECORD_FILE = "mvi-flight.prev.rec";
+    private static final int MVI_FLIGHT_RECORD_TYPE_CAPACITY = 256;
+    private static final int MVI_FLIGHT_RECORD_CAPACITY = 16 * 1024;
+
+    private static final String SCHEDULER_DIAGNOSTICS_FILE = "scheduler-timings.tsv";
+
+    private static MviKeyedExecutor TASK_WRITE_EXECUTOR;
+
+    private static MviTracer MVI_TRACER;
+
+    private static MviFlightRecorder MVI_FLIGHT_RECORDER;
+
+    private static MviLeakDetector MVI_LEAK_DETECTOR;
+
+    private static MviFrameClock MVI_FRAME_CLOCK;
+
+    private static InstrumentedSchedulerProvider INSTRUMENTED_SCHEDULER_PROVIDER;
+
     public static TasksRepository provideTasksRepository(@NonNull Context context) {
         checkNotNull(context);
         return TasksRepository.getInstance(FakeTasksRemoteDataSource.getInstance(),
                 TasksLocalDataSource.getInstance(context, provideSchedulerProvider()));
     }
 
+    public static TasksArchiver provideTasksArchiver(@NonNull Context context) {
+        checkNotNull(context);
+        return new TasksArchiver(provideTasksRepository(context),
+                context.getSharedPreferences(TASKS_MAINTENANCE_PREFERENCES, Context.MODE_PRIVATE),
+                provideSchedulerProvider(), TasksArchiver.DEFAULT_ARCHIVE_AGE_MILLIS);
+    }
+
+    /**
+     * Middlewares installed in every screen's MVI store. Release builds install none, which keeps
+     * the stores on their fast path.
+     */
+    public static List<MviMiddleware> provideMviMiddlewares(@NonNull Context context) {
+        checkNotNull(context);
+        if (BuildConfig.DEBUG) {
+            List<MviMiddleware> middlewares = new ArrayList<>();
+            middlewares.add(new MviTracingMiddleware(provideMviTracer()));
+            middlewares.add(provideMviLeakDetector());
+            MviFlightRecorder flightRecorder = provideMviFlightRecorder(context);
+            if (flightRecorder != null) middlewares.add(flightRecorder.newMiddleware());
+            return middlewares;
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Records the MVI events of every screen, see {@link MviTracer#dump()}.
+     */
+    public static synchronized MviTracer provideMviTracer() {
+        if (MVI_TRACER == null) {
+            MVI_TRACER = new MviTracer(MVI_TRACE_CAPACITY, MviTracer.Level.VERBOSE, 1);
+        }
+        return MVI_TRACER;
+    }
+
+    /**
+     * Counts the live subscriptions to the MVI stores of every screen.
+     */
+    public static synchronized MviLeakDetector provideMviLeakDetector() {
+        if (MVI_LEAK_DETECTOR == null) {
+            MVI_LEAK_DETECTOR = new MviLeakDetector();
+        }
+        return MVI_LEAK_DETECTOR;
+    }
+
+    /**
+     * Records the MVI events of every screen into a file of the app's private storage, null if it
+     * cannot be opened. Each process starts a new file, the record of the previous one, e.g. of a
+     * crash, being kept as {@value #MVI_PREVIOUS_FLIGHT_RECORD_FILE} until the next launch.
+     */
+    @Nullable
+    public static synchronized MviFlightRecorder provideMviFlightRecorder(@NonNull Context context) {
+        checkNotNull(context);
+        if (MVI_FLIGHT_RECORDER == null) {
+            File file = new File(context.getFilesDir(), MVI_FLIGHT_RECORD_FILE);
+            File previousFile = new File(context.getFilesDir(), MVI_PREVIOUS_FLIGHT_RECORD_FILE);
+            if (file.exists() && !file.renameTo(previousFile)) {
+                Timber.w("Cannot keep the previous flight record %s", previousFile);
+            }
+            try {
+                MVI_FLIGHT_RECORDER = new MviFlightRecorder(file,
+                        MVI_FLIGHT_RECORD_TYPE_CAPACITY, MVI_FLIGHT_RECORD_CAPACITY);
+            } catch (IOException e) {
+                Timber.w(e, "Cannot open the flight record %s", file);
+            }
+        }
+        return MVI_FLIGHT_RECORDER;
+    }
+
+    /**
+     * The display frames the views render at, at most one state per frame. To be first called on
+     * the main thread.
+     */
+    public static synchronized MviFrameClock provideMviFrameClock() {
+        if (MVI_FRAME_CLOCK == null) {
+            MVI_FRAME_CLOCK = new MviChoreographerFrameClock();
+        }
+        return MVI_FRAME_CLOCK;
+    }
+
+    /**
+     * Serializes the writes to each task, keyed by task id, across every screen.
+     */
+    public static synchronized MviKeyedExecutor provideTaskWriteExecutor() {
+        if (TASK_WRITE_EXECUTOR == null) {
+            TASK_WRITE_EXECUTOR = new MviKeyedExecutor();
+        }
+        return TASK_WRITE_EXECUTOR;
+    }
+
     public static BaseSchedulerProvider provideSchedulerProvider() {
-        return SchedulerProvider.getInstance();
+        InstrumentedSchedulerProvider schedulerDiagnostics = provideSchedulerDiagnostics();
+        return schedulerDiagnostics != null ? schedulerDiagnostics : SchedulerProvider.getInstance();
+    }
+
+    /**
+     * Times the tasks of every scheduler in debug builds, null in release builds, whose
+     * schedulers run their tasks as they are.
+     */
+    @Nullable
+    public static synchronized InstrumentedSchedulerProvider provideSchedulerDiagnostics() {
+        if (!BuildConfig.DEBUG) return null;
+        if (INSTRUMENTED_SCHEDULER_PROVIDER == null) {
+            INSTRUMENTED_SCHEDULER_PROVIDER =
+                    new InstrumentedSchedulerProvider(SchedulerProvider.getInstance());
+        }
+        return INSTRUMENTED_SCHEDULER_PROVIDER;
+    }
+
+    /**
+     * Writes the scheduler timings into a file of the app's private storage, off the main
+     * thread. Does nothing in release builds.
+     */
+    public static void dumpSchedulerDiagnostics(@NonNull Context context) {
+        checkNotNull(context);
+        InstrumentedSchedulerProvider schedulerDiagnostics = provideSchedulerDiagnostics();
+        if (schedulerDiagnostics == null) return;
+        File file = new File(context.getFilesDir(), SCHEDULER_DIAGNOSTICS_FILE);
+        Completable.fromAction(() -> schedulerDiagnostics.dump(file))
+                .subscribeOn(schedulerDiagnostics.io())
+                .subscribe(() -> Timber.d("Scheduler timings written to %s", file),
+                        error -> Timber.w(error, "Cannot write the scheduler timings %s", file));
     }
 }
@@ -39,10 +39,4 @@ interface AddEditTaskAction extends MviAction {
         }
     }
 
-    @AutoValue
-    abstract class GetLastState implements AddEditTaskAction {
-        public static GetLastState create() {
-            return new AutoValue_AddEditTaskAction_GetLastState();
-        }
-    }
 }
@@ -4,6 +4,9 @@ import android.support.annotation.NonNull;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
 import com.example.architecture.my.mviarchitecture.data.source.TasksRepository;
+import com.example.architecture.my.mviarchitecture.mvibase.MviActionRouter;
+import com.example.architecture.my.mviarchitecture.mvibase.MviKeyedExecutor;
+import com.example.architecture.my.mviarchitecture.mvibase.MviProcessors;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 
 import io.reactivex.Observable;
@@ -16,24 +19,26 @@ public class AddEditTaskActionProcessorHolder {
     private TasksRepository mTasksRepository;
     @NonNull
     private BaseSchedulerProvider mSchedulerProvider;
+    @NonNull
+    private MviKeyedExecutor mTaskWriteExecutor;
 
     public AddEditTaskActionProcessorHolder(@NonNull TasksRepository tasksRepository,
-                                            @NonNull BaseSchedulerProvider schedulerProvider) {
+                                            @NonNull BaseSchedulerProvider schedulerProvider,
+                                            @NonNull MviKeyedExecutor taskWriteExecutor) {
         this.mTasksRepository = checkNotNull(tasksRepository, "tasksRepository cannot be null");
         this.mSchedulerProvider = checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
-
+        this.mTaskWriteExecutor = checkNotNull(taskWriteExecutor, "taskWriteExecutor cannot be null");
     }
 
 
     private ObservableTransformer<AddEditTaskAction.PopulateTask, AddEditTaskResult.PopulateTask>
             populateTaskProcessor =
-            actions -> actions.flatMap(action -> mTasksRepository
+            MviProcessors.latest(action -> mTasksRepository
                     .getTask(action.taskId())
                     .toObservable()
                     .map(AddEditTaskResult.PopulateTask::success)
                     .onErrorReturn(AddEditTaskResult.PopulateTask::failure)
                     .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
                     .startWith(AddEditTaskResult.PopulateTask.inFlight()));
 
     private ObservableTransformer<AddEditTaskAction.CreateTask, AddEditTaskResult.CreateTask>
@@ -49,28 +54,15 @@ public class AddEditTaskActionProcessorHolder {
 
     private ObservableTransformer<AddEditTaskAction.UpdateTask, AddEditTaskResult.UpdateTask>
             updateTaskProcessor =
-            actions -> actions.flatMap(action -> mTasksRepository.saveTask(
-                    new Task(action.title(), action.description(), action.taskId()))
-                    .andThen(Observable.just(AddEditTaskResult.UpdateTask.create())));
-
-    private ObservableTransformer<AddEditTaskAction.GetLastState, AddEditTaskResult.GetLastState>
-            getLastStateProcessor =
-            actions -> actions.map(ignored -> AddEditTaskResult.GetLastState.create());
+            MviProcessors.dropWhileBusy(action -> mTaskWriteExecutor.execute(action.taskId(),
+                    Observable.defer(() -> mTasksRepository.saveTask(
+                            new Task(action.title(), action.description(), action.taskId()))
+                            .andThen(Observable.just(AddEditTaskResult.UpdateTask.create())))));
 
     ObservableTransformer<AddEditTaskAction, AddEditTaskResult> actionProcessor =
-            actions -> actions.publish(shared -> Observable.merge(
-                    shared.ofType(AddEditTaskAction.PopulateTask.class).compose(populateTaskProcessor),
-                    shared.ofType(AddEditTaskAction.CreateTask.class).compose(createTaskProcessor),
-                    shared.ofType(AddEditTaskAction.UpdateTask.class).compose(updateTaskProcessor),
-                    shared.ofType(AddEditTaskAction.GetLastState.class).compose(getLastStateProcessor))
-                    .mergeWith(
-                            // Error for not implemented actions
-                            shared.filter(v -> !(v instanceof AddEditTaskAction.PopulateTask) &&
-                                    !(v instanceof AddEditTaskAction.CreateTask) &&
-                                    !(v instanceof AddEditTaskAction.UpdateTask) &&
-                                    !(v instanceof AddEditTaskAction.GetLastState))
-                                    .flatMap(w -> Observable.error(
-                                            new IllegalArgumentException("Unknown Action type: " + w)))));
-
-
+            new MviActionRouter.Builder<AddEditTaskAction, AddEditTaskResult>()
+                    .on(AddEditTaskAction.PopulateTask.class, populateTaskProcessor)
+                    .on(AddEditTaskAction.CreateTask.class, createTaskProcessor)
+                    .on(AddEditTaskAction.UpdateTask.class, updateTaskProcessor)
+                    .build();
 }
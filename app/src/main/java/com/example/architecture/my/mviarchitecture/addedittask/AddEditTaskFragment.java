@@ -28,7 +28,9 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.example.architecture.my.mviarchitecture.Injection;
 import com.example.architecture.my.mviarchitecture.R;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFrameConflation;
 import com.example.architecture.my.mviarchitecture.mvibase.MviView;
 import com.example.architecture.my.mviarchitecture.util.ToDoViewModelFactory;
 import com.jakewharton.rxbinding2.view.RxView;
@@ -46,6 +48,8 @@ public class AddEditTaskFragment extends Fragment implements MviView<AddEditTask
     private FloatingActionButton fab;
     private AddEditTaskViewModel mViewModel;
     private CompositeDisposable mDisposables = new CompositeDisposable();
+    @Nullable
+    private AddEditTaskViewState mRenderedState;
 
     public static AddEditTaskFragment newInstance() {
         return new AddEditTaskFragment();
@@ -58,8 +62,8 @@ public class AddEditTaskFragment extends Fragment implements MviView<AddEditTask
     }
 
     @Override
-    public void onDestroy() {
-        super.onDestroy();
+    public void onDestroyView() {
+        super.onDestroyView();
 
         mDisposables.dispose();
     }
@@ -89,8 +93,11 @@ public class AddEditTaskFragment extends Fragment implements MviView<AddEditTask
     }
 
     private void bind() {
-        mDisposables.add(mViewModel.states().subscribe(this::render));
-        mViewModel.processIntents(intents());
+        mRenderedState = null;
+        mDisposables.add(mViewModel.states()
+                .compose(new MviFrameConflation<>(Injection.provideMviFrameClock()))
+                .subscribe(this::render));
+        mDisposables.add(mViewModel.processIntents(intents()));
     }
 
     @Override
@@ -112,17 +119,20 @@ public class AddEditTaskFragment extends Fragment implements MviView<AddEditTask
 
     @Override
     public void render(AddEditTaskViewState state) {
+        int changes = state.changes(mRenderedState);
+        mRenderedState = state;
         if (state.isSaved()) {
-            showTasksList();
+            if ((changes & AddEditTaskViewState.IS_SAVED) != 0) showTasksList();
             return;
         }
-        if (state.isEmpty()) {
+        if ((changes & AddEditTaskViewState.IS_EMPTY) != 0 && state.isEmpty()) {
             showEmptyTaskError();
         }
-        if (!state.title().isEmpty()) {
+        // only a newly loaded text is set, not to overwrite what the user typed since
+        if ((changes & AddEditTaskViewState.TITLE) != 0 && !state.title().isEmpty()) {
             setTitle(state.title());
         }
-        if (!state.description().isEmpty()) {
+        if ((changes & AddEditTaskViewState.DESCRIPTION) != 0 && !state.description().isEmpty()) {
             setDescription(state.description());
         }
     }
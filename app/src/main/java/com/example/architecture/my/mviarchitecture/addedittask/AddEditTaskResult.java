@@ -57,10 +57,4 @@ interface AddEditTaskResult extends MviResult {
         }
     }
 
-    @AutoValue
-    abstract class GetLastState implements AddEditTaskResult {
-        static GetLastState create() {
-            return new AutoValue_AddEditTaskResult_GetLastState();
-        }
-    }
 }
@@ -20,12 +20,18 @@ import android.arch.lifecycle.ViewModel;
 import android.support.annotation.NonNull;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
-import com.example.architecture.my.mviarchitecture.mvibase.MviIntent;
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffect;
+import com.example.architecture.my.mviarchitecture.mvibase.MviIntentMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviMiddleware;
+import com.example.architecture.my.mviarchitecture.mvibase.MviResultReducer;
+import com.example.architecture.my.mviarchitecture.mvibase.MviStore;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewModel;
+import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
+
+import java.util.List;
 
 import io.reactivex.Observable;
-import io.reactivex.functions.BiFunction;
-import io.reactivex.subjects.PublishSubject;
+import io.reactivex.disposables.Disposable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -36,123 +42,101 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class AddEditTaskViewModel extends ViewModel
         implements MviViewModel<AddEditTaskIntent, AddEditTaskViewState> {
 
-    @NonNull
-    private PublishSubject<AddEditTaskIntent> mIntentsSubject;
-    @NonNull
-    private PublishSubject<AddEditTaskViewState> mStatesSubject;
     @NonNull
     private AddEditTaskActionProcessorHolder mActionProcessorHolder;
+    @NonNull
+    private MviStore<AddEditTaskIntent, AddEditTaskAction, AddEditTaskResult, AddEditTaskViewState,
+            MviEffect> mStore;
 
     /**
      * Creates a presenter for the add/edit view.
      */
-    public AddEditTaskViewModel(@NonNull AddEditTaskActionProcessorHolder actionProcessorHolder) {
+    public AddEditTaskViewModel(@NonNull AddEditTaskActionProcessorHolder actionProcessorHolder,
+                                @NonNull BaseSchedulerProvider schedulerProvider,
+                                @NonNull List<MviMiddleware> middlewares) {
         mActionProcessorHolder = checkNotNull(actionProcessorHolder);
-
-        mIntentsSubject = PublishSubject.create();
-        mStatesSubject = PublishSubject.create();
-
-        compose().subscribe(this.mStatesSubject);
+        checkNotNull(schedulerProvider);
+        mStore = new MviStore.Builder<AddEditTaskIntent, AddEditTaskAction, AddEditTaskResult, AddEditTaskViewState,
+                MviEffect>()
+                .initialIntent(AddEditTaskIntent.InitialIntent.class)
+                .actionFromIntent(actionFromIntent)
+                .actionProcessor(mActionProcessorHolder.actionProcessor)
+                .reducer(AddEditTaskViewState.idle(), reducer)
+                .schedulers(schedulerProvider.state(), schedulerProvider.ui())
+                .middlewares(middlewares)
+                .build();
     }
 
     @Override
-    public void processIntents(Observable<AddEditTaskIntent> intents) {
-        intents.subscribe(mIntentsSubject);
+    public Disposable processIntents(Observable<AddEditTaskIntent> intents) {
+        // a new task has nothing to populate: the idle state is replayed by states() already
+        return mStore.processIntents(intents.filter(intent -> !isNewTaskInitialIntent(intent)));
     }
 
     @Override
     public Observable<AddEditTaskViewState> states() {
-        return mStatesSubject;
+        return mStore.states();
     }
 
-    private Observable<AddEditTaskViewState> compose() {
-        return mIntentsSubject.doOnNext(MviViewModel::logIntent)
-                .scan(initialIntentFilter)
-                .map(this::actionFromIntent)
-                .doOnNext(MviViewModel::logAction)
-                .compose(mActionProcessorHolder.actionProcessor)
-                .doOnNext(MviViewModel::logResult)
-                .scan(AddEditTaskViewState.idle(), reducer)
-                .doOnNext(MviViewModel::logState);
+    @Override
+    protected void onCleared() {
+        mStore.dispose();
     }
 
-    private BiFunction<AddEditTaskIntent, AddEditTaskIntent, AddEditTaskIntent> initialIntentFilter =
-            (previousIntent, newIntent) -> {
-                // if isReConnection (e.g. after config change)
-                // i.e. we are inside the scan, meaning there has already
-                // been intent in the past, meaning the InitialIntent cannot
-                // be the first => it is a reconnection.
-                if (newIntent instanceof AddEditTaskIntent.InitialIntent) {
-                    return AddEditTaskIntent.GetLastState.create();
-                } else {
-                    return newIntent;
-                }
-            };
-
-    private AddEditTaskAction actionFromIntent(MviIntent intent) {
-        if (intent instanceof AddEditTaskIntent.InitialIntent) {
-            String taskId = ((AddEditTaskIntent.InitialIntent) intent).taskId();
-            if (taskId == null) {
-                // nothing to do here so getting the idle state with GetLastState intent
-                return AddEditTaskAction.GetLastState.create();
-            } else {
-                return AddEditTaskAction.PopulateTask.create(taskId);
-            }
-        }
-        if (intent instanceof AddEditTaskIntent.SaveTask) {
-            AddEditTaskIntent.SaveTask saveTaskIntent = (AddEditTaskIntent.SaveTask) intent;
-            final String taskId = saveTaskIntent.taskId();
-            if (taskId == null) {
-                return AddEditTaskAction.CreateTask.create(
-                        saveTaskIntent.title(), saveTaskIntent.description());
-            } else {
-                return AddEditTaskAction.UpdateTask.create(
-                        taskId, saveTaskIntent.title(), saveTaskIntent.description());
-            }
-        }
-        if (intent instanceof AddEditTaskIntent.GetLastState) {
-            return AddEditTaskAction.GetLastState.create();
-        }
-        throw new IllegalArgumentException("do not know how to treat this intent " + intent);
+    private static boolean isNewTaskInitialIntent(@NonNull AddEditTaskIntent intent) {
+        return intent instanceof AddEditTaskIntent.InitialIntent
+                && ((AddEditTaskIntent.InitialIntent) intent).taskId() == null;
     }
 
-    private static BiFunction<AddEditTaskViewState, AddEditTaskResult, AddEditTaskViewState> reducer =
-            (previousState, result) -> {
-                AddEditTaskViewState.Builder stateBuilder = previousState.buildWith();
-                if (result instanceof AddEditTaskResult.GetLastState) {
-                    return stateBuilder.build();
-                }
-                if (result instanceof AddEditTaskResult.PopulateTask) {
-                    AddEditTaskResult.PopulateTask populateTaskResult =
-                            (AddEditTaskResult.PopulateTask) result;
-                    switch (populateTaskResult.status()) {
-                        case SUCCESS:
-                            Task task = checkNotNull(populateTaskResult.task());
-                            if (task.isActive()) {
-                                stateBuilder.title(task.getTitle());
-                                stateBuilder.description(task.getDescription());
-                            }
-                            return stateBuilder.build();
-                        case FAILURE:
-                            Throwable error = checkNotNull(populateTaskResult.error());
-                            return stateBuilder.error(error).build();
-                        case IN_FLIGHT:
-                            // nothing to do
-                            return stateBuilder.build();
-                    }
+    private static final MviIntentMapper<AddEditTaskIntent, AddEditTaskAction> actionFromIntent =
+            new MviIntentMapper.Builder<AddEditTaskIntent, AddEditTaskAction>()
+                    .on(AddEditTaskIntent.InitialIntent.class,
+                            intent -> AddEditTaskAction.PopulateTask.create(checkNotNull(intent.taskId())))
+                    .on(AddEditTaskIntent.SaveTask.class, saveTaskIntent -> {
+                        final String taskId = saveTaskIntent.taskId();
+                        if (taskId == null) {
+                            return AddEditTaskAction.CreateTask.create(
+                                    saveTaskIntent.title(), saveTaskIntent.description());
+                        } else {
+                            return AddEditTaskAction.UpdateTask.create(
+                                    taskId, saveTaskIntent.title(), saveTaskIntent.description());
+                        }
+                    })
+                    .build();
+
+    private static final MviResultReducer<AddEditTaskViewState, AddEditTaskResult> reducer =
+            new MviResultReducer.Builder<AddEditTaskViewState, AddEditTaskResult>()
+                    .on(AddEditTaskResult.PopulateTask.class, AddEditTaskViewModel::reducePopulateTask)
+                    .on(AddEditTaskResult.CreateTask.class, (previousState, createTaskResult) -> {
+                        AddEditTaskViewState.Builder stateBuilder = previousState.buildWith();
+                        if (createTaskResult.isEmpty()) {
+                            return stateBuilder.isEmpty(true).build();
+                        } else {
+                            return stateBuilder.isEmpty(false).isSaved(true).build();
+                        }
+                    })
+                    .on(AddEditTaskResult.UpdateTask.class,
+                            (previousState, result) -> previousState.buildWith().isSaved(true).build())
+                    .build();
+
+    private static AddEditTaskViewState reducePopulateTask(AddEditTaskViewState previousState,
+                                                           AddEditTaskResult.PopulateTask populateTaskResult) {
+        AddEditTaskViewState.Builder stateBuilder = previousState.buildWith();
+        switch (populateTaskResult.status()) {
+            case SUCCESS:
+                Task task = checkNotNull(populateTaskResult.task());
+                if (task.isActive()) {
+                    stateBuilder.title(task.getTitle());
+                    stateBuilder.description(task.getDescription());
                 }
-                if (result instanceof AddEditTaskResult.CreateTask) {
-                    AddEditTaskResult.CreateTask createTaskResult =
-                            (AddEditTaskResult.CreateTask) result;
-                    if (createTaskResult.isEmpty()) {
-                        return stateBuilder.isEmpty(true).build();
-                    } else {
-                        return stateBuilder.isEmpty(false).isSaved(true).build();
-                    }
-                }
-                if (result instanceof AddEditTaskResult.UpdateTask) {
-                    return stateBuilder.isSaved(true).build();
-                }
-                throw new IllegalStateException("Mishandled result? Should not happen―as always: " + result);
-            };
+                return stateBuilder.build();
+            case FAILURE:
+                Throwable error = checkNotNull(populateTaskResult.error());
+                return stateBuilder.error(error).build();
+            case IN_FLIGHT:
+                // nothing to do
+                return stateBuilder.build();
+        }
+        throw new IllegalStateException("Mishandled result? Should not happen―as always: " + populateTaskResult);
+    }
 }
@@ -5,9 +5,17 @@ import android.support.annotation.Nullable;
 
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewState;
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Objects;
 
 @AutoValue
 abstract class AddEditTaskViewState implements MviViewState {
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 1 << 1;
+    static final int IS_EMPTY = 1 << 2;
+    static final int IS_SAVED = 1 << 3;
+    static final int ERROR = 1 << 4;
+    static final int ALL_FIELDS = ~0;
+
     abstract String title();
 
     abstract String description();
@@ -21,6 +29,21 @@ abstract class AddEditTaskViewState implements MviViewState {
 
     public abstract Builder buildWith();
 
+    /**
+     * Returns the bit set of the fields which differ from the given state, all of them if it is
+     * null.
+     */
+    int changes(@Nullable AddEditTaskViewState previousState) {
+        if (previousState == null) return ALL_FIELDS;
+        int changes = 0;
+        if (!title().equals(previousState.title())) changes |= TITLE;
+        if (!description().equals(previousState.description())) changes |= DESCRIPTION;
+        if (isEmpty() != previousState.isEmpty()) changes |= IS_EMPTY;
+        if (isSaved() != previousState.isSaved()) changes |= IS_SAVED;
+        if (!Objects.equal(error(), previousState.error())) changes |= ERROR;
+        return changes;
+    }
+
     static AddEditTaskViewState idle() {
         return new AutoValue_AddEditTaskViewState.Builder()
                 .title("")
@@ -71,7 +71,7 @@ public class FakeTasksRemoteDataSource implements TasksDataSource {
 
     @Override
     public Completable completeTask(@NonNull Task task) {
-        Task completedTask = new Task(task.getTitle(), task.getDescription(), task.getId(), true);
+        Task completedTask = task.asCompleted(System.currentTimeMillis());
         TASKS_SERVICE_DATA.put(task.getId(), completedTask);
         return null;
     }
@@ -79,14 +79,14 @@ public class FakeTasksRemoteDataSource implements TasksDataSource {
     @Override
     public Completable completeTask(@NonNull String taskId) {
         Task task = TASKS_SERVICE_DATA.get(taskId);
-        Task completedTask = new Task(task.getTitle(), task.getDescription(), task.getId(), true);
+        Task completedTask = task.asCompleted(System.currentTimeMillis());
         TASKS_SERVICE_DATA.put(taskId, completedTask);
         return null;
     }
 
     @Override
     public Completable activateTask(@NonNull Task task) {
-        Task activeTask = new Task(task.getTitle(), task.getDescription(), task.getId());
+        Task activeTask = task.asActive();
         TASKS_SERVICE_DATA.put(task.getId(), activeTask);
         return Completable.complete();
     }
@@ -94,7 +94,7 @@ public class FakeTasksRemoteDataSource implements TasksDataSource {
     @Override
     public Completable activateTask(@NonNull String taskId) {
         Task task = TASKS_SERVICE_DATA.get(taskId);
-        Task activeTask = new Task(task.getTitle(), task.getDescription(), task.getId());
+        Task activeTask = task.asActive();
         TASKS_SERVICE_DATA.put(taskId, activeTask);
         return null;
     }
@@ -39,6 +39,10 @@ public final class Task {
 
     private final boolean mCompleted;
 
+    private final long mCreatedAt;
+
+    private final long mCompletedAt;
+
     /**
      * Use this constructor to create a new active Task.
      *
@@ -46,7 +50,8 @@ public final class Task {
      * @param description description of the task
      */
     public Task(@Nullable String title, @Nullable String description) {
-        this(title, description, UUID.randomUUID().toString(), false);
+        this(title, description, UUID.randomUUID().toString(), false,
+                System.currentTimeMillis(), 0);
     }
 
     /**
@@ -69,7 +74,8 @@ public final class Task {
      * @param completed   true if the task is completed, false if it's active
      */
     public Task(@Nullable String title, @Nullable String description, boolean completed) {
-        this(title, description, UUID.randomUUID().toString(), completed);
+        this(title, description, UUID.randomUUID().toString(), completed,
+                System.currentTimeMillis(), completed ? System.currentTimeMillis() : 0);
     }
 
     /**
@@ -83,10 +89,43 @@ public final class Task {
      */
     public Task(@Nullable String title, @Nullable String description,
                 @NonNull String id, boolean completed) {
+        this(title, description, id, completed, 0, 0);
+    }
+
+    /**
+     * Use this constructor to restore a Task with its timestamps.
+     *
+     * @param title       title of the task
+     * @param description description of the task
+     * @param id          id of the task
+     * @param completed   true if the task is completed, false if it's active
+     * @param createdAt   creation time in milliseconds, 0 if unknown
+     * @param completedAt completion time in milliseconds, 0 if unknown or not completed
+     */
+    public Task(@Nullable String title, @Nullable String description,
+                @NonNull String id, boolean completed, long createdAt, long completedAt) {
         mId = id;
         mTitle = title;
         mDescription = description;
         mCompleted = completed;
+        mCreatedAt = createdAt;
+        mCompletedAt = completed ? completedAt : 0;
+    }
+
+    /**
+     * Returns a completed copy of this task, completed at {@code completedAt}.
+     */
+    @NonNull
+    public Task asCompleted(long completedAt) {
+        return new Task(mTitle, mDescription, mId, true, mCreatedAt, completedAt);
+    }
+
+    /**
+     * Returns an active copy of this task.
+     */
+    @NonNull
+    public Task asActive() {
+        return new Task(mTitle, mDescription, mId, false, mCreatedAt, 0);
     }
 
     @NonNull
@@ -121,6 +160,20 @@ public final class Task {
         return !mCompleted;
     }
 
+    /**
+     * Creation time in milliseconds, 0 if unknown.
+     */
+    public long getCreatedAt() {
+        return mCreatedAt;
+    }
+
+    /**
+     * Completion time in milliseconds, 0 if unknown or not completed.
+     */
+    public long getCompletedAt() {
+        return mCompletedAt;
+    }
+
     public boolean isEmpty() {
         return Strings.isNullOrEmpty(mTitle) &&
                 Strings.isNullOrEmpty(mDescription);
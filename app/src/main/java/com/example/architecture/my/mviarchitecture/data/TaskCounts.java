@@ -0,0 +1,33 @@
+package com.example.architecture.my.mviarchitecture.data;
+
+import android.support.annotation.NonNull;
+
+import com.google.auto.value.AutoValue;
+
+/**
+ * Number of active and completed tasks. Archived tasks are counted as completed.
+ */
+@AutoValue
+public abstract class TaskCounts {
+    public abstract int activeCount();
+
+    public abstract int completedCount();
+
+    @NonNull
+    public static TaskCounts create(int activeCount, int completedCount) {
+        return new AutoValue_TaskCounts(activeCount, completedCount);
+    }
+
+    @NonNull
+    public static TaskCounts empty() {
+        return create(0, 0);
+    }
+
+    /**
+     * Returns these counts with the given deltas applied.
+     */
+    @NonNull
+    public TaskCounts plus(int activeDelta, int completedDelta) {
+        return create(activeCount() + activeDelta, completedCount() + completedDelta);
+    }
+}
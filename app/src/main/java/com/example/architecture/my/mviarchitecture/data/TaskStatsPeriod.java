@@ -0,0 +1,78 @@
+package com.example.architecture.my.mviarchitecture.data;
+
+import android.support.annotation.NonNull;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Number of tasks created and completed over a period of whole days. Days are counted in local
+ * time, since the epoch.
+ */
+@AutoValue
+public abstract class TaskStatsPeriod {
+    public static final int DAYS_PER_WEEK = 7;
+
+    public abstract long startDay();
+
+    public abstract int dayCount();
+
+    public abstract int createdCount();
+
+    public abstract int completedCount();
+
+    @NonNull
+    public static TaskStatsPeriod create(long startDay, int dayCount, int createdCount,
+                                         int completedCount) {
+        return new AutoValue_TaskStatsPeriod(startDay, dayCount, createdCount, completedCount);
+    }
+
+    /**
+     * Expands sparse, sorted daily stats into one period per day from {@code firstDay}, with zero
+     * counts for the days without any.
+     */
+    @NonNull
+    public static List<TaskStatsPeriod> denseDays(@NonNull List<TaskStatsPeriod> sparseDays,
+                                                  long firstDay, int dayCount) {
+        List<TaskStatsPeriod> days = new ArrayList<>(dayCount);
+        int next = 0;
+        for (long day = firstDay; day < firstDay + dayCount; day++) {
+            while (next < sparseDays.size() && sparseDays.get(next).startDay() < day) next++;
+            if (next < sparseDays.size() && sparseDays.get(next).startDay() == day) {
+                days.add(sparseDays.get(next++));
+            } else {
+                days.add(create(day, 1, 0, 0));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Sums sorted daily stats into weeks starting on Monday. The first and last weeks only cover
+     * the days given.
+     */
+    @NonNull
+    public static List<TaskStatsPeriod> weeks(@NonNull List<TaskStatsPeriod> days) {
+        List<TaskStatsPeriod> weeks = new ArrayList<>(days.size() / DAYS_PER_WEEK + 2);
+        TaskStatsPeriod week = null;
+        for (TaskStatsPeriod day : days) {
+            if (week != null && weekOf(day.startDay()) == weekOf(week.startDay())) {
+                week = create(week.startDay(), week.dayCount() + day.dayCount(),
+                        week.createdCount() + day.createdCount(),
+                        week.completedCount() + day.completedCount());
+            } else {
+                if (week != null) weeks.add(week);
+                week = day;
+            }
+        }
+        if (week != null) weeks.add(week);
+        return weeks;
+    }
+
+    private static long weekOf(long day) {
+        // Day 0, 1970-01-01, was a Thursday.
+        return (day + 3) / DAYS_PER_WEEK;
+    }
+}
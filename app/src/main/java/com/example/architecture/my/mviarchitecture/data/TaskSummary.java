@@ -0,0 +1,121 @@
+package com.example.architecture.my.mviarchitecture.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, lightweight view of a {@link Task} holding only what the tasks list displays. The
+ * description is not kept: when the title is empty, only its first {@link #LIST_TITLE_MAX_LENGTH}
+ * characters are, as the list title.
+ */
+public final class TaskSummary {
+    /**
+     * Longest text shown as the title of a list row.
+     */
+    public static final int LIST_TITLE_MAX_LENGTH = 100;
+
+    @NonNull
+    private final String mId;
+
+    @Nullable
+    private final String mTitle;
+
+    @Nullable
+    private final String mTitleForList;
+
+    private final boolean mCompleted;
+
+    /**
+     * @param id           id of the task
+     * @param title        title of the task
+     * @param titleForList title, or description prefix if the title is empty
+     * @param completed    true if the task is completed, false if it's active
+     */
+    public TaskSummary(@NonNull String id, @Nullable String title, @Nullable String titleForList,
+                       boolean completed) {
+        mId = id;
+        mTitle = title;
+        mTitleForList = titleForList;
+        mCompleted = completed;
+    }
+
+    @NonNull
+    public static TaskSummary from(@NonNull Task task) {
+        String titleForList = task.getTitleForList();
+        if (titleForList != null && titleForList.length() > LIST_TITLE_MAX_LENGTH) {
+            titleForList = titleForList.substring(0, LIST_TITLE_MAX_LENGTH);
+        }
+        return new TaskSummary(task.getId(), task.getTitle(), titleForList, task.isCompleted());
+    }
+
+    @NonNull
+    public static List<TaskSummary> from(@NonNull List<Task> tasks) {
+        List<TaskSummary> summaries = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            summaries.add(from(task));
+        }
+        return summaries;
+    }
+
+    /**
+     * Returns this summary, completed or active as given.
+     */
+    @NonNull
+    public TaskSummary withCompleted(boolean completed) {
+        return completed == mCompleted ? this : new TaskSummary(mId, mTitle, mTitleForList, completed);
+    }
+
+    @NonNull
+    public String getId() {
+        return mId;
+    }
+
+    @Nullable
+    public String getTitle() {
+        return mTitle;
+    }
+
+    @Nullable
+    public String getTitleForList() {
+        return mTitleForList;
+    }
+
+    public boolean isCompleted() {
+        return mCompleted;
+    }
+
+    public boolean isActive() {
+        return !mCompleted;
+    }
+
+    public boolean isEmpty() {
+        return Strings.isNullOrEmpty(mTitleForList);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TaskSummary summary = (TaskSummary) o;
+        return mCompleted == summary.mCompleted &&
+                Objects.equal(mId, summary.mId) &&
+                Objects.equal(mTitle, summary.mTitle) &&
+                Objects.equal(mTitleForList, summary.mTitleForList);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(mId, mTitle, mTitleForList, mCompleted);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskSummary with title " + mTitle;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.architecture.my.mviarchitecture.data.source;
+
+import android.content.SharedPreferences;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+
+import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import timber.log.Timber;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Moves old completed tasks to cold storage and keeps the database compact.
+ * <p>
+ * The pass runs in the background once the main thread goes idle, at most once per
+ * {@link #MAINTENANCE_INTERVAL_MILLIS}: completed tasks older than the configured age are archived,
+ * then the database is analyzed and vacuumed.
+ */
+public class TasksArchiver {
+
+    public static final long DEFAULT_ARCHIVE_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    private static final long MAINTENANCE_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String KEY_LAST_RUN = "tasks_archiver_last_run";
+
+    @NonNull
+    private final TasksRepository mTasksRepository;
+
+    @NonNull
+    private final SharedPreferences mPreferences;
+
+    @NonNull
+    private final BaseSchedulerProvider mSchedulerProvider;
+
+    private final long mArchiveAgeMillis;
+
+    /**
+     * @param archiveAgeMillis how long a task stays completed before being archived
+     */
+    public TasksArchiver(@NonNull TasksRepository tasksRepository,
+                         @NonNull SharedPreferences preferences,
+                         @NonNull BaseSchedulerProvider schedulerProvider,
+                         long archiveAgeMillis) {
+        checkArgument(archiveAgeMillis >= 0, "archiveAgeMillis cannot be negative");
+        mTasksRepository = checkNotNull(tasksRepository, "tasksRepository cannot be null");
+        mPreferences = checkNotNull(preferences, "preferences cannot be null");
+        mSchedulerProvider = checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
+        mArchiveAgeMillis = archiveAgeMillis;
+    }
+
+    /**
+     * Runs the archiving and maintenance pass the next time the main thread has nothing to do, if
+     * the last pass is old enough.
+     */
+    @MainThread
+    public void scheduleAtIdle() {
+        Looper.myQueue().addIdleHandler(() -> {
+            if (isDue()) {
+                run().subscribeOn(mSchedulerProvider.io())
+                        .subscribe(() -> Timber.d("Tasks archived and database compacted"),
+                                error -> Timber.w(error, "Tasks maintenance failed"));
+            }
+            // One-shot: do not keep the handler around.
+            return false;
+        });
+    }
+
+    /**
+     * Archives the tasks completed more than the configured age ago, then runs the database
+     * maintenance.
+     */
+    @NonNull
+    public Completable run() {
+        return Completable.defer(() -> {
+            long now = System.currentTimeMillis();
+            return mTasksRepository.archiveCompletedTasks(now - mArchiveAgeMillis)
+                    .andThen(mTasksRepository.runMaintenance())
+                    .doOnComplete(() -> mPreferences.edit().putLong(KEY_LAST_RUN, now).apply());
+        });
+    }
+
+    private boolean isDue() {
+        long lastRun = mPreferences.getLong(KEY_LAST_RUN, 0);
+        return System.currentTimeMillis() - lastRun >= MAINTENANCE_INTERVAL_MILLIS;
+    }
+}
@@ -19,10 +19,16 @@ package com.example.architecture.my.mviarchitecture.data.source;
 import android.support.annotation.NonNull;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskCounts;
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 
+import java.util.Collections;
 import java.util.List;
 
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
 import io.reactivex.Single;
 
 /**
@@ -37,8 +43,113 @@ public interface TasksDataSource {
 
     Single<List<Task>> getTasks();
 
+    /**
+     * Emits the tasks one at a time, honouring downstream backpressure. Sources able to read
+     * incrementally should override this so that large datasets are never held in memory at once.
+     */
+    default Flowable<Task> streamTasks() {
+        return getTasks().flattenAsFlowable(tasks -> tasks);
+    }
+
+    /**
+     * Returns the lightweight list rows of the tasks. Sources able to project their storage should
+     * override this so that full descriptions are never loaded for list rendering.
+     */
+    default Single<List<TaskSummary>> getTaskSummaries() {
+        return getTasks().map(TaskSummary::from);
+    }
+
+    default Single<List<TaskSummary>> getTaskSummaries(boolean forceUpdate) {
+        if (forceUpdate) refreshTasks();
+        return getTaskSummaries();
+    }
+
     Single<Task> getTask(@NonNull String taskId);
 
+    /**
+     * Emits the tasks and, for sources able to observe their storage, emits again on every change.
+     */
+    default Observable<List<Task>> observeTasks() {
+        return getTasks().toObservable();
+    }
+
+    /**
+     * Emits the task with the given id and, for sources able to observe their storage, emits again
+     * on every change.
+     */
+    default Observable<Task> observeTask(@NonNull String taskId) {
+        return getTask(taskId).toObservable();
+    }
+
+    /**
+     * Emits the number of tasks and, for sources able to observe their storage, emits again on
+     * every change.
+     */
+    default Observable<Integer> observeTaskCount() {
+        return getTasks().map(List::size).toObservable();
+    }
+
+    /**
+     * Returns the archived tasks: completed tasks old enough to have been moved out of the main
+     * list by {@link #archiveCompletedTasks(long)}. Sources without an archive have none.
+     */
+    default Single<List<Task>> getArchivedTasks() {
+        return Single.just(Collections.emptyList());
+    }
+
+    default Single<List<TaskSummary>> getArchivedTaskSummaries() {
+        return getArchivedTasks().map(TaskSummary::from);
+    }
+
+    default Single<Integer> getArchivedTaskCount() {
+        return getArchivedTasks().map(List::size);
+    }
+
+    /**
+     * Returns the number of active and completed tasks, archived ones included. Sources able to
+     * aggregate their storage should override this so that no task is loaded to count them.
+     */
+    default Single<TaskCounts> getTaskCounts() {
+        return Single.zip(getTasks(), getArchivedTaskCount(), (tasks, archivedCount) -> {
+            int completedCount = 0;
+            for (Task task : tasks) {
+                if (task.isCompleted()) completedCount++;
+            }
+            return TaskCounts.create(tasks.size() - completedCount, completedCount + archivedCount);
+        });
+    }
+
+    /**
+     * Emits the task counts and, for sources able to observe their changes, emits again whenever
+     * they change.
+     */
+    default Observable<TaskCounts> observeTaskCounts() {
+        return getTaskCounts().toObservable();
+    }
+
+    /**
+     * Returns the number of tasks created and completed on each of the last {@code dayCount} days,
+     * today included, oldest first. Sources without daily stats have none.
+     */
+    default Single<List<TaskStatsPeriod>> getDailyTaskStats(int dayCount) {
+        return Single.just(Collections.emptyList());
+    }
+
+    /**
+     * Archives the tasks completed before {@code completedBeforeMillis}. No-op for sources without
+     * an archive.
+     */
+    default Completable archiveCompletedTasks(long completedBeforeMillis) {
+        return Completable.complete();
+    }
+
+    /**
+     * Runs the storage housekeeping the source needs, if any. Expensive, to be run at idle time.
+     */
+    default Completable runMaintenance() {
+        return Completable.complete();
+    }
+
     Completable saveTask(@NonNull Task task);
 
     Completable completeTask(@NonNull Task task);
@@ -21,15 +21,20 @@ import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskCounts;
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
+import com.example.architecture.my.mviarchitecture.util.PersistentOrderedMap;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Single;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -52,18 +57,55 @@ public class TasksRepository implements TasksDataSource {
     private final TasksDataSource mTasksLocalDataSource;
 
     /**
-     * This variable has package local visibility so it can be accessed from tests.
+     * Immutable: every write replaces it by a new map sharing almost all its memory, so the tasks
+     * it holds are handed out without a copy. Writers run concurrently, e.g. toggles of different
+     * tasks on io threads, so it is only read and replaced holding this. This variable has package
+     * local visibility so it can be accessed from tests.
      */
     @VisibleForTesting
     @Nullable
-    Map<String, Task> mCachedTasks;
+    PersistentOrderedMap<String, Task> mCachedTasks;
+
+    /**
+     * List rows of every task, null until the list is loaded. The task list is answered from
+     * them, and only holds them: full tasks are cached once opened or written. Replaced like
+     * {@link #mCachedTasks}, holding this.
+     */
+    @Nullable
+    private PersistentOrderedMap<String, TaskSummary> mCachedTaskSummaries;
 
     /**
      * Marks the cache as invalid, to force an update the next time data is requested. This variable
      * has package local visibility so it can be accessed from tests.
      */
     @VisibleForTesting
-    boolean mCacheIsDirty = false;
+    volatile boolean mCacheIsDirty = false;
+
+    /**
+     * Whether the cache holds every task, rather than only the ones loaded one at a time. Only a
+     * complete cache can answer {@link #getTasks()}. This variable has package local visibility so
+     * it can be accessed from tests.
+     */
+    @VisibleForTesting
+    volatile boolean mCacheIsComplete = false;
+
+    /**
+     * Task counts, kept up to date by every mutation once loaded so that {@link #getTaskCounts()}
+     * is answered without any query. Null while unknown.
+     */
+    @Nullable
+    private TaskCounts mTaskCounts;
+
+    /**
+     * Bumped by every mutation, so that counts loaded while one happened are not kept.
+     */
+    private int mTaskCountsVersion;
+
+    /**
+     * Emits the new counts version after every change to the counts.
+     */
+    @NonNull
+    private final Subject<Integer> mTaskCountsChanges = PublishSubject.<Integer>create().toSerialized();
 
     // Prevent direct instantiation.
     private TasksRepository(@NonNull TasksDataSource tasksRemoteDataSource,
@@ -97,16 +139,16 @@ public class TasksRepository implements TasksDataSource {
 
     /**
      * Gets tasks from cache, local data source (SQLite) or remote data source, whichever is
-     * available first.
+     * available first. The cached tasks are a snapshot of the cache, taken without a copy.
      */
     @Override
     public Single<List<Task>> getTasks() {
         // Respond immediately with cache if available and not dirty
-        if (mCachedTasks != null && !mCacheIsDirty) {
-            return Observable.fromIterable(mCachedTasks.values()).toList();
-        } else if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
+        PersistentOrderedMap<String, Task> cachedTasks = getAvailableCachedTasks();
+        if (cachedTasks != null) {
+            return Single.just(cachedTasks.values());
         }
+        initCache();
 
         Single<List<Task>> remoteTasks = getAndSaveRemoteTasks();
 
@@ -121,50 +163,418 @@ public class TasksRepository implements TasksDataSource {
         }
     }
 
+    /**
+     * Gets the list rows of the tasks, from their own cache, or else as projected by the local
+     * data source, which keeps the full tasks out of memory: those are only loaded, by
+     * {@link #getTask(String)}, when a task is opened. The cached rows are a snapshot of the
+     * cache, the same list as long as no task changed.
+     */
+    @Override
+    public Single<List<TaskSummary>> getTaskSummaries() {
+        PersistentOrderedMap<String, TaskSummary> cachedTaskSummaries =
+                getAvailableCachedTaskSummaries();
+        if (cachedTaskSummaries != null) {
+            return Single.just(cachedTaskSummaries.values());
+        }
+
+        Single<List<TaskSummary>> remoteTasks = getAndSaveRemoteTaskSummaries();
+
+        if (mCacheIsDirty) {
+            return remoteTasks;
+        } else {
+            // Query the local storage if available. If not, query the network.
+            Single<List<TaskSummary>> localTasks = mTasksLocalDataSource.getTaskSummaries()
+                    .doOnSuccess(this::replaceCachedTaskSummaries);
+            return Single.concat(localTasks, remoteTasks)
+                    .filter(tasks -> !tasks.isEmpty())
+                    .firstOrError();
+        }
+    }
+
+    /**
+     * Answers from the counters once they are known. They are loaded with a single aggregate query
+     * and then adjusted by every mutation.
+     */
+    @Override
+    public Single<TaskCounts> getTaskCounts() {
+        return Single.defer(() -> {
+            int version;
+            synchronized (this) {
+                if (mTaskCounts != null) {
+                    return Single.just(mTaskCounts);
+                }
+                version = mTaskCountsVersion;
+            }
+            return mTasksLocalDataSource.getTaskCounts().doOnSuccess(counts -> {
+                synchronized (this) {
+                    if (version == mTaskCountsVersion) {
+                        mTaskCounts = counts;
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Emits the task counts now and again after every mutation changing them. Mutations adjust
+     * the counters in place, so every emission is read from them rather than from the data
+     * sources, unless a mutation left them unknown.
+     */
+    @Override
+    public Observable<TaskCounts> observeTaskCounts() {
+        return mTaskCountsChanges.startWith(mTaskCountsVersion)
+                .switchMap(ignored -> getTaskCounts().toObservable())
+                .distinctUntilChanged();
+    }
+
+    /**
+     * Live view of the persisted tasks, re-emitted whenever the local database changes.
+     */
+    @Override
+    public Observable<List<Task>> observeTasks() {
+        return mTasksLocalDataSource.observeTasks();
+    }
+
+    /**
+     * Live view of a persisted task, re-emitted whenever the local database changes.
+     */
+    @Override
+    public Observable<Task> observeTask(@NonNull String taskId) {
+        checkNotNull(taskId);
+        return mTasksLocalDataSource.observeTask(taskId);
+    }
+
+    /**
+     * Live count of the persisted tasks, re-emitted whenever the local database changes.
+     */
+    @Override
+    public Observable<Integer> observeTaskCount() {
+        return mTasksLocalDataSource.observeTaskCount();
+    }
+
+    /**
+     * Archived tasks are read lazily from the local data source and never enter the cache.
+     */
+    @Override
+    public Single<List<Task>> getArchivedTasks() {
+        return mTasksLocalDataSource.getArchivedTasks();
+    }
+
+    @Override
+    public Single<List<TaskSummary>> getArchivedTaskSummaries() {
+        return mTasksLocalDataSource.getArchivedTaskSummaries();
+    }
+
+    @Override
+    public Single<Integer> getArchivedTaskCount() {
+        return mTasksLocalDataSource.getArchivedTaskCount();
+    }
+
+    /**
+     * Moves old completed tasks to the local archive, then drops them from the cache. List rows
+     * do not tell when a task was completed, so cached ones are projected again from the
+     * remaining tasks.
+     */
+    @Override
+    public Completable archiveCompletedTasks(long completedBeforeMillis) {
+        return mTasksLocalDataSource.archiveCompletedTasks(completedBeforeMillis)
+                .andThen(Completable.defer(() -> {
+                    uncacheTasksCompletedBefore(completedBeforeMillis);
+                    setTaskCounts(null);
+                    if (getCachedTaskSummaries() == null) return Completable.complete();
+                    return mTasksLocalDataSource.getTaskSummaries()
+                            .doOnSuccess(this::replaceCachedTaskSummaries)
+                            .toCompletable();
+                }));
+    }
+
+    /**
+     * Daily stats are rolled up by the local data source as tasks are written.
+     */
+    @Override
+    public Single<List<TaskStatsPeriod>> getDailyTaskStats(int dayCount) {
+        return mTasksLocalDataSource.getDailyTaskStats(dayCount);
+    }
+
+    @Override
+    public Completable runMaintenance() {
+        return mTasksLocalDataSource.runMaintenance();
+    }
+
+    /**
+     * Streams the persisted tasks straight from the local data source. Unlike {@link #getTasks()}
+     * this neither reads nor fills the in-memory cache, which makes it suitable for whole-dataset
+     * passes (statistics, export, sync diffing) over tables too large to hold in memory.
+     */
+    @Override
+    public Flowable<Task> streamTasks() {
+        return mTasksLocalDataSource.streamTasks();
+    }
+
     private Single<List<Task>> getAndCacheLocalTasks() {
         return mTasksLocalDataSource.getTasks()
-                .flatMap(tasks -> Observable.fromIterable(tasks)
-                        .doOnNext(task -> mCachedTasks.put(task.getId(), task))
-                        .toList());
+                .doOnSuccess(tasks -> cacheTasks(tasks, true));
     }
 
     private Single<List<Task>> getAndSaveRemoteTasks() {
         return mTasksRemoteDataSource.getTasks()
-                .flatMap(tasks -> Observable.fromIterable(tasks).doOnNext(task -> {
-                    mTasksLocalDataSource.saveTask(task);
-                    mCachedTasks.put(task.getId(), task);
-                }).toList())
-                .doOnSuccess(ignored -> mCacheIsDirty = false);
+                .doOnSuccess(tasks -> {
+                    cacheTasks(tasks, true);
+                    // The rows of the tasks the remote ones replaced are stale.
+                    replaceCachedTaskSummaries(null);
+                    saveRemoteTasks(tasks);
+                });
+    }
+
+    /**
+     * Only the rows of the remote tasks are cached, not the full tasks.
+     */
+    private Single<List<TaskSummary>> getAndSaveRemoteTaskSummaries() {
+        return mTasksRemoteDataSource.getTasks().map(tasks -> {
+            // The full tasks cached before may be stale: they are loaded again once opened.
+            replaceCachedTasks(Collections.emptyList(), false);
+            List<TaskSummary> taskSummaries = TaskSummary.from(tasks);
+            replaceCachedTaskSummaries(taskSummaries);
+            saveRemoteTasks(tasks);
+            return taskSummaries;
+        });
+    }
+
+    /**
+     * Saves the remote tasks locally, once cached as they are no longer stale.
+     */
+    private void saveRemoteTasks(@NonNull List<Task> tasks) {
+        for (Task task : tasks) {
+            mTasksLocalDataSource.saveTask(task);
+        }
+        mCacheIsDirty = false;
+        // The remote tasks were merged into the local ones.
+        setTaskCounts(null);
+    }
+
+    /**
+     * The list rows, null until loaded.
+     */
+    @Nullable
+    private synchronized PersistentOrderedMap<String, TaskSummary> getCachedTaskSummaries() {
+        return mCachedTaskSummaries;
+    }
+
+    /**
+     * The list rows, null unless they can answer list queries.
+     */
+    @Nullable
+    private synchronized PersistentOrderedMap<String, TaskSummary>
+    getAvailableCachedTaskSummaries() {
+        return mCacheIsDirty ? null : mCachedTaskSummaries;
+    }
+
+    /**
+     * The row of the task, from the full task if cached, null if unknown.
+     */
+    @Nullable
+    private synchronized TaskSummary getTaskSummaryWithId(@NonNull String id) {
+        Task task = getTaskWithId(id);
+        if (task != null) return TaskSummary.from(task);
+        return mCachedTaskSummaries == null ? null : mCachedTaskSummaries.get(id);
+    }
+
+    /**
+     * Whether a task missing from the cache is known not to be stored.
+     */
+    private synchronized boolean isTaskListCached() {
+        return mCacheIsComplete || mCachedTaskSummaries != null;
+    }
+
+    /**
+     * The cache, null unless it can answer list queries.
+     */
+    @Nullable
+    private synchronized PersistentOrderedMap<String, Task> getAvailableCachedTasks() {
+        return mCacheIsComplete && !mCacheIsDirty ? mCachedTasks : null;
+    }
+
+    private synchronized void initCache() {
+        if (mCachedTasks == null) {
+            mCachedTasks = PersistentOrderedMap.empty();
+        }
+    }
+
+    /**
+     * Adds the tasks to the cache, marking it complete if they are all the tasks.
+     */
+    private synchronized void cacheTasks(@NonNull List<Task> tasks, boolean complete) {
+        PersistentOrderedMap<String, Task> cachedTasks =
+                mCachedTasks != null ? mCachedTasks : PersistentOrderedMap.empty();
+        for (Task task : tasks) {
+            cachedTasks = cachedTasks.with(task.getId(), task);
+        }
+        mCachedTasks = cachedTasks;
+        if (complete) mCacheIsComplete = true;
+    }
+
+    private synchronized void replaceCachedTasks(@NonNull List<Task> tasks, boolean complete) {
+        mCachedTasks = PersistentOrderedMap.empty();
+        mCacheIsComplete = false;
+        cacheTasks(tasks, complete);
+    }
+
+    /**
+     * @param taskSummaries the rows of every task, null if unknown
+     */
+    private synchronized void replaceCachedTaskSummaries(
+            @Nullable List<TaskSummary> taskSummaries) {
+        if (taskSummaries == null) {
+            mCachedTaskSummaries = null;
+            return;
+        }
+        PersistentOrderedMap<String, TaskSummary> cachedTaskSummaries =
+                PersistentOrderedMap.empty();
+        for (TaskSummary taskSummary : taskSummaries) {
+            cachedTaskSummaries = cachedTaskSummaries.with(taskSummary.getId(), taskSummary);
+        }
+        mCachedTaskSummaries = cachedTaskSummaries;
+    }
+
+    private synchronized void cacheTask(@NonNull Task task) {
+        initCache();
+        mCachedTasks = mCachedTasks.with(task.getId(), task);
+        if (mCachedTaskSummaries != null) {
+            mCachedTaskSummaries =
+                    mCachedTaskSummaries.with(task.getId(), TaskSummary.from(task));
+        }
+    }
+
+    private synchronized void uncacheTask(@NonNull String taskId) {
+        if (mCachedTasks != null) {
+            mCachedTasks = mCachedTasks.without(taskId);
+        }
+        if (mCachedTaskSummaries != null) {
+            mCachedTaskSummaries = mCachedTaskSummaries.without(taskId);
+        }
+    }
+
+    private synchronized void uncacheCompletedTasks() {
+        initCache();
+        PersistentOrderedMap<String, Task> cachedTasks = mCachedTasks;
+        for (Task task : mCachedTasks.values()) {
+            if (task.isCompleted()) {
+                cachedTasks = cachedTasks.without(task.getId());
+            }
+        }
+        mCachedTasks = cachedTasks;
+        if (mCachedTaskSummaries != null) {
+            PersistentOrderedMap<String, TaskSummary> cachedTaskSummaries = mCachedTaskSummaries;
+            for (TaskSummary taskSummary : mCachedTaskSummaries.values()) {
+                if (taskSummary.isCompleted()) {
+                    cachedTaskSummaries = cachedTaskSummaries.without(taskSummary.getId());
+                }
+            }
+            mCachedTaskSummaries = cachedTaskSummaries;
+        }
+    }
+
+    /**
+     * Drops the full tasks archived by {@link #archiveCompletedTasks(long)}.
+     */
+    private synchronized void uncacheTasksCompletedBefore(long completedBeforeMillis) {
+        if (mCachedTasks == null) return;
+        PersistentOrderedMap<String, Task> cachedTasks = mCachedTasks;
+        for (Task task : mCachedTasks.values()) {
+            if (task.isCompleted() && task.getCompletedAt() < completedBeforeMillis) {
+                cachedTasks = cachedTasks.without(task.getId());
+            }
+        }
+        mCachedTasks = cachedTasks;
+    }
+
+    /**
+     * Replaces {@code previousTask} by {@code task} in the counts. Either can be null, for an
+     * insertion or a deletion.
+     */
+    private void updateTaskCounts(@Nullable TaskSummary previousTask,
+                                  @Nullable TaskSummary task) {
+        int activeDelta = 0;
+        int completedDelta = 0;
+        if (previousTask != null) {
+            if (previousTask.isCompleted()) completedDelta--;
+            else activeDelta--;
+        }
+        if (task != null) {
+            if (task.isCompleted()) completedDelta++;
+            else activeDelta++;
+        }
+        int version;
+        synchronized (this) {
+            version = ++mTaskCountsVersion;
+            if (mTaskCounts != null) {
+                mTaskCounts = mTaskCounts.plus(activeDelta, completedDelta);
+            }
+        }
+        mTaskCountsChanges.onNext(version);
+    }
+
+    private void setTaskCounts(@Nullable TaskCounts taskCounts) {
+        int version;
+        synchronized (this) {
+            version = ++mTaskCountsVersion;
+            mTaskCounts = taskCounts;
+        }
+        mTaskCountsChanges.onNext(version);
+    }
+
+    private void clearCompletedTaskCounts() {
+        int version;
+        synchronized (this) {
+            version = ++mTaskCountsVersion;
+            if (mTaskCounts != null) {
+                mTaskCounts = TaskCounts.create(mTaskCounts.activeCount(), 0);
+            }
+        }
+        mTaskCountsChanges.onNext(version);
+    }
+
+    /**
+     * Local writes complete asynchronously. They only need to be waited for when the list rows
+     * are not cached, as the next list query then goes to the local data source.
+     */
+    private Completable awaitUnlessCached(@NonNull Completable localWrite) {
+        return getCachedTaskSummaries() != null ? Completable.complete() : localWrite;
     }
 
     @Override
     public Completable saveTask(@NonNull Task task) {
         checkNotNull(task);
         mTasksRemoteDataSource.saveTask(task);
-        mTasksLocalDataSource.saveTask(task);
+        Completable localWrite = mTasksLocalDataSource.saveTask(task);
 
-        // Do in memory cache update to keep the app UI up to date
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
+        TaskSummary previousTask = getTaskSummaryWithId(task.getId());
+        if (previousTask != null || isTaskListCached()) {
+            updateTaskCounts(previousTask, TaskSummary.from(task));
+        } else {
+            // It may replace a stored task we know nothing about.
+            setTaskCounts(null);
         }
-        mCachedTasks.put(task.getId(), task);
-        return Completable.complete();
+
+        // Do in memory cache update to keep the app UI up to date
+        cacheTask(task);
+        return awaitUnlessCached(localWrite);
     }
 
     @Override
     public Completable completeTask(@NonNull Task task) {
         checkNotNull(task);
         mTasksRemoteDataSource.completeTask(task);
-        mTasksLocalDataSource.completeTask(task);
+        Completable localWrite = mTasksLocalDataSource.completeTask(task);
 
-        Task completedTask = new Task(task.getTitle(), task.getDescription(), task.getId(), true);
+        Task completedTask = task.asCompleted(System.currentTimeMillis());
+        TaskSummary previousTask = getTaskSummaryWithId(task.getId());
+        updateTaskCounts(previousTask != null ? previousTask : TaskSummary.from(task),
+                TaskSummary.from(completedTask));
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
-        }
-        mCachedTasks.put(task.getId(), completedTask);
-        return Completable.complete();
+        cacheTask(completedTask);
+        return awaitUnlessCached(localWrite);
     }
 
     @Override
@@ -174,7 +584,9 @@ public class TasksRepository implements TasksDataSource {
         if (taskWithId != null) {
             return completeTask(taskWithId);
         } else {
-            return Completable.complete();
+            // Not cached, e.g. only its summary was loaded: load it first, which tells its
+            // current state.
+            return getTask(taskId).flatMapCompletable(this::completeTask);
         }
     }
 
@@ -182,16 +594,16 @@ public class TasksRepository implements TasksDataSource {
     public Completable activateTask(@NonNull Task task) {
         checkNotNull(task);
         mTasksRemoteDataSource.activateTask(task);
-        mTasksLocalDataSource.activateTask(task);
+        Completable localWrite = mTasksLocalDataSource.activateTask(task);
 
-        Task activeTask = new Task(task.getTitle(), task.getDescription(), task.getId());
+        Task activeTask = task.asActive();
+        TaskSummary previousTask = getTaskSummaryWithId(task.getId());
+        updateTaskCounts(previousTask != null ? previousTask : TaskSummary.from(task),
+                TaskSummary.from(activeTask));
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
-        }
-        mCachedTasks.put(task.getId(), activeTask);
-        return Completable.complete();
+        cacheTask(activeTask);
+        return awaitUnlessCached(localWrite);
     }
 
     @Override
@@ -201,7 +613,9 @@ public class TasksRepository implements TasksDataSource {
         if (taskWithId != null) {
             return activateTask(taskWithId);
         } else {
-            return Completable.complete();
+            // Not cached, e.g. only its summary was loaded: load it first, which tells its
+            // current state.
+            return getTask(taskId).flatMapCompletable(this::activateTask);
         }
     }
 
@@ -209,29 +623,28 @@ public class TasksRepository implements TasksDataSource {
     public Completable deleteTask(@NonNull String taskId) {
         checkNotNull(taskId);
         mTasksRemoteDataSource.deleteTask(checkNotNull(taskId));
-        mTasksLocalDataSource.deleteTask(checkNotNull(taskId));
+        Completable localWrite = mTasksLocalDataSource.deleteTask(checkNotNull(taskId));
+
+        TaskSummary previousTask = getTaskSummaryWithId(taskId);
+        if (previousTask != null || isTaskListCached()) {
+            updateTaskCounts(previousTask, null);
+        } else {
+            setTaskCounts(null);
+        }
 
-        mCachedTasks.remove(taskId);
-        return Completable.complete();
+        uncacheTask(taskId);
+        return awaitUnlessCached(localWrite);
     }
 
     @Override
     public Completable clearCompletedTasks() {
         mTasksRemoteDataSource.clearCompletedTasks();
-        mTasksLocalDataSource.clearCompletedTasks();
+        Completable localWrite = mTasksLocalDataSource.clearCompletedTasks();
+        clearCompletedTaskCounts();
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
-        }
-        Iterator<Map.Entry<String, Task>> it = mCachedTasks.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, Task> entry = it.next();
-            if (entry.getValue().isCompleted()) {
-                it.remove();
-            }
-        }
-        return Completable.complete();
+        uncacheCompletedTasks();
+        return awaitUnlessCached(localWrite);
     }
 
     /**
@@ -252,15 +665,14 @@ public class TasksRepository implements TasksDataSource {
         // Load from server/persisted if needed.
 
         // Do in memory cache update to keep the app UI up to date
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
-        }
+        initCache();
 
         // Is the task in the local data source? If not, query the network.
         Single<Task> localTask = getTaskWithIdFromLocalRepository(taskId);
         Single<Task> remoteTask = mTasksRemoteDataSource.getTask(taskId).doOnSuccess(task -> {
             mTasksLocalDataSource.saveTask(task);
-            mCachedTasks.put(task.getId(), task);
+            cacheTask(task);
+            setTaskCounts(null);
         });
 
         return Single.concat(localTask, remoteTask).firstOrError();
@@ -276,14 +688,13 @@ public class TasksRepository implements TasksDataSource {
         mTasksRemoteDataSource.deleteAllTasks();
         mTasksLocalDataSource.deleteAllTasks();
 
-        if (mCachedTasks == null) {
-            mCachedTasks = new LinkedHashMap<>();
-        }
-        mCachedTasks.clear();
+        replaceCachedTasks(Collections.emptyList(), true);
+        replaceCachedTaskSummaries(Collections.emptyList());
+        setTaskCounts(TaskCounts.empty());
     }
 
     @Nullable
-    private Task getTaskWithId(@NonNull String id) {
+    private synchronized Task getTaskWithId(@NonNull String id) {
         checkNotNull(id);
         if (mCachedTasks == null || mCachedTasks.isEmpty()) {
             return null;
@@ -295,6 +706,6 @@ public class TasksRepository implements TasksDataSource {
     @NonNull
     Single<Task> getTaskWithIdFromLocalRepository(@NonNull final String taskId) {
         return mTasksLocalDataSource.getTask(taskId)
-                .doOnSuccess(task -> mCachedTasks.put(taskId, task));
+                .doOnSuccess(this::cacheTask);
     }
 }
@@ -0,0 +1,61 @@
+package com.example.architecture.my.mviarchitecture.data.source.local;
+
+import android.support.annotation.NonNull;
+
+import com.example.architecture.my.mviarchitecture.data.source.local.TasksPersistenceContract.DailyTaskStatsEntry;
+import com.squareup.sqlbrite2.BriteDatabase;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the daily stats table incrementally: every write creating, completing or reactivating
+ * a task adjusts the row of the day concerned, so that reading a trend costs one row per day.
+ */
+final class DailyTaskStatsRollup {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String SQL_INSERT_DAY = String.format(
+            "INSERT OR IGNORE INTO %s (%s) VALUES (?)",
+            DailyTaskStatsEntry.TABLE_NAME, DailyTaskStatsEntry.COLUMN_NAME_DAY);
+
+    private static final String SQL_UPDATE_DAY = String.format(
+            "UPDATE %s SET %s = %s + ?, %s = %s + ? WHERE %s = ?",
+            DailyTaskStatsEntry.TABLE_NAME,
+            DailyTaskStatsEntry.COLUMN_NAME_CREATED, DailyTaskStatsEntry.COLUMN_NAME_CREATED,
+            DailyTaskStatsEntry.COLUMN_NAME_COMPLETED, DailyTaskStatsEntry.COLUMN_NAME_COMPLETED,
+            DailyTaskStatsEntry.COLUMN_NAME_DAY);
+
+    private DailyTaskStatsRollup() {
+    }
+
+    /**
+     * Local day, counted since the epoch, of the given time.
+     */
+    static long dayOf(long timeMillis) {
+        return (timeMillis + TimeZone.getDefault().getOffset(timeMillis)) / DAY_MILLIS;
+    }
+
+    /**
+     * SQL expression computing the local day of a time column, with the current time zone offset.
+     */
+    @NonNull
+    static String daySql(@NonNull String column) {
+        long offset = TimeZone.getDefault().getOffset(System.currentTimeMillis());
+        return "(" + column + " + " + offset + ") / " + DAY_MILLIS;
+    }
+
+    /**
+     * Adds the deltas to the stats of the day of {@code timeMillis}. Unknown times (0) are not
+     * recorded. Must run inside the write transaction changing the task.
+     */
+    static void record(@NonNull BriteDatabase database, long timeMillis, int createdDelta,
+                       int completedDelta) {
+        if (timeMillis <= 0) return;
+        long day = dayOf(timeMillis);
+        database.executeAndTrigger(DailyTaskStatsEntry.TABLE_NAME, SQL_INSERT_DAY, day);
+        database.executeAndTrigger(DailyTaskStatsEntry.TABLE_NAME, SQL_UPDATE_DAY,
+                createdDelta, completedDelta, day);
+    }
+}
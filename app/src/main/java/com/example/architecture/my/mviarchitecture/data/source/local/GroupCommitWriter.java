@@ -0,0 +1,176 @@
+package com.example.architecture.my.mviarchitecture.data.source.local;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.squareup.sqlbrite2.BriteDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.subjects.CompletableSubject;
+import timber.log.Timber;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Applies database writes in groups, so that several writes share a single transaction and pay for
+ * a single commit.
+ * <p>
+ * Writes can be submitted from any thread. They are queued and applied in submission order, on one
+ * worker, in a transaction opened at most {@code windowMillis} after the first pending write, or
+ * as soon as {@code maxBatchSize} writes are pending. The {@link Completable} returned for each
+ * write completes once the transaction holding it has been committed.
+ */
+public class GroupCommitWriter {
+
+    /**
+     * A single write operation, run inside the group transaction.
+     */
+    public interface Write {
+        void apply(@NonNull BriteDatabase database);
+    }
+
+    @NonNull
+    private final BriteDatabase mDatabase;
+
+    @NonNull
+    private final Scheduler.Worker mWorker;
+
+    private final long mWindowMillis;
+
+    private final int mMaxBatchSize;
+
+    @NonNull
+    private final Queue<PendingWrite> mQueue = new ConcurrentLinkedQueue<>();
+
+    @NonNull
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+
+    private final long mStartTime = SystemClock.elapsedRealtime();
+
+    private volatile long mCommitCount;
+
+    private volatile long mCommittedWriteCount;
+
+    public GroupCommitWriter(@NonNull BriteDatabase database, @NonNull Scheduler scheduler,
+                             long windowMillis, int maxBatchSize) {
+        checkArgument(windowMillis >= 0, "windowMillis cannot be negative");
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        mDatabase = checkNotNull(database, "database cannot be null");
+        // A worker runs its tasks one after the other, which keeps the flushes serialized.
+        mWorker = checkNotNull(scheduler, "scheduler cannot be null").createWorker();
+        mWindowMillis = windowMillis;
+        mMaxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues the write right away, whether or not the returned {@link Completable} is subscribed
+     * to.
+     *
+     * @return a {@link Completable} completing once the write has been committed, or failing with
+     * the error the write raised.
+     */
+    @NonNull
+    public Completable submit(@NonNull Write write) {
+        PendingWrite pendingWrite = new PendingWrite(checkNotNull(write));
+        int pending = mPendingCount.incrementAndGet();
+        mQueue.offer(pendingWrite);
+        if (pending == 1) {
+            mWorker.schedule(this::flush, mWindowMillis, TimeUnit.MILLISECONDS);
+        } else if (pending == mMaxBatchSize) {
+            mWorker.schedule(this::flush);
+        }
+        return pendingWrite.mResult.hide();
+    }
+
+    /**
+     * Number of transactions committed per second since this writer was created.
+     */
+    public double getCommitsPerSecond() {
+        long elapsedMillis = Math.max(1, SystemClock.elapsedRealtime() - mStartTime);
+        return mCommitCount * 1000d / elapsedMillis;
+    }
+
+    /**
+     * Average number of writes committed by each transaction.
+     */
+    public double getAverageBatchSize() {
+        long commits = mCommitCount;
+        return commits == 0 ? 0 : (double) mCommittedWriteCount / commits;
+    }
+
+    private void flush() {
+        List<PendingWrite> batch = new ArrayList<>(mMaxBatchSize);
+        PendingWrite pendingWrite;
+        while (batch.size() < mMaxBatchSize && (pendingWrite = mQueue.poll()) != null) {
+            batch.add(pendingWrite);
+        }
+        if (!batch.isEmpty()) {
+            commit(batch);
+        }
+
+        int remaining = mPendingCount.addAndGet(-batch.size());
+        if (remaining >= mMaxBatchSize) {
+            mWorker.schedule(this::flush);
+        } else if (remaining > 0) {
+            mWorker.schedule(this::flush, mWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void commit(@NonNull List<PendingWrite> batch) {
+        try {
+            runInTransaction(batch);
+        } catch (RuntimeException batchError) {
+            // Rolled back: isolate the faulty write(s) by committing each write on its own.
+            Timber.w(batchError, "Group commit of %d writes failed, retrying one by one",
+                    batch.size());
+            for (PendingWrite pendingWrite : batch) {
+                try {
+                    runInTransaction(Collections.singletonList(pendingWrite));
+                    pendingWrite.mResult.onComplete();
+                } catch (RuntimeException error) {
+                    pendingWrite.mResult.onError(error);
+                }
+            }
+            return;
+        }
+        for (PendingWrite pendingWrite : batch) {
+            pendingWrite.mResult.onComplete();
+        }
+    }
+
+    private void runInTransaction(@NonNull List<PendingWrite> writes) {
+        BriteDatabase.Transaction transaction = mDatabase.newTransaction();
+        try {
+            for (PendingWrite pendingWrite : writes) {
+                pendingWrite.mWrite.apply(mDatabase);
+            }
+            transaction.markSuccessful();
+        } finally {
+            transaction.end();
+        }
+        mCommitCount++;
+        mCommittedWriteCount += writes.size();
+    }
+
+    private static final class PendingWrite {
+        @NonNull
+        final Write mWrite;
+
+        @NonNull
+        final CompletableSubject mResult = CompletableSubject.create();
+
+        PendingWrite(@NonNull Write write) {
+            mWrite = write;
+        }
+    }
+}
@@ -21,7 +21,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 public class TasksDbHelper extends SQLiteOpenHelper {
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 3;
 
     public static final String DATABASE_NAME = "Tasks.db";
 
@@ -29,6 +29,8 @@ public class TasksDbHelper extends SQLiteOpenHelper {
 
     private static final String BOOLEAN_TYPE = " INTEGER";
 
+    private static final String TIMESTAMP_TYPE = " INTEGER";
+
     private static final String COMMA_SEP = ",";
 
     private static final String SQL_CREATE_ENTRIES =
@@ -37,22 +39,96 @@ public class TasksDbHelper extends SQLiteOpenHelper {
                     TasksPersistenceContract.TaskEntry.COLUMN_NAME_ENTRY_ID + TEXT_TYPE + COMMA_SEP +
                     TasksPersistenceContract.TaskEntry.COLUMN_NAME_TITLE + TEXT_TYPE + COMMA_SEP +
                     TasksPersistenceContract.TaskEntry.COLUMN_NAME_DESCRIPTION + TEXT_TYPE + COMMA_SEP +
-                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + BOOLEAN_TYPE +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + BOOLEAN_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT + TIMESTAMP_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT + TIMESTAMP_TYPE +
                     " )";
 
+    private static final String SQL_ADD_COMPLETED_AT =
+            "ALTER TABLE " + TasksPersistenceContract.TaskEntry.TABLE_NAME + " ADD COLUMN " +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT + TIMESTAMP_TYPE;
+
+    private static final String SQL_CREATE_ARCHIVE =
+            "CREATE TABLE " + TasksPersistenceContract.ArchivedTaskEntry.TABLE_NAME + " (" +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_ENTRY_ID + TEXT_TYPE + " PRIMARY KEY," +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_TITLE + TEXT_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_DESCRIPTION + TEXT_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + BOOLEAN_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT + TIMESTAMP_TYPE + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT + TIMESTAMP_TYPE +
+                    " )";
+
+    private static final String SQL_CREATE_DAILY_STATS =
+            "CREATE TABLE " + TasksPersistenceContract.DailyTaskStatsEntry.TABLE_NAME + " (" +
+                    TasksPersistenceContract.DailyTaskStatsEntry.COLUMN_NAME_DAY + " INTEGER PRIMARY KEY," +
+                    TasksPersistenceContract.DailyTaskStatsEntry.COLUMN_NAME_CREATED + " INTEGER NOT NULL DEFAULT 0," +
+                    TasksPersistenceContract.DailyTaskStatsEntry.COLUMN_NAME_COMPLETED + " INTEGER NOT NULL DEFAULT 0" +
+                    " )";
+
+    // Lets the archiving pass find old completed tasks without scanning the whole table.
+    private static final String SQL_CREATE_COMPLETED_AT_INDEX =
+            "CREATE INDEX task_completed_at ON " + TasksPersistenceContract.TaskEntry.TABLE_NAME + " (" +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + COMMA_SEP +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT + ")";
+
     public TasksDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
 
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(SQL_CREATE_ENTRIES);
+        db.execSQL(SQL_CREATE_ARCHIVE);
+        db.execSQL(SQL_CREATE_COMPLETED_AT_INDEX);
+        db.execSQL(SQL_CREATE_DAILY_STATS);
     }
 
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Not required as at version 1
+        if (oldVersion < 2) {
+            db.execSQL(SQL_ADD_COMPLETED_AT);
+            // Completion time is unknown for existing tasks: start their archiving age from now.
+            db.execSQL("UPDATE " + TasksPersistenceContract.TaskEntry.TABLE_NAME + " SET " +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT + " = " +
+                    System.currentTimeMillis() + " WHERE " +
+                    TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + " = 1");
+            db.execSQL(SQL_CREATE_ARCHIVE);
+            db.execSQL(SQL_CREATE_COMPLETED_AT_INDEX);
+        }
+        if (oldVersion < 3) {
+            db.execSQL(addCreatedAt(TasksPersistenceContract.TaskEntry.TABLE_NAME));
+            if (oldVersion == 2) {
+                // The archive created above already has the column.
+                db.execSQL(addCreatedAt(TasksPersistenceContract.ArchivedTaskEntry.TABLE_NAME));
+            }
+            db.execSQL(SQL_CREATE_DAILY_STATS);
+            backfillDailyStats(db);
+        }
+    }
+
+    private static String addCreatedAt(String table) {
+        return "ALTER TABLE " + table + " ADD COLUMN " +
+                TasksPersistenceContract.TaskEntry.COLUMN_NAME_CREATED_AT + TIMESTAMP_TYPE;
+    }
+
+    /**
+     * Rolls the completion times already stored up into the daily stats. Creation times of
+     * existing tasks are unknown and are not counted.
+     */
+    private static void backfillDailyStats(SQLiteDatabase db) {
+        String completedAt = TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED_AT;
+        String completedRows = "SELECT " + completedAt + " FROM %s WHERE " +
+                TasksPersistenceContract.TaskEntry.COLUMN_NAME_COMPLETED + " = 1 AND " +
+                completedAt + " IS NOT NULL";
+        db.execSQL("INSERT INTO " + TasksPersistenceContract.DailyTaskStatsEntry.TABLE_NAME + " (" +
+                TasksPersistenceContract.DailyTaskStatsEntry.COLUMN_NAME_DAY + COMMA_SEP +
+                TasksPersistenceContract.DailyTaskStatsEntry.COLUMN_NAME_COMPLETED + ") SELECT " +
+                DailyTaskStatsRollup.daySql(completedAt) + ", COUNT(*) FROM (" +
+                String.format(completedRows, TasksPersistenceContract.TaskEntry.TABLE_NAME) +
+                " UNION ALL " +
+                String.format(completedRows, TasksPersistenceContract.ArchivedTaskEntry.TABLE_NAME) +
+                ") GROUP BY 1");
     }
 
     public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Not required as at version 1
+        // Not required as at version 3
     }
 }
@@ -20,20 +20,35 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskCounts;
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.data.source.TasksDataSource;
+import com.example.architecture.my.mviarchitecture.data.source.local.TasksPersistenceContract.ArchivedTaskEntry;
+import com.example.architecture.my.mviarchitecture.data.source.local.TasksPersistenceContract.DailyTaskStatsEntry;
 import com.example.architecture.my.mviarchitecture.data.source.local.TasksPersistenceContract.TaskEntry;
+import com.example.architecture.my.mviarchitecture.util.Pair;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 import com.squareup.sqlbrite2.BriteDatabase;
 import com.squareup.sqlbrite2.SqlBrite;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Completable;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.ObservableOperator;
 import io.reactivex.Single;
 import io.reactivex.functions.Function;
 
@@ -44,24 +59,88 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class TasksLocalDataSource implements TasksDataSource {
 
+    /**
+     * Number of rows fetched by each query issued by {@link #streamTasks()}.
+     */
+    private static final int STREAM_WINDOW_SIZE = 256;
+
+    private static final String COLUMN_NAME_ROW_ID = "rowid";
+
+    /**
+     * Period in which the writes to the table are coalesced into a single re-query by the live
+     * queries. Roughly one display frame.
+     */
+    private static final long LIVE_QUERY_SAMPLE_MILLIS = 16;
+
+    /**
+     * How long writes are collected before being committed together, unless
+     * {@link #WRITE_BATCH_SIZE} writes are pending first.
+     */
+    private static final long WRITE_WINDOW_MILLIS = 10;
+
+    private static final int WRITE_BATCH_SIZE = 64;
+
+    /**
+     * Columns shared by the task and archive tables, copied as-is when moving rows between them.
+     */
+    private static final String MOVED_COLUMNS = TextUtils.join(",", new String[]{
+            TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+            TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+            TaskEntry.COLUMN_NAME_COMPLETED_AT, TaskEntry.COLUMN_NAME_CREATED_AT
+    });
+
+    private static final String COLUMN_NAME_TITLE_FOR_LIST = "title_for_list";
+
+    private static final String ENTRY_ID_SELECTION = TaskEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
+
+    /**
+     * Columns read for a {@link TaskSummary}: the description is never loaded, only a prefix of it
+     * when the title is empty.
+     */
+    private static final String SUMMARY_COLUMNS = String.format(
+            "%s,%s,substr(CASE WHEN %s IS NULL OR %s = '' THEN %s ELSE %s END, 1, %d) AS %s,%s",
+            TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+            TaskEntry.COLUMN_NAME_TITLE, TaskEntry.COLUMN_NAME_TITLE,
+            TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_TITLE,
+            TaskSummary.LIST_TITLE_MAX_LENGTH, COLUMN_NAME_TITLE_FOR_LIST,
+            TaskEntry.COLUMN_NAME_COMPLETED);
+
     @Nullable
     private static TasksLocalDataSource INSTANCE;
 
     @NonNull
     private final BriteDatabase mDatabaseHelper;
 
+    @NonNull
+    private final BaseSchedulerProvider mSchedulerProvider;
+
+    @NonNull
+    private final GroupCommitWriter mWriter;
+
     @NonNull
     private Function<Cursor, Task> mTaskMapperFunction;
 
+    @NonNull
+    private Function<Cursor, TaskSummary> mTaskSummaryMapperFunction;
+
+    @Nullable
+    private Observable<List<Task>> mLiveTasks;
+
+    @Nullable
+    private Observable<Integer> mLiveTaskCount;
+
     // Prevent direct instantiation.
     private TasksLocalDataSource(@NonNull Context context,
                                  @NonNull BaseSchedulerProvider schedulerProvider) {
         checkNotNull(context, "context cannot be null");
-        checkNotNull(schedulerProvider, "scheduleProvider cannot be null");
+        mSchedulerProvider = checkNotNull(schedulerProvider, "scheduleProvider cannot be null");
         TasksDbHelper dbHelper = new TasksDbHelper(context);
         SqlBrite sqlBrite = new SqlBrite.Builder().build();
         mDatabaseHelper = sqlBrite.wrapDatabaseHelper(dbHelper, schedulerProvider.io());
+        mWriter = new GroupCommitWriter(mDatabaseHelper, schedulerProvider.io(),
+                WRITE_WINDOW_MILLIS, WRITE_BATCH_SIZE);
         mTaskMapperFunction = this::getTask;
+        mTaskSummaryMapperFunction = this::getTaskSummary;
     }
 
     @NonNull
@@ -70,7 +149,18 @@ public class TasksLocalDataSource implements TasksDataSource {
         String title = c.getString(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_TITLE));
         String description = c.getString(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_DESCRIPTION));
         boolean completed = c.getInt(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_COMPLETED)) == 1;
-        return new Task(title, description, itemId, completed);
+        long createdAt = c.getLong(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_CREATED_AT));
+        long completedAt = c.getLong(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_COMPLETED_AT));
+        return new Task(title, description, itemId, completed, createdAt, completedAt);
+    }
+
+    @NonNull
+    private TaskSummary getTaskSummary(@NonNull Cursor c) {
+        String itemId = c.getString(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_ENTRY_ID));
+        String title = c.getString(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_TITLE));
+        String titleForList = c.getString(c.getColumnIndexOrThrow(COLUMN_NAME_TITLE_FOR_LIST));
+        boolean completed = c.getInt(c.getColumnIndexOrThrow(TaskEntry.COLUMN_NAME_COMPLETED)) == 1;
+        return new TaskSummary(itemId, title, titleForList, completed);
     }
 
     public static TasksLocalDataSource getInstance(@NonNull Context context,
@@ -85,11 +175,20 @@ public class TasksLocalDataSource implements TasksDataSource {
         INSTANCE = null;
     }
 
+    /**
+     * Gives access to the writer's throughput figures (commits per second, average batch size).
+     */
+    @NonNull
+    public GroupCommitWriter getWriter() {
+        return mWriter;
+    }
+
     @Override
     public Single<List<Task>> getTasks() {
         String[] projection = {
                 TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
-                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED
+                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
         };
         String sql =
                 String.format("SELECT %s FROM %s", TextUtils.join(",", projection), TaskEntry.TABLE_NAME);
@@ -98,71 +197,430 @@ public class TasksLocalDataSource implements TasksDataSource {
                 .firstOrError();
     }
 
+    /**
+     * Reads the list rows of the tasks, without their descriptions.
+     */
     @Override
-    public Single<Task> getTask(@NonNull String taskId) {
+    public Single<List<TaskSummary>> getTaskSummaries() {
+        return getSummaries(TaskEntry.TABLE_NAME);
+    }
+
+    /**
+     * Emits the full list of tasks now and again every time the task table changes. The
+     * observable is shared: all subscribers get the result of the same cursor pass.
+     */
+    @Override
+    public synchronized Observable<List<Task>> observeTasks() {
+        if (mLiveTasks == null) {
+            String[] projection = {
+                    TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+                    TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                    TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
+            };
+            String sql = String.format("SELECT %s FROM %s",
+                    TextUtils.join(",", projection), TaskEntry.TABLE_NAME);
+            mLiveTasks = liveQuery(sql, SqlBrite.Query.mapToList(mTaskMapperFunction));
+        }
+        return mLiveTasks;
+    }
+
+    /**
+     * Emits the task with the given id now and again every time the task table changes. Nothing is
+     * emitted while no such task is stored.
+     */
+    @Override
+    public Observable<Task> observeTask(@NonNull String taskId) {
+        checkNotNull(taskId);
         String[] projection = {
                 TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
-                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED
+                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
         };
         String sql = String.format("SELECT %s FROM %s WHERE %s LIKE ?", TextUtils.join(",", projection),
                 TaskEntry.TABLE_NAME, TaskEntry.COLUMN_NAME_ENTRY_ID);
-        return mDatabaseHelper.createQuery(TaskEntry.TABLE_NAME, sql, taskId)
+        return liveQuery(sql, SqlBrite.Query.mapToOne(mTaskMapperFunction), taskId);
+    }
+
+    /**
+     * Emits the number of stored tasks now and again every time the task table changes.
+     */
+    @Override
+    public synchronized Observable<Integer> observeTaskCount() {
+        if (mLiveTaskCount == null) {
+            String sql = String.format("SELECT COUNT(*) FROM %s", TaskEntry.TABLE_NAME);
+            mLiveTaskCount = liveQuery(sql, SqlBrite.Query.mapToOne(cursor -> cursor.getInt(0)));
+        }
+        return mLiveTaskCount;
+    }
+
+    /**
+     * Builds a query re-run whenever the task table is written to. The first result is delivered
+     * right away; later triggers are sampled, so that the writes of a period cost a single
+     * re-query, and that continuous writes still re-run it every period rather than never. The
+     * latest result is replayed to every subscriber until the last one unsubscribes.
+     */
+    @NonNull
+    private <T> Observable<T> liveQuery(@NonNull String sql,
+                                        @NonNull ObservableOperator<T, SqlBrite.Query> mapper,
+                                        @NonNull String... args) {
+        return mDatabaseHelper.createQuery(TaskEntry.TABLE_NAME, sql, args)
+                .publish(triggers -> Observable.merge(
+                        triggers.take(1),
+                        triggers.skip(1).sample(LIVE_QUERY_SAMPLE_MILLIS, TimeUnit.MILLISECONDS,
+                                mSchedulerProvider.computation())))
+                .observeOn(mSchedulerProvider.io())
+                .lift(mapper)
+                .replay(1)
+                .refCount();
+    }
+
+    /**
+     * Streams the tasks one by one, in insertion order, reading the table in windows of
+     * {@link #STREAM_WINDOW_SIZE} rows. A new window is only queried once the downstream has
+     * requested everything from the previous one, so memory stays constant whatever the size of
+     * the table. The cursor in use is closed on completion, error or cancellation.
+     */
+    @Override
+    public Flowable<Task> streamTasks() {
+        return Flowable.generate(CursorWindow::new, this::emitNextTask, CursorWindow::close);
+    }
+
+    private void emitNextTask(@NonNull CursorWindow window, @NonNull Emitter<Task> emitter)
+            throws Exception {
+        if (window.cursor == null || !window.cursor.moveToNext()) {
+            boolean lastWindow = window.cursor != null && window.rowCount < STREAM_WINDOW_SIZE;
+            window.close();
+            if (lastWindow) {
+                emitter.onComplete();
+                return;
+            }
+            window.cursor = queryWindow(window.lastRowId);
+            window.rowCount = 0;
+            if (!window.cursor.moveToNext()) {
+                window.close();
+                emitter.onComplete();
+                return;
+            }
+        }
+        Cursor cursor = window.cursor;
+        window.rowCount++;
+        window.lastRowId = cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_NAME_ROW_ID));
+        emitter.onNext(mTaskMapperFunction.apply(cursor));
+    }
+
+    @NonNull
+    private Cursor queryWindow(long afterRowId) {
+        String[] projection = {
+                COLUMN_NAME_ROW_ID, TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
+        };
+        String sql = String.format("SELECT %s FROM %s WHERE %s > ? ORDER BY %s LIMIT %d",
+                TextUtils.join(",", projection), TaskEntry.TABLE_NAME,
+                COLUMN_NAME_ROW_ID, COLUMN_NAME_ROW_ID, STREAM_WINDOW_SIZE);
+        return mDatabaseHelper.query(sql, String.valueOf(afterRowId));
+    }
+
+    /**
+     * State of a {@link #streamTasks()} subscription: the cursor over the current window and the
+     * last row read, used as the key to query the next window.
+     */
+    private static final class CursorWindow {
+        @Nullable
+        Cursor cursor;
+        long lastRowId = -1;
+        int rowCount;
+
+        void close() {
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+
+    /**
+     * Looks the task up in the task table and, failing that, in the archive.
+     */
+    @Override
+    public Single<Task> getTask(@NonNull String taskId) {
+        String[] projection = {
+                TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
+        };
+        String columns = TextUtils.join(",", projection);
+        String sql = String.format("SELECT %s FROM %s WHERE %s LIKE ? UNION ALL SELECT %s FROM %s WHERE %s LIKE ?",
+                columns, TaskEntry.TABLE_NAME, TaskEntry.COLUMN_NAME_ENTRY_ID,
+                columns, ArchivedTaskEntry.TABLE_NAME, TaskEntry.COLUMN_NAME_ENTRY_ID);
+        return mDatabaseHelper.createQuery(
+                Arrays.asList(TaskEntry.TABLE_NAME, ArchivedTaskEntry.TABLE_NAME), sql, taskId, taskId)
                 .mapToOne(mTaskMapperFunction)
                 .firstOrError();
     }
 
+    /**
+     * Reads the archived tasks. They are never part of {@link #getTasks()} and are only loaded
+     * when asked for.
+     */
+    @Override
+    public Single<List<Task>> getArchivedTasks() {
+        String[] projection = {
+                TaskEntry.COLUMN_NAME_ENTRY_ID, TaskEntry.COLUMN_NAME_TITLE,
+                TaskEntry.COLUMN_NAME_DESCRIPTION, TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_CREATED_AT, TaskEntry.COLUMN_NAME_COMPLETED_AT
+        };
+        String sql = String.format("SELECT %s FROM %s",
+                TextUtils.join(",", projection), ArchivedTaskEntry.TABLE_NAME);
+        return mDatabaseHelper.createQuery(ArchivedTaskEntry.TABLE_NAME, sql)
+                .mapToList(mTaskMapperFunction)
+                .firstOrError();
+    }
+
+    @Override
+    public Single<List<TaskSummary>> getArchivedTaskSummaries() {
+        return getSummaries(ArchivedTaskEntry.TABLE_NAME);
+    }
+
+    /**
+     * Reads the summaries of the given table. Disposing the subscription interrupts the query and
+     * stops the mapping of the rows, e.g. when a newer load supersedes this one.
+     */
+    @NonNull
+    private Single<List<TaskSummary>> getSummaries(@NonNull String table) {
+        String sql = String.format("SELECT %s FROM %s", SUMMARY_COLUMNS, table);
+        return Single.create(emitter -> {
+            CancellationSignal cancellationSignal = new CancellationSignal();
+            emitter.setCancellable(cancellationSignal::cancel);
+            Cursor cursor = null;
+            try {
+                cursor = mDatabaseHelper.getReadableDatabase().rawQuery(sql, null, cancellationSignal);
+                List<TaskSummary> summaries = new ArrayList<>(cursor.getCount());
+                while (!emitter.isDisposed() && cursor.moveToNext()) {
+                    summaries.add(mTaskSummaryMapperFunction.apply(cursor));
+                }
+                emitter.onSuccess(summaries);
+            } catch (OperationCanceledException e) {
+                // disposed: nobody is left to notify
+            } finally {
+                if (cursor != null) cursor.close();
+            }
+        });
+    }
+
+    @Override
+    public Single<Integer> getArchivedTaskCount() {
+        String sql = String.format("SELECT COUNT(*) FROM %s", ArchivedTaskEntry.TABLE_NAME);
+        return mDatabaseHelper.createQuery(ArchivedTaskEntry.TABLE_NAME, sql)
+                .mapToOne(cursor -> cursor.getInt(0))
+                .firstOrError();
+    }
+
+    /**
+     * Counts the tasks with a single {@code GROUP BY} over the task and archive tables: one row per
+     * completion state, without loading any task.
+     */
+    @Override
+    public Single<TaskCounts> getTaskCounts() {
+        String sql = String.format(
+                "SELECT %s, COUNT(*) FROM (SELECT %s FROM %s UNION ALL SELECT %s FROM %s) GROUP BY %s",
+                TaskEntry.COLUMN_NAME_COMPLETED,
+                TaskEntry.COLUMN_NAME_COMPLETED, TaskEntry.TABLE_NAME,
+                TaskEntry.COLUMN_NAME_COMPLETED, ArchivedTaskEntry.TABLE_NAME,
+                TaskEntry.COLUMN_NAME_COMPLETED);
+        return mDatabaseHelper.createQuery(
+                Arrays.asList(TaskEntry.TABLE_NAME, ArchivedTaskEntry.TABLE_NAME), sql)
+                .mapToList(cursor -> Pair.create(cursor.getInt(0) == 1, cursor.getInt(1)))
+                .firstOrError()
+                .map(groups -> {
+                    TaskCounts counts = TaskCounts.empty();
+                    for (Pair<Boolean, Integer> group : groups) {
+                        counts = group.first()
+                                ? counts.plus(0, group.second())
+                                : counts.plus(group.second(), 0);
+                    }
+                    return counts;
+                });
+    }
+
+    /**
+     * Reads the last {@code dayCount} days, today included, from the daily stats: one row per day
+     * at most, whatever the number of tasks.
+     */
+    @Override
+    public Single<List<TaskStatsPeriod>> getDailyTaskStats(int dayCount) {
+        long lastDay = DailyTaskStatsRollup.dayOf(System.currentTimeMillis());
+        long firstDay = lastDay - dayCount + 1;
+        String sql = String.format("SELECT %s, %s, %s FROM %s WHERE %s BETWEEN ? AND ? ORDER BY %s",
+                DailyTaskStatsEntry.COLUMN_NAME_DAY, DailyTaskStatsEntry.COLUMN_NAME_CREATED,
+                DailyTaskStatsEntry.COLUMN_NAME_COMPLETED, DailyTaskStatsEntry.TABLE_NAME,
+                DailyTaskStatsEntry.COLUMN_NAME_DAY, DailyTaskStatsEntry.COLUMN_NAME_DAY);
+        return mDatabaseHelper.createQuery(DailyTaskStatsEntry.TABLE_NAME, sql,
+                String.valueOf(firstDay), String.valueOf(lastDay))
+                .mapToList(cursor -> TaskStatsPeriod.create(cursor.getLong(0), 1, cursor.getInt(1),
+                        cursor.getInt(2)))
+                .firstOrError()
+                .map(days -> TaskStatsPeriod.denseDays(days, firstDay, dayCount));
+    }
+
+    /**
+     * Moves the tasks completed before {@code completedBeforeMillis} from the task table to the
+     * archive, in a single transaction.
+     */
+    @Override
+    public Completable archiveCompletedTasks(long completedBeforeMillis) {
+        String selection = String.format("%s = 1 AND %s < ?",
+                TaskEntry.COLUMN_NAME_COMPLETED, TaskEntry.COLUMN_NAME_COMPLETED_AT);
+        String copySql = String.format("INSERT OR REPLACE INTO %s (%s) SELECT %s FROM %s WHERE %s",
+                ArchivedTaskEntry.TABLE_NAME, MOVED_COLUMNS, MOVED_COLUMNS, TaskEntry.TABLE_NAME,
+                selection);
+        String deleteSql = String.format("DELETE FROM %s WHERE %s", TaskEntry.TABLE_NAME, selection);
+        return mWriter.submit(database -> {
+            database.executeAndTrigger(ArchivedTaskEntry.TABLE_NAME, copySql, completedBeforeMillis);
+            database.executeAndTrigger(TaskEntry.TABLE_NAME, deleteSql, completedBeforeMillis);
+        });
+    }
+
+    /**
+     * Refreshes the query planner statistics and reclaims the space freed by archived and deleted
+     * tasks. {@code VACUUM} rewrites the whole file, so this should only run when the app is idle.
+     */
+    @Override
+    public Completable runMaintenance() {
+        return Completable.fromAction(() -> {
+            mDatabaseHelper.execute("ANALYZE");
+            mDatabaseHelper.execute("VACUUM");
+        });
+    }
+
+    /**
+     * Inserts the task, or updates it if already stored, keeping its creation time. The daily stats
+     * record its creation and any change of its completion state.
+     */
     @Override
     public Completable saveTask(@NonNull Task task) {
         checkNotNull(task);
-        ContentValues values = new ContentValues();
-        values.put(TaskEntry.COLUMN_NAME_ENTRY_ID, task.getId());
-        values.put(TaskEntry.COLUMN_NAME_TITLE, task.getTitle());
-        values.put(TaskEntry.COLUMN_NAME_DESCRIPTION, task.getDescription());
-        values.put(TaskEntry.COLUMN_NAME_COMPLETED, task.isCompleted());
-        mDatabaseHelper.insert(TaskEntry.TABLE_NAME, values, SQLiteDatabase.CONFLICT_REPLACE);
-        return Completable.complete();
+        long now = System.currentTimeMillis();
+        return mWriter.submit(database -> {
+            restoreFromArchive(database, task.getId());
+            Pair<Boolean, Long> stored = readCompletion(database, task.getId());
+
+            ContentValues values = new ContentValues();
+            values.put(TaskEntry.COLUMN_NAME_TITLE, task.getTitle());
+            values.put(TaskEntry.COLUMN_NAME_DESCRIPTION, task.getDescription());
+            values.put(TaskEntry.COLUMN_NAME_COMPLETED, task.isCompleted());
+            long completedAt = 0;
+            if (task.isCompleted()) {
+                if (stored != null && stored.first()) {
+                    completedAt = stored.second();
+                } else {
+                    completedAt = task.getCompletedAt() != 0 ? task.getCompletedAt() : now;
+                }
+                values.put(TaskEntry.COLUMN_NAME_COMPLETED_AT, completedAt);
+            } else {
+                values.putNull(TaskEntry.COLUMN_NAME_COMPLETED_AT);
+            }
+
+            if (stored == null) {
+                long createdAt = task.getCreatedAt() != 0 ? task.getCreatedAt() : now;
+                values.put(TaskEntry.COLUMN_NAME_ENTRY_ID, task.getId());
+                values.put(TaskEntry.COLUMN_NAME_CREATED_AT, createdAt);
+                database.insert(TaskEntry.TABLE_NAME, values, SQLiteDatabase.CONFLICT_REPLACE);
+                DailyTaskStatsRollup.record(database, createdAt, 1, 0);
+                if (task.isCompleted()) {
+                    DailyTaskStatsRollup.record(database, completedAt, 0, 1);
+                }
+            } else {
+                database.update(TaskEntry.TABLE_NAME, values, ENTRY_ID_SELECTION, task.getId());
+                if (!stored.first() && task.isCompleted()) {
+                    DailyTaskStatsRollup.record(database, completedAt, 0, 1);
+                } else if (stored.first() && !task.isCompleted()) {
+                    DailyTaskStatsRollup.record(database, stored.second(), 0, -1);
+                }
+            }
+        });
     }
 
     @Override
     public Completable completeTask(@NonNull Task task) {
-        completeTask(task.getId());
-        return null;
+        return completeTask(task.getId());
     }
 
     @Override
     public Completable completeTask(@NonNull String taskId) {
+        long now = System.currentTimeMillis();
         ContentValues values = new ContentValues();
         values.put(TaskEntry.COLUMN_NAME_COMPLETED, true);
+        values.put(TaskEntry.COLUMN_NAME_COMPLETED_AT, now);
 
-        String selection = TaskEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = {taskId};
-        mDatabaseHelper.update(TaskEntry.TABLE_NAME, values, selection, selectionArgs);
-        return Completable.complete();
+        return mWriter.submit(database -> {
+            Pair<Boolean, Long> stored = readCompletion(database, taskId);
+            // Unknown or already completed (archived tasks included): nothing to do.
+            if (stored == null || stored.first()) return;
+            database.update(TaskEntry.TABLE_NAME, values, ENTRY_ID_SELECTION, taskId);
+            DailyTaskStatsRollup.record(database, now, 0, 1);
+        });
     }
 
     @Override
     public Completable activateTask(@NonNull Task task) {
-        activateTask(task.getId());
-        return Completable.complete();
+        return activateTask(task.getId());
     }
 
     @Override
     public Completable activateTask(@NonNull String taskId) {
         ContentValues values = new ContentValues();
         values.put(TaskEntry.COLUMN_NAME_COMPLETED, false);
+        values.putNull(TaskEntry.COLUMN_NAME_COMPLETED_AT);
 
-        String selection = TaskEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
-        String[] selectionArgs = {taskId};
-        mDatabaseHelper.update(TaskEntry.TABLE_NAME, values, selection, selectionArgs);
-        return Completable.complete();
+        return mWriter.submit(database -> {
+            restoreFromArchive(database, taskId);
+            Pair<Boolean, Long> stored = readCompletion(database, taskId);
+            if (stored == null || !stored.first()) return;
+            database.update(TaskEntry.TABLE_NAME, values, ENTRY_ID_SELECTION, taskId);
+            // The completion is undone: take it back from the day it was counted in.
+            DailyTaskStatsRollup.record(database, stored.second(), 0, -1);
+        });
+    }
+
+    /**
+     * Moves the task back from the archive to the task table, if it is archived.
+     */
+    private static void restoreFromArchive(@NonNull BriteDatabase database, @NonNull String taskId) {
+        String restoreSql = String.format("INSERT OR IGNORE INTO %s (%s) SELECT %s FROM %s WHERE %s",
+                TaskEntry.TABLE_NAME, MOVED_COLUMNS, MOVED_COLUMNS, ArchivedTaskEntry.TABLE_NAME,
+                ENTRY_ID_SELECTION);
+        database.executeAndTrigger(TaskEntry.TABLE_NAME, restoreSql, taskId);
+        database.delete(ArchivedTaskEntry.TABLE_NAME, ENTRY_ID_SELECTION, taskId);
+    }
+
+    /**
+     * Reads whether the stored task is completed, and when. Null if the task table does not hold
+     * it.
+     */
+    @Nullable
+    private static Pair<Boolean, Long> readCompletion(@NonNull BriteDatabase database,
+                                                      @NonNull String taskId) {
+        String sql = String.format("SELECT %s, %s FROM %s WHERE %s",
+                TaskEntry.COLUMN_NAME_COMPLETED, TaskEntry.COLUMN_NAME_COMPLETED_AT,
+                TaskEntry.TABLE_NAME, ENTRY_ID_SELECTION);
+        Cursor cursor = database.query(sql, taskId);
+        try {
+            if (!cursor.moveToFirst()) return null;
+            return Pair.create(cursor.getInt(0) == 1, cursor.getLong(1));
+        } finally {
+            cursor.close();
+        }
     }
 
     @Override
     public Completable clearCompletedTasks() {
         String selection = TaskEntry.COLUMN_NAME_COMPLETED + " LIKE ?";
         String[] selectionArgs = {"1"};
-        mDatabaseHelper.delete(TaskEntry.TABLE_NAME, selection, selectionArgs);
-        return null;
+        return mWriter.submit(database -> {
+            database.delete(TaskEntry.TABLE_NAME, selection, selectionArgs);
+            database.delete(ArchivedTaskEntry.TABLE_NAME, null);
+        });
     }
 
     @Override
@@ -173,14 +631,19 @@ public class TasksLocalDataSource implements TasksDataSource {
 
     @Override
     public void deleteAllTasks() {
-        mDatabaseHelper.delete(TaskEntry.TABLE_NAME, null);
+        mWriter.submit(database -> {
+            database.delete(TaskEntry.TABLE_NAME, null);
+            database.delete(ArchivedTaskEntry.TABLE_NAME, null);
+        });
     }
 
     @Override
     public Completable deleteTask(@NonNull String taskId) {
         String selection = TaskEntry.COLUMN_NAME_ENTRY_ID + " LIKE ?";
         String[] selectionArgs = {taskId};
-        mDatabaseHelper.delete(TaskEntry.TABLE_NAME, selection, selectionArgs);
-        return Completable.complete();
+        return mWriter.submit(database -> {
+            database.delete(TaskEntry.TABLE_NAME, selection, selectionArgs);
+            database.delete(ArchivedTaskEntry.TABLE_NAME, selection, selectionArgs);
+        });
     }
 }
@@ -35,5 +35,20 @@ public final class TasksPersistenceContract {
         public static final String COLUMN_NAME_TITLE = "title";
         public static final String COLUMN_NAME_DESCRIPTION = "description";
         public static final String COLUMN_NAME_COMPLETED = "completed";
+        public static final String COLUMN_NAME_COMPLETED_AT = "completed_at";
+        public static final String COLUMN_NAME_CREATED_AT = "created_at";
+    }
+
+    /* Completed tasks moved out of the task table once old enough. Same columns as TaskEntry. */
+    public static abstract class ArchivedTaskEntry {
+        public static final String TABLE_NAME = "task_archive";
+    }
+
+    /* Number of tasks created and completed per local day, kept up to date by every write. */
+    public static abstract class DailyTaskStatsEntry {
+        public static final String TABLE_NAME = "task_daily_stats";
+        public static final String COLUMN_NAME_DAY = "day";
+        public static final String COLUMN_NAME_CREATED = "created";
+        public static final String COLUMN_NAME_COMPLETED = "completed";
     }
 }
@@ -85,29 +85,33 @@ public class TasksRemoteDataSource implements TasksDataSource {
 
     @Override
     public Completable completeTask(@NonNull Task task) {
-        Task completedTask = new Task(task.getTitle(), task.getDescription(), task.getId(), true);
+        Task completedTask = task.asCompleted(System.currentTimeMillis());
         TASKS_SERVICE_DATA.put(task.getId(), completedTask);
         return null;
     }
 
     @Override
     public Completable completeTask(@NonNull String taskId) {
-        // Not required for the remote data source because the {@link TasksRepository} handles
-        // converting from a {@code taskId} to a {@link task} using its cached data.
+        Task task = TASKS_SERVICE_DATA.get(taskId);
+        if (task != null) {
+            completeTask(task);
+        }
         return Completable.complete();
     }
 
     @Override
     public Completable activateTask(@NonNull Task task) {
-        Task activeTask = new Task(task.getTitle(), task.getDescription(), task.getId());
+        Task activeTask = task.asActive();
         TASKS_SERVICE_DATA.put(task.getId(), activeTask);
         return Completable.complete();
     }
 
     @Override
     public Completable activateTask(@NonNull String taskId) {
-        // Not required for the remote data source because the {@link TasksRepository} handles
-        // converting from a {@code taskId} to a {@link task} using its cached data.
+        Task task = TASKS_SERVICE_DATA.get(taskId);
+        if (task != null) {
+            activateTask(task);
+        }
         return Completable.complete();
     }
 
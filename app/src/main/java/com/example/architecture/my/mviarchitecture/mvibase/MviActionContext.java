@@ -0,0 +1,87 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * The class of the action the current thread works for, if any.
+ * <p>
+ * {@link MviStore} sets it while an action goes down its processor: work scheduled meanwhile,
+ * e.g. by a {@code subscribeOn}, may capture it, and set it again while running, so that the work
+ * it schedules in turn works for the same action.
+ */
+public final class MviActionContext {
+    private static final ThreadLocal<Class<?>> CURRENT = new ThreadLocal<>();
+
+    private MviActionContext() {
+    }
+
+    @Nullable
+    public static Class<?> current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes the given class the current one, and returns the previous one, to be given back to
+     * {@link #exit(Class)} once done.
+     */
+    @Nullable
+    public static Class<?> enter(@Nullable Class<?> actionClass) {
+        Class<?> previous = CURRENT.get();
+        CURRENT.set(actionClass);
+        return previous;
+    }
+
+    public static void exit(@Nullable Class<?> previous) {
+        CURRENT.set(previous);
+    }
+
+    /**
+     * Name of the type without its package, and of the AutoValue class it extends rather than
+     * the generated one.
+     */
+    @NonNull
+    public static String nameOf(@NonNull Class<?> type) {
+        Class<?> named = type.getSimpleName().startsWith("AutoValue_")
+                ? type.getSuperclass() : type;
+        String name = named.getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Sets the class of each action while it goes downstream.
+     */
+    @NonNull
+    static <A extends MviAction> ObservableOperator<A, A> scope() {
+        return observer -> new Observer<A>() {
+            @Override
+            public void onSubscribe(@NonNull Disposable disposable) {
+                observer.onSubscribe(disposable);
+            }
+
+            @Override
+            public void onNext(@NonNull A action) {
+                Class<?> previous = enter(action.getClass());
+                try {
+                    observer.onNext(action);
+                } finally {
+                    exit(previous);
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                observer.onError(error);
+            }
+
+            @Override
+            public void onComplete() {
+                observer.onComplete();
+            }
+        };
+    }
+}
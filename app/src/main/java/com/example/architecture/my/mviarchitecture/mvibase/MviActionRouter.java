@@ -0,0 +1,64 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Routes each action to the processor registered for its class, found with a single map lookup.
+ * <p>
+ * Each processor sees the stream of its own actions only, as with {@code publish} and
+ * {@code ofType}, without every action being tested against every type. An action without
+ * processor terminates the stream with an {@link IllegalArgumentException}.
+ *
+ * @param <A> Top class of the {@link MviAction}s routed.
+ * @param <R> Top class of the {@link MviResult}s produced.
+ */
+public final class MviActionRouter<A extends MviAction, R extends MviResult>
+        implements ObservableTransformer<A, R> {
+    @NonNull
+    private final MviClassMap<ObservableTransformer<A, R>> mProcessors;
+
+    private MviActionRouter(@NonNull MviClassMap<ObservableTransformer<A, R>> processors) {
+        mProcessors = processors;
+    }
+
+    @Override
+    public ObservableSource<R> apply(@NonNull Observable<A> actions) {
+        return actions.groupBy(this::processorFor)
+                .flatMap(group -> group.compose(group.getKey()));
+    }
+
+    @NonNull
+    private ObservableTransformer<A, R> processorFor(@NonNull A action) {
+        ObservableTransformer<A, R> processor = mProcessors.get(action.getClass());
+        if (processor == null) {
+            throw new IllegalArgumentException("Unknown Action type: " + action);
+        }
+        return processor;
+    }
+
+    public static final class Builder<A extends MviAction, R extends MviResult> {
+        @NonNull
+        private final MviClassMap<ObservableTransformer<A, R>> mProcessors = new MviClassMap<>();
+
+        @SuppressWarnings("unchecked")
+        @NonNull
+        public <T extends A> Builder<A, R> on(
+                @NonNull Class<T> actionClass,
+                @NonNull ObservableTransformer<T, ? extends R> processor) {
+            // Only ever composed onto streams of actionClass instances.
+            mProcessors.put(actionClass, (ObservableTransformer<A, R>) checkNotNull(processor));
+            return this;
+        }
+
+        @NonNull
+        public MviActionRouter<A, R> build() {
+            return new MviActionRouter<>(mProcessors);
+        }
+    }
+}
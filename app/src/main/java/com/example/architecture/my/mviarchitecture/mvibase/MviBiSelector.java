@@ -0,0 +1,38 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link MviSelector} of a value derived from two inputs, computed again only when either is not
+ * the same as the latest time.
+ */
+public final class MviBiSelector<A, B, O> {
+    public interface Compute<A, B, O> {
+        @NonNull
+        O compute(@NonNull A first, @NonNull B second);
+    }
+
+    @NonNull
+    private final Compute<? super A, ? super B, ? extends O> mCompute;
+    private A mFirst;
+    private B mSecond;
+    private O mOutput;
+
+    public MviBiSelector(@NonNull Compute<? super A, ? super B, ? extends O> compute) {
+        mCompute = checkNotNull(compute);
+    }
+
+    @NonNull
+    public O select(@NonNull A first, @NonNull B second) {
+        checkNotNull(first);
+        checkNotNull(second);
+        if (first != mFirst || second != mSecond) {
+            mOutput = mCompute.compute(first, second);
+            mFirst = first;
+            mSecond = second;
+        }
+        return mOutput;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The frames of the device, as the {@link Choreographer} of the thread creating the clock times
+ * them: to be created on the main thread.
+ */
+public final class MviChoreographerFrameClock implements MviFrameClock {
+    @NonNull
+    private final Choreographer mChoreographer = Choreographer.getInstance();
+
+    @NonNull
+    @Override
+    public Disposable postFrameCallback(@NonNull Runnable callback) {
+        checkNotNull(callback);
+        Choreographer.FrameCallback frameCallback = frameTimeNanos -> callback.run();
+        mChoreographer.postFrameCallback(frameCallback);
+        return Disposables.fromAction(() -> mChoreographer.removeFrameCallback(frameCallback));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps classes to values, resolving a class to the value of its closest registered superclass.
+ * <p>
+ * Intents, actions and results are AutoValue classes: the runtime class is a generated subclass
+ * of the registered one. It is resolved by walking up its superclasses the first time it is seen,
+ * then cached, value or lack of one, so that every later lookup is a single map access.
+ */
+final class MviClassMap<V> {
+    /**
+     * Cached resolution of a class with no value.
+     */
+    private static final Object NONE = new Object();
+
+    @NonNull
+    private final Map<Class<?>, V> mValues = new ConcurrentHashMap<>();
+    /**
+     * Value, or {@link #NONE}, of every class looked up.
+     */
+    @NonNull
+    private final Map<Class<?>, Object> mResolved = new ConcurrentHashMap<>();
+
+    void put(@NonNull Class<?> type, @NonNull V value) {
+        mValues.put(type, value);
+        mResolved.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    V get(@NonNull Class<?> type) {
+        Object resolved = mResolved.get(type);
+        if (resolved == null) {
+            resolved = NONE;
+            for (Class<?> superclass = type; superclass != null;
+                 superclass = superclass.getSuperclass()) {
+                V value = mValues.get(superclass);
+                if (value != null) {
+                    resolved = value;
+                    break;
+                }
+            }
+            mResolved.put(type, resolved);
+        }
+        return resolved == NONE ? null : (V) resolved;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+/**
+ * Immutable object which represents a one-shot event for a view, e.g. a message to show once,
+ * as opposed to the {@link MviViewState} which is rendered again on every reconnection.
+ */
+public interface MviEffect {
+}
@@ -0,0 +1,58 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Finds the effect of each result with the function registered for its class, found with a
+ * single map lookup. Results of any other class have no effect.
+ *
+ * @param <R> Top class of the {@link MviResult}s mapped.
+ * @param <E> Top class of the {@link MviEffect}s produced.
+ */
+public final class MviEffectMapper<R extends MviResult, E extends MviEffect> {
+    @NonNull
+    private final MviClassMap<EffectOf<R, E>> mEffects;
+
+    private MviEffectMapper(@NonNull MviClassMap<EffectOf<R, E>> effects) {
+        mEffects = effects;
+    }
+
+    /**
+     * Returns the effect of the given result, null if it has none.
+     */
+    @Nullable
+    public E effectOf(@NonNull R result) {
+        EffectOf<R, E> effectOf = mEffects.get(result.getClass());
+        return effectOf == null ? null : effectOf.effectOf(result);
+    }
+
+    public interface EffectOf<T, E> {
+        /**
+         * Returns the effect of the given result, null if it has none.
+         */
+        @Nullable
+        E effectOf(@NonNull T result);
+    }
+
+    public static final class Builder<R extends MviResult, E extends MviEffect> {
+        @NonNull
+        private final MviClassMap<EffectOf<R, E>> mEffects = new MviClassMap<>();
+
+        @SuppressWarnings("unchecked")
+        @NonNull
+        public <T extends R> Builder<R, E> on(@NonNull Class<T> resultClass,
+                                              @NonNull EffectOf<? super T, ? extends E> effectOf) {
+            // Only ever applied to instances of resultClass.
+            mEffects.put(resultClass, (EffectOf<R, E>) checkNotNull(effectOf));
+            return this;
+        }
+
+        @NonNull
+        public MviEffectMapper<R, E> build() {
+            return new MviEffectMapper<>(mEffects);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.HEADER_SIZE;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.MAGIC;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_BASE_WALL_MILLIS;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_FIRST_RECORD;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_MAGIC;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_RECORD_CAPACITY;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_RECORD_COUNT;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_TYPE_CAPACITY;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_TYPE_COUNT;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.OFFSET_VERSION;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.RECORD_SIZE;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.TYPE_SIZE;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.UTF_8;
+import static com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecorder.VERSION;
+
+/**
+ * Prints the timeline of a file written by {@link MviFlightRecorder}, oldest record first. Plain
+ * Java, so that it also runs on a JVM: the command line tool is {@code MviFlightRecordTool}, in the
+ * test sources, to keep it out of the app.
+ */
+public final class MviFlightRecordDecoder {
+    private static final String[] STAGES = {"INTENT", "ACTION", "RESULT", "STATE", "EFFECT"};
+
+    private MviFlightRecordDecoder() {
+    }
+
+    public static void decode(ByteBuffer buffer, PrintStream out) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(OFFSET_MAGIC) != MAGIC) {
+            throw new IOException("Not a flight record");
+        }
+        if (buffer.getInt(OFFSET_VERSION) != VERSION) {
+            throw new IOException("Unsupported version " + buffer.getInt(OFFSET_VERSION));
+        }
+        int typeCapacity = buffer.getInt(OFFSET_TYPE_CAPACITY);
+        int recordCapacity = buffer.getInt(OFFSET_RECORD_CAPACITY);
+        long baseWallMillis = buffer.getLong(OFFSET_BASE_WALL_MILLIS);
+        long recordCount = buffer.getLong(OFFSET_RECORD_COUNT);
+        int typeCount = buffer.getInt(OFFSET_TYPE_COUNT);
+        long first = Math.max(buffer.getLong(OFFSET_FIRST_RECORD), recordCount - recordCapacity);
+
+        String[] types = new String[typeCount];
+        for (int id = 0; id < typeCount; id++) {
+            int offset = HEADER_SIZE + id * TYPE_SIZE;
+            types[id] = new String(buffer.array(), offset + 2, buffer.getShort(offset), UTF_8);
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+        out.printf(Locale.US, "Opened %s, %d records, %d kept%n",
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US)
+                        .format(new Date(baseWallMillis)),
+                recordCount, recordCount - first);
+        for (long i = first; i < recordCount; i++) {
+            int offset = HEADER_SIZE + typeCapacity * TYPE_SIZE
+                    + (int) (i % recordCapacity) * RECORD_SIZE;
+            long nanos = buffer.getLong(offset);
+            long durationNanos = buffer.getLong(offset + 8);
+            int typeId = buffer.getInt(offset + 16);
+            byte stage = buffer.get(offset + 20);
+            String type = typeId >= 0 && typeId < typeCount ? types[typeId] : "?";
+            String date = format.format(new Date(baseWallMillis + nanos / 1_000_000));
+            if (durationNanos == 0) {
+                out.printf(Locale.US, "%s %-6s %s%n", date, STAGES[stage], type);
+            } else {
+                out.printf(Locale.US, "%s %-6s %s (+%.3f ms)%n",
+                        date, STAGES[stage], type, durationNanos / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Records the intents, actions, results and states of the MVI loops as fixed size binary records
+ * into a memory-mapped file of bounded size, the oldest records being overwritten when full.
+ * <p>
+ * The writes land in the page cache as they are made, so the file outlives a crash of the app.
+ * {@link MviFlightRecordDecoder} turns it into a timeline.
+ * <p>
+ * Layout, big endian:
+ * <pre>
+ * header   magic, version, type capacity, record capacity (ints),
+ *          wall clock millis and nanoTime when opened, records written (longs),
+ *          types defined (int), padding (int), first record kept (long)
+ * types    type capacity slots: name length (short), name (UTF-8)
+ * records  record capacity slots: nanos since opened, duration nanos (longs), type id (int),
+ *          stage (byte)
+ * </pre>
+ * The counts are updated after the slot they cover, and once the records wrap, the first record
+ * kept is moved past the slot before it is overwritten: a record torn by a crash is never read.
+ */
+public final class MviFlightRecorder {
+    static final int MAGIC = 0x4d564946; // "MVIF"
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 56;
+    static final int OFFSET_MAGIC = 0;
+    static final int OFFSET_VERSION = 4;
+    static final int OFFSET_TYPE_CAPACITY = 8;
+    static final int OFFSET_RECORD_CAPACITY = 12;
+    static final int OFFSET_BASE_WALL_MILLIS = 16;
+    static final int OFFSET_BASE_NANOS = 24;
+    static final int OFFSET_RECORD_COUNT = 32;
+    static final int OFFSET_TYPE_COUNT = 40;
+    static final int OFFSET_FIRST_RECORD = 48;
+
+    static final int TYPE_SIZE = 64;
+    static final int RECORD_SIZE = 24;
+
+    static final int UNKNOWN_TYPE = -1;
+
+    static final byte STAGE_INTENT = 0;
+    static final byte STAGE_ACTION = 1;
+    static final byte STAGE_RESULT = 2;
+    static final byte STAGE_STATE = 3;
+    static final byte STAGE_EFFECT = 4;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @NonNull
+    private final MappedByteBuffer mBuffer;
+    private final int mTypeCapacity;
+    private final int mRecordCapacity;
+    private final long mBaseNanos;
+    /**
+     * Guarded by this.
+     */
+    @NonNull
+    private final Map<Class<?>, Integer> mTypeIds = new HashMap<>();
+    /**
+     * Guarded by this.
+     */
+    private long mRecordCount;
+
+    /**
+     * Truncates the file, or creates it, and maps it for the given capacities.
+     */
+    public MviFlightRecorder(@NonNull File file, int typeCapacity, int recordCapacity)
+            throws IOException {
+        checkNotNull(file);
+        checkArgument(typeCapacity > 0, "typeCapacity must be positive");
+        checkArgument(recordCapacity > 0, "recordCapacity must be positive");
+        mTypeCapacity = typeCapacity;
+        mRecordCapacity = recordCapacity;
+        long size = HEADER_SIZE + (long) typeCapacity * TYPE_SIZE
+                + (long) recordCapacity * RECORD_SIZE;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+            randomAccessFile.setLength(size);
+            // The mapping stays valid once the channel is closed.
+            mBuffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        mBaseNanos = System.nanoTime();
+        mBuffer.putInt(OFFSET_VERSION, VERSION);
+        mBuffer.putInt(OFFSET_TYPE_CAPACITY, typeCapacity);
+        mBuffer.putInt(OFFSET_RECORD_CAPACITY, recordCapacity);
+        mBuffer.putLong(OFFSET_BASE_WALL_MILLIS, System.currentTimeMillis());
+        mBuffer.putLong(OFFSET_BASE_NANOS, mBaseNanos);
+        mBuffer.putInt(OFFSET_MAGIC, MAGIC);
+    }
+
+    /**
+     * Returns a middleware recording into this file. Each store needs its own: the duration of
+     * an action, result or state is the time elapsed since the latest item of the previous stage
+     * went through the same store.
+     */
+    @NonNull
+    public MviMiddleware newMiddleware() {
+        return new MviMiddleware() {
+            private volatile long mIntentNanos;
+            private volatile long mActionNanos;
+            private volatile long mResultNanos;
+
+            @Override
+            public void onIntent(MviIntent intent) {
+                mIntentNanos = record(STAGE_INTENT, intent, 0);
+            }
+
+            @Override
+            public void onAction(MviAction action) {
+                mActionNanos = record(STAGE_ACTION, action, mIntentNanos);
+            }
+
+            @Override
+            public void onResult(MviResult result) {
+                mResultNanos = record(STAGE_RESULT, result, mActionNanos);
+            }
+
+            @Override
+            public void onState(MviViewState state) {
+                record(STAGE_STATE, state, mResultNanos);
+            }
+
+            @Override
+            public void onEffect(MviEffect effect) {
+                record(STAGE_EFFECT, effect, mResultNanos);
+            }
+        };
+    }
+
+    /**
+     * Records the item and returns the time of the record.
+     *
+     * @param sinceNanos time of the item this one follows from, 0 if none
+     */
+    private synchronized long record(byte stage, @NonNull Object item, long sinceNanos) {
+        long nanos = System.nanoTime();
+        int offset = HEADER_SIZE + mTypeCapacity * TYPE_SIZE
+                + (int) (mRecordCount % mRecordCapacity) * RECORD_SIZE;
+        if (mRecordCount >= mRecordCapacity) {
+            // the slot holds the oldest record kept, which stops being kept
+            mBuffer.putLong(OFFSET_FIRST_RECORD, mRecordCount - mRecordCapacity + 1);
+        }
+        mBuffer.putLong(offset, nanos - mBaseNanos);
+        mBuffer.putLong(offset + 8, sinceNanos == 0 ? 0 : nanos - sinceNanos);
+        mBuffer.putInt(offset + 16, typeId(item.getClass()));
+        mBuffer.put(offset + 20, stage);
+        mBuffer.putLong(OFFSET_RECORD_COUNT, ++mRecordCount);
+        return nanos;
+    }
+
+    /**
+     * Returns the id of the type, defining it on first use. Guarded by this.
+     */
+    private int typeId(@NonNull Class<?> type) {
+        Integer id = mTypeIds.get(type);
+        if (id != null) return id;
+        if (mTypeIds.size() == mTypeCapacity) return UNKNOWN_TYPE;
+        id = mTypeIds.size();
+        byte[] name = MviActionContext.nameOf(type).getBytes(UTF_8);
+        int length = Math.min(name.length, TYPE_SIZE - 2);
+        int offset = HEADER_SIZE + id * TYPE_SIZE;
+        mBuffer.putShort(offset, (short) length);
+        for (int i = 0; i < length; i++) {
+            mBuffer.put(offset + 2 + i, name[i]);
+        }
+        mTypeIds.put(type, id);
+        mBuffer.putInt(OFFSET_TYPE_COUNT, mTypeIds.size());
+        return id;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Source of the display frames {@link MviFrameConflation} aligns rendering to.
+ * <p>
+ * {@link MviChoreographerFrameClock} follows the frames of the device; on the JVM,
+ * {@link MviSchedulerFrameClock} times them with any scheduler, e.g. a test one.
+ */
+public interface MviFrameClock {
+    /**
+     * Runs the callback once, at the start of the next frame, on the thread frames are drawn on.
+     * Disposing the returned disposable cancels the callback if it has not run yet.
+     */
+    @NonNull
+    Disposable postFrameCallback(@NonNull Runnable callback);
+}
@@ -0,0 +1,94 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.SerialDisposable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Delivers at most one state per frame, the latest one, so that a burst of states (a load in
+ * flight then done, several toggles, a sync) is rendered once.
+ * <p>
+ * The first state is delivered right away, as a view subscribing has nothing rendered yet, and
+ * the replayed state of {@link MviStore#states()} must be rendered before the first frame. Every
+ * later state waits for the next frame, replacing the one waiting before it if any. Errors are
+ * delivered right away; completion once the waiting state, if any, is delivered.
+ */
+public final class MviFrameConflation<S> implements ObservableTransformer<S, S> {
+    @NonNull
+    private final MviFrameClock mFrameClock;
+
+    public MviFrameConflation(@NonNull MviFrameClock frameClock) {
+        mFrameClock = checkNotNull(frameClock);
+    }
+
+    @Override
+    public ObservableSource<S> apply(@NonNull Observable<S> states) {
+        return Observable.create(emitter -> {
+            Conflator<S> conflator = new Conflator<>(mFrameClock, emitter.serialize());
+            CompositeDisposable disposables = new CompositeDisposable(conflator.mFrame);
+            emitter.setDisposable(disposables);
+            disposables.add(states.subscribe(
+                    conflator::onNext, conflator::onError, conflator::onComplete));
+        });
+    }
+
+    private static final class Conflator<S> implements Runnable {
+        @NonNull
+        private final MviFrameClock mFrameClock;
+        @NonNull
+        private final ObservableEmitter<S> mEmitter;
+        @NonNull
+        private final AtomicReference<S> mWaiting = new AtomicReference<>();
+        @NonNull
+        final SerialDisposable mFrame = new SerialDisposable();
+        /**
+         * Only read and written by the upstream thread.
+         */
+        private boolean mFirst = true;
+
+        Conflator(@NonNull MviFrameClock frameClock, @NonNull ObservableEmitter<S> emitter) {
+            mFrameClock = frameClock;
+            mEmitter = emitter;
+        }
+
+        void onNext(@NonNull S state) {
+            if (mFirst) {
+                mFirst = false;
+                mEmitter.onNext(state);
+            } else if (mWaiting.getAndSet(state) == null) {
+                // no frame callback pending: the previous one delivered the state it waited for
+                mFrame.set(mFrameClock.postFrameCallback(this));
+            }
+        }
+
+        void onError(@NonNull Throwable error) {
+            mWaiting.set(null);
+            mFrame.dispose();
+            mEmitter.onError(error);
+        }
+
+        void onComplete() {
+            mFrame.dispose();
+            run();
+            mEmitter.onComplete();
+        }
+
+        /**
+         * Delivers the waiting state, at the frame.
+         */
+        @Override
+        public void run() {
+            S state = mWaiting.getAndSet(null);
+            if (state != null) mEmitter.onNext(state);
+        }
+    }
+}
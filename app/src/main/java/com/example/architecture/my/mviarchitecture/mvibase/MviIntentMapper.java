@@ -0,0 +1,52 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.functions.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Turns each intent into an action with the mapper registered for its class, found with a single
+ * map lookup.
+ *
+ * @param <I> Top class of the {@link MviIntent}s mapped.
+ * @param <A> Top class of the {@link MviAction}s produced.
+ */
+public final class MviIntentMapper<I extends MviIntent, A extends MviAction>
+        implements Function<I, A> {
+    @NonNull
+    private final MviClassMap<Function<I, A>> mMappers;
+
+    private MviIntentMapper(@NonNull MviClassMap<Function<I, A>> mappers) {
+        mMappers = mappers;
+    }
+
+    @Override
+    public A apply(@NonNull I intent) throws Exception {
+        Function<I, A> mapper = mMappers.get(intent.getClass());
+        if (mapper == null) {
+            throw new IllegalArgumentException("do not know how to treat this intent " + intent);
+        }
+        return mapper.apply(intent);
+    }
+
+    public static final class Builder<I extends MviIntent, A extends MviAction> {
+        @NonNull
+        private final MviClassMap<Function<I, A>> mMappers = new MviClassMap<>();
+
+        @SuppressWarnings("unchecked")
+        @NonNull
+        public <T extends I> Builder<I, A> on(@NonNull Class<T> intentClass,
+                                              @NonNull Function<? super T, ? extends A> mapper) {
+            // Only ever applied to instances of intentClass.
+            mMappers.put(intentClass, (Function<I, A>) checkNotNull(mapper));
+            return this;
+        }
+
+        @NonNull
+        public MviIntentMapper<I, A> build() {
+            return new MviIntentMapper<>(mMappers);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Predicate;
+import io.reactivex.subjects.PublishSubject;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Rate policies of the intents, by intent class, dropping the redundant ones before they turn
+ * into actions:
+ * <ul>
+ * <li>debounce: an intent is let through once none of its class came for the given time, the
+ * intents of the burst before it being dropped;</li>
+ * <li>throttle first: an intent is dropped if one of its class was let through less than the
+ * given time ago;</li>
+ * <li>freshness window: an intent is dropped if one of its class, or of a class refreshing the
+ * same data, was let through less than the given time ago.</li>
+ * </ul>
+ * A debounced burst may be merged into the intent let through rather than dropped, and some
+ * intents of a class may be exempted from its throttle and freshness window, e.g. those the user
+ * asked for explicitly.
+ * <p>
+ * Debouncing comes first, the other policies applying to the intents it lets through. The
+ * policies keep the time of the intents let through, so each store needs its own instance.
+ */
+public final class MviIntentPolicies<I extends MviIntent> implements ObservableTransformer<I, I> {
+    private static final long NEVER = Long.MIN_VALUE;
+
+    @NonNull
+    private final Scheduler mScheduler;
+    @NonNull
+    private final MviClassMap<Policy> mPolicies = new MviClassMap<>();
+    @NonNull
+    private final List<Policy> mPolicyList;
+    @NonNull
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    @NonNull
+    private final PublishSubject<I> mDroppedSubject = PublishSubject.create();
+
+    private MviIntentPolicies(@NonNull Builder<I> builder) {
+        mScheduler = builder.mScheduler;
+        mPolicyList = new ArrayList<>(builder.mPolicies.values());
+        for (Policy policy : mPolicyList) mPolicies.put(policy.mIntentClass, policy);
+    }
+
+    @Override
+    public ObservableSource<I> apply(@NonNull Observable<I> intents) {
+        return intents
+                .publish(shared -> Observable.merge(
+                        shared.filter(intent -> !isDebounced(intent)),
+                        shared.filter(this::isDebounced)
+                                .groupBy(intent -> mPolicies.get(intent.getClass()))
+                                .flatMap(group -> {
+                                    Policy policy = group.getKey();
+                                    AtomicReference<I> pending = new AtomicReference<>();
+                                    return group.map(intent -> merged(policy, pending, intent))
+                                            .switchMap(intent -> debounced(policy, pending, intent));
+                                })))
+                .filter(this::letThrough);
+    }
+
+    /**
+     * Number of intents dropped so far.
+     */
+    public long droppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Emits the dropped intents, on the thread dropping them.
+     */
+    @NonNull
+    public Observable<I> dropped() {
+        return mDroppedSubject;
+    }
+
+    private boolean isDebounced(@NonNull I intent) {
+        Policy policy = mPolicies.get(intent.getClass());
+        return policy != null && policy.mDebounceMillis > 0;
+    }
+
+    /**
+     * Merges the intent with the one of its burst waiting to be let through, if any, and makes
+     * the result the waiting one.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private I merged(@NonNull Policy policy, @NonNull AtomicReference<I> pending,
+                     @NonNull I intent) throws Exception {
+        I previous = pending.get();
+        I merged = previous == null || policy.mMerge == null
+                ? intent : (I) policy.mMerge.apply(previous, intent);
+        pending.set(merged);
+        return merged;
+    }
+
+    @NonNull
+    private Observable<I> debounced(@NonNull Policy policy, @NonNull AtomicReference<I> pending,
+                                    @NonNull I intent) {
+        AtomicBoolean emitted = new AtomicBoolean();
+        return Observable.timer(policy.mDebounceMillis, MILLISECONDS, mScheduler)
+                .map(tick -> {
+                    emitted.set(true);
+                    pending.compareAndSet(intent, null);
+                    return intent;
+                })
+                // disposed before the timer fired: a later intent of the burst replaced it
+                .doOnDispose(() -> {
+                    if (!emitted.get()) drop(intent);
+                });
+    }
+
+    private synchronized boolean letThrough(@NonNull I intent) throws Exception {
+        long now = mScheduler.now(MILLISECONDS);
+        Policy policy = mPolicies.get(intent.getClass());
+        if (policy != null) {
+            boolean exempt = policy.mExempt != null && policy.mExempt.test(intent);
+            if (!exempt && (within(policy.mLastThroughMillis, policy.mThrottleMillis, now)
+                    || within(policy.mLastRefreshMillis, policy.mFreshMillis, now))) {
+                drop(intent);
+                return false;
+            }
+            policy.mLastThroughMillis = now;
+        }
+        for (Policy refreshed : mPolicyList) {
+            if (refreshed.isRefreshedBy(intent)) refreshed.mLastRefreshMillis = now;
+        }
+        return true;
+    }
+
+    private static boolean within(long sinceMillis, long windowMillis, long now) {
+        return windowMillis > 0 && sinceMillis != NEVER && now - sinceMillis < windowMillis;
+    }
+
+    private void drop(@NonNull I intent) {
+        mDroppedCount.incrementAndGet();
+        mDroppedSubject.onNext(intent);
+    }
+
+    private static final class Policy {
+        @NonNull
+        final Class<?> mIntentClass;
+        long mDebounceMillis;
+        long mThrottleMillis;
+        long mFreshMillis;
+        @Nullable
+        BiFunction<Object, Object, Object> mMerge;
+        @Nullable
+        Predicate<Object> mExempt;
+        @NonNull
+        final List<Class<?>> mRefreshedBy = new ArrayList<>();
+        long mLastThroughMillis = NEVER;
+        long mLastRefreshMillis = NEVER;
+
+        Policy(@NonNull Class<?> intentClass) {
+            mIntentClass = intentClass;
+        }
+
+        boolean isRefreshedBy(@NonNull Object intent) {
+            for (Class<?> refresher : mRefreshedBy) {
+                if (refresher.isInstance(intent)) return true;
+            }
+            return false;
+        }
+    }
+
+    public static final class Builder<I extends MviIntent> {
+        @NonNull
+        private final Scheduler mScheduler;
+        @NonNull
+        private final Map<Class<? extends I>, Policy> mPolicies = new LinkedHashMap<>();
+
+        /**
+         * @param scheduler scheduler the debounced intents are let through on, and whose clock
+         *                  times the policies
+         */
+        public Builder(@NonNull Scheduler scheduler) {
+            mScheduler = checkNotNull(scheduler);
+        }
+
+        @NonNull
+        public Builder<I> debounce(@NonNull Class<? extends I> intentClass, long time,
+                                   @NonNull TimeUnit unit) {
+            policyOf(intentClass).mDebounceMillis = toMillis(time, unit);
+            return this;
+        }
+
+        /**
+         * Debounces the intents of the given class, merging each one of a burst into the next
+         * one instead of dropping it.
+         *
+         * @param merge returns the intent to wait in place of the two given, oldest first
+         */
+        @NonNull
+        @SuppressWarnings("unchecked")
+        public <T extends I> Builder<I> debounce(@NonNull Class<T> intentClass, long time,
+                                                 @NonNull TimeUnit unit,
+                                                 @NonNull BiFunction<T, T, T> merge) {
+            debounce(intentClass, time, unit);
+            policyOf(intentClass).mMerge = (BiFunction<Object, Object, Object>) (BiFunction<?, ?, ?>)
+                    checkNotNull(merge);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I> throttleFirst(@NonNull Class<? extends I> intentClass, long time,
+                                        @NonNull TimeUnit unit) {
+            policyOf(intentClass).mThrottleMillis = toMillis(time, unit);
+            return this;
+        }
+
+        /**
+         * @param refreshedBy classes of the other intents refreshing the same data
+         */
+        @SafeVarargs
+        @NonNull
+        public final Builder<I> freshFor(@NonNull Class<? extends I> intentClass, long time,
+                                         @NonNull TimeUnit unit,
+                                         @NonNull Class<? extends I>... refreshedBy) {
+            Policy policy = policyOf(intentClass);
+            policy.mFreshMillis = toMillis(time, unit);
+            policy.mRefreshedBy.add(intentClass);
+            policy.mRefreshedBy.addAll(Arrays.asList(checkNotNull(refreshedBy)));
+            return this;
+        }
+
+        /**
+         * The intents of the given class the predicate accepts are let through whatever the
+         * throttle and freshness window of the class, and still restart them.
+         */
+        @NonNull
+        @SuppressWarnings("unchecked")
+        public <T extends I> Builder<I> exempt(@NonNull Class<T> intentClass,
+                                               @NonNull Predicate<T> exempt) {
+            policyOf(intentClass).mExempt = (Predicate<Object>) (Predicate<?>) checkNotNull(exempt);
+            return this;
+        }
+
+        @NonNull
+        public MviIntentPolicies<I> build() {
+            return new MviIntentPolicies<>(this);
+        }
+
+        @NonNull
+        private Policy policyOf(@NonNull Class<? extends I> intentClass) {
+            checkNotNull(intentClass);
+            Policy policy = mPolicies.get(intentClass);
+            if (policy == null) {
+                policy = new Policy(intentClass);
+                mPolicies.put(intentClass, policy);
+            }
+            return policy;
+        }
+
+        private static long toMillis(long time, @NonNull TimeUnit unit) {
+            checkArgument(time > 0, "time must be positive");
+            return checkNotNull(unit).toMillis(time);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.CompletableSubject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs work serially per key: the work submitted for a key is subscribed to once the one
+ * submitted before it for the same key has terminated. Work for different keys runs concurrently.
+ * <p>
+ * Submitted work runs to its end even if its subscriber is disposed, whether it was waiting or
+ * running: a write the user asked for is not lost when the screen asking for it goes away, and
+ * the work queued behind it still waits for it.
+ * <p>
+ * Only the keys with work pending are held, so the executor can be shared by the whole app.
+ */
+public final class MviKeyedExecutor {
+    /**
+     * Completes when the last work submitted for each key terminates. Guarded by itself.
+     */
+    @NonNull
+    private final Map<Object, CompletableSubject> mTails = new HashMap<>();
+
+    /**
+     * Returns the given work, deferred until the work submitted before it for the same key has
+     * terminated. The work is submitted when the returned observable is subscribed to. Disposing
+     * the subscription only stops the delivery of the items.
+     */
+    @NonNull
+    public <T> Observable<T> execute(@NonNull Object key, @NonNull Observable<T> work) {
+        checkNotNull(key);
+        checkNotNull(work);
+        return Observable.defer(() -> {
+            CompletableSubject done = CompletableSubject.create();
+            CompletableSubject previous;
+            synchronized (mTails) {
+                previous = mTails.put(key, done);
+            }
+            Observable<T> serialized = previous == null ? work : previous.andThen(work);
+            return serialized.doFinally(() -> {
+                synchronized (mTails) {
+                    if (mTails.get(key) == done) mTails.remove(key);
+                }
+                done.onComplete();
+            })
+                    // connected once subscribed to, and never disconnected, so that the work
+                    // cannot be cancelled before it terminates
+                    .publish()
+                    .autoConnect();
+        });
+    }
+}
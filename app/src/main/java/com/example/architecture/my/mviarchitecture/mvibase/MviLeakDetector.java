@@ -0,0 +1,89 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import timber.log.Timber;
+
+/**
+ * Counts the live subscriptions to the streams of every {@link MviStore} it is installed in, and
+ * warns about those looking leaked:
+ * <ul>
+ * <li>more than one view subscribed to the states or effects of a store, the previous view not
+ * having disposed its subscriptions;</li>
+ * <li>subscriptions still live once the loop of their store is disposed.</li>
+ * </ul>
+ * Meant for debug builds: it is a middleware, so the stores of release builds, which install
+ * none, are not affected.
+ */
+public final class MviLeakDetector implements MviMiddleware {
+    private static final MviStore.Stream[] STREAMS = MviStore.Stream.values();
+
+    /**
+     * Live subscriptions of each store, indexed by stream ordinal. Guarded by this.
+     */
+    @NonNull
+    private final Map<MviStore<?, ?, ?, ?, ?>, int[]> mLiveCounts = new WeakHashMap<>();
+    /**
+     * Live subscriptions of all the stores, indexed by stream ordinal. Guarded by this.
+     */
+    @NonNull
+    private final int[] mTotalCounts = new int[STREAMS.length];
+
+    @Override
+    public synchronized void onSubscribe(MviStore<?, ?, ?, ?, ?> store, MviStore.Stream stream) {
+        int[] counts = countsOf(store);
+        int count = ++counts[stream.ordinal()];
+        mTotalCounts[stream.ordinal()]++;
+        if (count > 1 && (stream == MviStore.Stream.STATES || stream == MviStore.Stream.EFFECTS)) {
+            Timber.w("Leak? %d live subscriptions to the %s of %s", count, stream, store);
+        }
+    }
+
+    @Override
+    public synchronized void onDispose(MviStore<?, ?, ?, ?, ?> store, MviStore.Stream stream) {
+        int[] counts = countsOf(store);
+        counts[stream.ordinal()]--;
+        mTotalCounts[stream.ordinal()]--;
+        if (stream != MviStore.Stream.LOOP) return;
+        for (MviStore.Stream live : STREAMS) {
+            if (counts[live.ordinal()] > 0) {
+                Timber.w("Leak? %d live subscriptions to the %s of %s once disposed",
+                        counts[live.ordinal()], live, store);
+            }
+        }
+    }
+
+    /**
+     * Number of live subscriptions to the given stream, over all the stores.
+     */
+    public synchronized int liveCount(@NonNull MviStore.Stream stream) {
+        return mTotalCounts[stream.ordinal()];
+    }
+
+    /**
+     * Logs the live subscriptions of each store still reachable.
+     */
+    public synchronized void dump() {
+        for (Map.Entry<MviStore<?, ?, ?, ?, ?>, int[]> entry : mLiveCounts.entrySet()) {
+            int[] counts = entry.getValue();
+            Timber.d("%s: loop %d, intents %d, states %d, effects %d", entry.getKey(),
+                    counts[MviStore.Stream.LOOP.ordinal()],
+                    counts[MviStore.Stream.INTENTS.ordinal()],
+                    counts[MviStore.Stream.STATES.ordinal()],
+                    counts[MviStore.Stream.EFFECTS.ordinal()]);
+        }
+    }
+
+    @NonNull
+    private int[] countsOf(@NonNull MviStore<?, ?, ?, ?, ?> store) {
+        int[] counts = mLiveCounts.get(store);
+        if (counts == null) {
+            counts = new int[STREAMS.length];
+            mLiveCounts.put(store, counts);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+/**
+ * Observes what flows through an {@link MviStore}: logging, metrics, tracing... Every hook is
+ * called synchronously, on the thread emitting the item, and defaults to doing nothing.
+ */
+public interface MviMiddleware {
+    default void onIntent(MviIntent intent) {
+    }
+
+    default void onAction(MviAction action) {
+    }
+
+    default void onResult(MviResult result) {
+    }
+
+    default void onState(MviViewState state) {
+    }
+
+    default void onEffect(MviEffect effect) {
+    }
+
+    /**
+     * A subscription was made to one of the streams of the store.
+     */
+    default void onSubscribe(MviStore<?, ?, ?, ?, ?> store, MviStore.Stream stream) {
+    }
+
+    /**
+     * A subscription to one of the streams of the store was disposed, or its stream terminated.
+     */
+    default void onDispose(MviStore<?, ?, ?, ?, ?> store, MviStore.Stream stream) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.DisposableObserver;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Concurrency policies of the action processors: each one turns the work to do for a single
+ * action into the processor of a stream of actions of that type.
+ * <p>
+ * The results of each processor reach the reducer in the order of its actions, except with
+ * {@link #keyedSerial(MviKeyedExecutor, Function, Function)} where only the results of a same
+ * key are ordered.
+ */
+public final class MviProcessors {
+    private MviProcessors() {
+    }
+
+    /**
+     * Latest wins: a new action cancels the work of the previous one, whose results are dropped.
+     */
+    @NonNull
+    public static <A extends MviAction, R extends MviResult> ObservableTransformer<A, R> latest(
+            @NonNull Function<? super A, Observable<R>> work) {
+        checkNotNull(work);
+        return actions -> actions.switchMap(work);
+    }
+
+    /**
+     * Latest wins, folding what the cancelled action asked for into the new one: {@code coalesce}
+     * is given the action whose work is cancelled and the new action, and returns the action to
+     * process instead of the new one.
+     */
+    @NonNull
+    public static <A extends MviAction, R extends MviResult> ObservableTransformer<A, R> latest(
+            @NonNull BiFunction<A, A, A> coalesce,
+            @NonNull Function<? super A, Observable<R>> work) {
+        checkNotNull(coalesce);
+        checkNotNull(work);
+        return actions -> {
+            // action whose work is in progress, null once it has completed
+            AtomicReference<A> pending = new AtomicReference<>();
+            return actions
+                    .map(action -> {
+                        A cancelled = pending.get();
+                        A next = cancelled == null ? action : coalesce.apply(cancelled, action);
+                        pending.set(next);
+                        return next;
+                    })
+                    .switchMap(action -> work.apply(action)
+                            .doOnComplete(() -> pending.compareAndSet(action, null)));
+        };
+    }
+
+    /**
+     * Drop while busy: an action arriving while the work of the previous one is in progress is
+     * ignored.
+     */
+    @NonNull
+    public static <A extends MviAction, R extends MviResult> ObservableTransformer<A, R> dropWhileBusy(
+            @NonNull Function<? super A, Observable<R>> work) {
+        checkNotNull(work);
+        return actions -> actions.toFlowable(BackpressureStrategy.DROP)
+                .flatMap(action -> work.apply(action).toFlowable(BackpressureStrategy.BUFFER), 1)
+                .toObservable();
+    }
+
+    /**
+     * Queue: the work of each action starts once the one of the previous action has completed.
+     */
+    @NonNull
+    public static <A extends MviAction, R extends MviResult> ObservableTransformer<A, R> queue(
+            @NonNull Function<? super A, Observable<R>> work) {
+        checkNotNull(work);
+        return actions -> actions.concatMap(work);
+    }
+
+    /**
+     * Keyed serial: the actions of a same key are queued, those of different keys run
+     * concurrently. Sharing the executor extends the queues to every processor using it, e.g.
+     * to order all the writes to a task whichever screen they come from. The work must not start
+     * before it is subscribed to.
+     */
+    @NonNull
+    public static <A extends MviAction, R extends MviResult> ObservableTransformer<A, R> keyedSerial(
+            @NonNull MviKeyedExecutor executor,
+            @NonNull Function<? super A, ?> keyOf,
+            @NonNull Function<? super A, Observable<R>> work) {
+        checkNotNull(executor);
+        checkNotNull(keyOf);
+        checkNotNull(work);
+        return mergeInOrder(
+                action -> executor.execute(keyOf.apply(action), work.apply(action)));
+    }
+
+    /**
+     * Merges the work of every action, like {@code flatMap}, but delivers the results in the
+     * order they are emitted. {@code flatMap} drains the queue of each work in turn while another
+     * thread emits, so that a result emitted on one thread after another one was emitted on
+     * another thread may overtake it, e.g. the result of the next write to a task.
+     */
+    @NonNull
+    private static <A, R> ObservableTransformer<A, R> mergeInOrder(
+            @NonNull Function<? super A, Observable<R>> work) {
+        return actions -> Observable.create(emitter -> {
+            // a single queue, filled in the order of the calls
+            ObservableEmitter<R> serialized = emitter.serialize();
+            CompositeDisposable disposables = new CompositeDisposable();
+            serialized.setDisposable(disposables);
+            // the actions and the works not terminated yet
+            AtomicInteger active = new AtomicInteger(1);
+            actions.subscribe(new DisposableObserver<A>() {
+                @Override
+                protected void onStart() {
+                    disposables.add(this);
+                }
+
+                @Override
+                public void onNext(@NonNull A action) {
+                    Observable<R> results;
+                    try {
+                        results = work.apply(action);
+                    } catch (Throwable error) {
+                        dispose();
+                        onError(error);
+                        return;
+                    }
+                    active.incrementAndGet();
+                    results.subscribe(new DisposableObserver<R>() {
+                        @Override
+                        protected void onStart() {
+                            disposables.add(this);
+                        }
+
+                        @Override
+                        public void onNext(@NonNull R result) {
+                            serialized.onNext(result);
+                        }
+
+                        @Override
+                        public void onError(@NonNull Throwable error) {
+                            serialized.onError(error);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            disposables.delete(this);
+                            if (active.decrementAndGet() == 0) serialized.onComplete();
+                        }
+                    });
+                }
+
+                @Override
+                public void onError(@NonNull Throwable error) {
+                    serialized.onError(error);
+                }
+
+                @Override
+                public void onComplete() {
+                    disposables.delete(this);
+                    if (active.decrementAndGet() == 0) serialized.onComplete();
+                }
+            });
+        });
+    }
+}
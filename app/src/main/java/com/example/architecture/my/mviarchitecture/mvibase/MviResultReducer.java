@@ -0,0 +1,51 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.functions.BiFunction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reduces each result with the reducer registered for its class, found with a single map lookup.
+ *
+ * @param <S> Top class of the {@link MviViewState}s reduced.
+ * @param <R> Top class of the {@link MviResult}s reduced.
+ */
+public final class MviResultReducer<S extends MviViewState, R extends MviResult>
+        implements BiFunction<S, R, S> {
+    @NonNull
+    private final MviClassMap<BiFunction<S, R, S>> mReducers;
+
+    private MviResultReducer(@NonNull MviClassMap<BiFunction<S, R, S>> reducers) {
+        mReducers = reducers;
+    }
+
+    @Override
+    public S apply(@NonNull S previousState, @NonNull R result) throws Exception {
+        BiFunction<S, R, S> reducer = mReducers.get(result.getClass());
+        if (reducer == null) {
+            throw new IllegalArgumentException("Don't know this result " + result);
+        }
+        return reducer.apply(previousState, result);
+    }
+
+    public static final class Builder<S extends MviViewState, R extends MviResult> {
+        @NonNull
+        private final MviClassMap<BiFunction<S, R, S>> mReducers = new MviClassMap<>();
+
+        @SuppressWarnings("unchecked")
+        @NonNull
+        public <T extends R> Builder<S, R> on(@NonNull Class<T> resultClass,
+                                              @NonNull BiFunction<S, ? super T, S> reducer) {
+            // Only ever applied to instances of resultClass.
+            mReducers.put(resultClass, (BiFunction<S, R, S>) checkNotNull(reducer));
+            return this;
+        }
+
+        @NonNull
+        public MviResultReducer<S, R> build() {
+            return new MviResultReducer<>(mReducers);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Frames of a fixed period, starting at the multiples of the period on the clock of a scheduler,
+ * and run on it. With a {@link io.reactivex.schedulers.TestScheduler}, frames come as the test
+ * advances its time.
+ */
+public final class MviSchedulerFrameClock implements MviFrameClock {
+    @NonNull
+    private final Scheduler mScheduler;
+    private final long mFrameNanos;
+
+    public MviSchedulerFrameClock(@NonNull Scheduler scheduler, long frameNanos) {
+        checkArgument(frameNanos > 0, "frameNanos must be positive");
+        mScheduler = checkNotNull(scheduler);
+        mFrameNanos = frameNanos;
+    }
+
+    @NonNull
+    @Override
+    public Disposable postFrameCallback(@NonNull Runnable callback) {
+        checkNotNull(callback);
+        long now = mScheduler.now(NANOSECONDS);
+        return mScheduler.scheduleDirect(callback, mFrameNanos - now % mFrameNanos, NANOSECONDS);
+    }
+}
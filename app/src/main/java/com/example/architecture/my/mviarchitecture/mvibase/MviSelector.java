@@ -0,0 +1,38 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Derives a value from the state, or from part of it, computing it again only when given another
+ * input than the latest one. Inputs are compared by identity, which is enough since states are
+ * immutable, and costs nothing even for large lists.
+ * <p>
+ * Not thread safe: meant to be called by a reducer or a render, always on the same thread.
+ */
+public final class MviSelector<I, O> {
+    public interface Compute<I, O> {
+        @NonNull
+        O compute(@NonNull I input);
+    }
+
+    @NonNull
+    private final Compute<? super I, ? extends O> mCompute;
+    private I mInput;
+    private O mOutput;
+
+    public MviSelector(@NonNull Compute<? super I, ? extends O> compute) {
+        mCompute = checkNotNull(compute);
+    }
+
+    @NonNull
+    public O select(@NonNull I input) {
+        checkNotNull(input);
+        if (input != mInput) {
+            mOutput = mCompute.compute(input);
+            mInput = input;
+        }
+        return mOutput;
+    }
+}
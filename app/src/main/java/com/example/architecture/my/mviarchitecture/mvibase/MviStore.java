@@ -0,0 +1,346 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.SerialDisposable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
+
+import timber.log.Timber;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The MVI loop shared by every screen: intents are filtered, turned into actions, processed into
+ * results, and reduced into states.
+ * <p>
+ * A state equal to the previous one is not emitted. {@link #states()} replays the latest state:
+ * a view subscribing again, e.g. after a configuration change, renders the current state
+ * synchronously without any intent going through the loop.
+ * <p>
+ * Results may also produce {@link MviEffect}s, emitted by {@link #effects()} with at-most-once
+ * delivery: an effect is never replayed, and is lost if no view is subscribed when it occurs.
+ * <p>
+ * A single view is bound at a time: binding the intents of a new view, e.g. after a configuration
+ * change, unbinds those of the previous one. The loop itself outlives the views, until
+ * {@link #dispose()}.
+ * <p>
+ * Given {@link Builder#schedulers schedulers}, results are reduced on a single state thread, in
+ * the order they arrive, and only the states actually emitted are handed to the ui thread, once
+ * each.
+ * <p>
+ * {@link MviMiddleware}s see every item at each step, and every subscription to the streams of
+ * the store. When none is installed the loop has no middleware operator at all. The class of the
+ * action being processed is kept in {@link MviActionContext}.
+ *
+ * @param <I> Top class of the {@link MviIntent} the store subscribes to.
+ * @param <A> Top class of the {@link MviAction} the intents are turned into.
+ * @param <R> Top class of the {@link MviResult} the actions are processed into.
+ * @param <S> Top class of the {@link MviViewState} the store emits.
+ * @param <E> Top class of the {@link MviEffect} the store emits.
+ */
+public final class MviStore<I extends MviIntent, A extends MviAction, R extends MviResult,
+        S extends MviViewState, E extends MviEffect> {
+    @NonNull
+    private final PublishSubject<I> mIntentsSubject = PublishSubject.create();
+    @NonNull
+    private final BehaviorSubject<S> mStatesSubject = BehaviorSubject.create();
+    @NonNull
+    private final PublishSubject<E> mEffectsSubject = PublishSubject.create();
+    @NonNull
+    private final SerialDisposable mIntentsBinding = new SerialDisposable();
+    @Nullable
+    private final MviMiddleware mMiddleware;
+    @NonNull
+    private final Observable<S> mStates;
+    @NonNull
+    private final Observable<E> mEffects;
+    @NonNull
+    private final Disposable mDisposable;
+
+    private MviStore(@NonNull Builder<I, A, R, S, E> builder) {
+        mMiddleware = builder.middleware();
+        mStates = track(mStatesSubject, Stream.STATES);
+        Scheduler uiScheduler = builder.mUiScheduler;
+        Observable<E> effects = mEffectsSubject;
+        if (uiScheduler != null) effects = effects.observeOn(uiScheduler);
+        mEffects = track(effects, Stream.EFFECTS);
+        // the subject is fed on the ui thread, so that it replays the latest state synchronously
+        Observable<S> states = compose(builder);
+        if (uiScheduler != null) states = states.observeOn(uiScheduler);
+        mDisposable = track(states, Stream.LOOP)
+                .subscribe(mStatesSubject::onNext, mStatesSubject::onError);
+    }
+
+    /**
+     * Binds the intents of a view, unbinding those of the previous view if still bound. The
+     * returned disposable unbinds them, to be disposed when the view is destroyed.
+     * <p>
+     * An error of the intents is logged and ends this binding only: the loop, shared with the
+     * next views, goes on.
+     */
+    @NonNull
+    public Disposable processIntents(@NonNull Observable<I> intents) {
+        Disposable binding = track(intents, Stream.INTENTS)
+                .doOnError(error -> Timber.w(error, "Intents of %s failed, unbinding them", this))
+                .onErrorResumeNext(Observable.<I>empty())
+                .subscribe(mIntentsSubject::onNext);
+        mIntentsBinding.set(binding);
+        return binding;
+    }
+
+    @NonNull
+    public Observable<S> states() {
+        return mStates;
+    }
+
+    @NonNull
+    public Observable<E> effects() {
+        return mEffects;
+    }
+
+    /**
+     * Stops the loop and unbinds the intents. To be called once the owner of the store is done
+     * with it.
+     */
+    public void dispose() {
+        mIntentsBinding.dispose();
+        mDisposable.dispose();
+    }
+
+    /**
+     * The streams of a store subscriptions are made to.
+     */
+    public enum Stream {
+        /**
+         * The loop, subscribed to by the store itself until {@link #dispose()}.
+         */
+        LOOP,
+        /**
+         * The intents of the bound view.
+         */
+        INTENTS,
+        STATES,
+        EFFECTS
+    }
+
+    @NonNull
+    private <T> Observable<T> track(@NonNull Observable<T> observable, @NonNull Stream stream) {
+        MviMiddleware middleware = mMiddleware;
+        if (middleware == null) return observable;
+        return observable.doOnSubscribe(disposable -> middleware.onSubscribe(this, stream))
+                .doFinally(() -> middleware.onDispose(this, stream));
+    }
+
+    @NonNull
+    private Observable<S> compose(@NonNull Builder<I, A, R, S, E> builder) {
+        Observable<I> intents = mIntentsSubject;
+        for (Class<? extends I> initialIntentClass : builder.mInitialIntentClasses) {
+            intents = intents.filter(firstOnly(initialIntentClass));
+        }
+        if (builder.mIntentPolicies != null) {
+            intents = intents.compose(builder.mIntentPolicies);
+        }
+        MviMiddleware middleware = mMiddleware;
+        Observable<A> actions = middleware == null
+                ? intents.map(builder.mActionFromIntent)
+                : intents.doOnNext(middleware::onIntent)
+                        .map(builder.mActionFromIntent)
+                        .doOnNext(middleware::onAction);
+        Observable<R> results = actions.lift(MviActionContext.<A>scope())
+                .compose(builder.mActionProcessor);
+        if (builder.mStateScheduler != null) {
+            results = results.observeOn(builder.mStateScheduler);
+        }
+        if (middleware != null) {
+            results = results.doOnNext(middleware::onResult);
+        }
+        if (builder.mEffectMapper != null) {
+            results = results.doOnNext(effectEmitter(builder.mEffectMapper, middleware));
+        }
+        Observable<S> states = results.scan(builder.mInitialState, builder.mReducer)
+                .distinctUntilChanged();
+        return middleware == null ? states : states.doOnNext(middleware::onState);
+    }
+
+    @NonNull
+    private Consumer<R> effectEmitter(@NonNull MviEffectMapper<R, E> effectMapper,
+                                      @Nullable MviMiddleware middleware) {
+        return result -> {
+            E effect = effectMapper.effectOf(result);
+            if (effect == null) return;
+            if (middleware != null) middleware.onEffect(effect);
+            mEffectsSubject.onNext(effect);
+        };
+    }
+
+    /**
+     * Lets through every intent but the instances of the given class after the first one.
+     */
+    @NonNull
+    private static <I> Predicate<I> firstOnly(@NonNull Class<? extends I> intentClass) {
+        return new Predicate<I>() {
+            private boolean mSeen;
+
+            @Override
+            public boolean test(@NonNull I intent) {
+                if (!intentClass.isInstance(intent)) return true;
+                if (mSeen) return false;
+                mSeen = true;
+                return true;
+            }
+        };
+    }
+
+    public static final class Builder<I extends MviIntent, A extends MviAction,
+            R extends MviResult, S extends MviViewState, E extends MviEffect> {
+        @NonNull
+        private final List<Class<? extends I>> mInitialIntentClasses = new ArrayList<>();
+        @Nullable
+        private MviIntentPolicies<I> mIntentPolicies;
+        private Function<I, A> mActionFromIntent;
+        private ObservableTransformer<A, R> mActionProcessor;
+        private S mInitialState;
+        private BiFunction<S, R, S> mReducer;
+        @Nullable
+        private MviEffectMapper<R, E> mEffectMapper;
+        @Nullable
+        private Scheduler mStateScheduler;
+        @Nullable
+        private Scheduler mUiScheduler;
+        @NonNull
+        private final List<MviMiddleware> mMiddlewares = new ArrayList<>();
+
+        /**
+         * Only the first intent of the given class is processed. Later ones come from a view
+         * reconnecting, which gets the latest state from {@link MviStore#states()} instead. Can be
+         * called for several classes.
+         */
+        @NonNull
+        public Builder<I, A, R, S, E> initialIntent(@NonNull Class<? extends I> initialIntentClass) {
+            mInitialIntentClasses.add(checkNotNull(initialIntentClass));
+            return this;
+        }
+
+        /**
+         * Drops the intents the given policies rule redundant, before they turn into actions.
+         */
+        @NonNull
+        public Builder<I, A, R, S, E> intentPolicies(@NonNull MviIntentPolicies<I> intentPolicies) {
+            mIntentPolicies = checkNotNull(intentPolicies);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I, A, R, S, E> actionFromIntent(@NonNull Function<I, A> actionFromIntent) {
+            mActionFromIntent = checkNotNull(actionFromIntent);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I, A, R, S, E> actionProcessor(@NonNull ObservableTransformer<A, R> processor) {
+            mActionProcessor = checkNotNull(processor);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I, A, R, S, E> reducer(@NonNull S initialState,
+                                           @NonNull BiFunction<S, R, S> reducer) {
+            mInitialState = checkNotNull(initialState);
+            mReducer = checkNotNull(reducer);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I, A, R, S, E> effects(@NonNull MviEffectMapper<R, E> effectMapper) {
+            mEffectMapper = checkNotNull(effectMapper);
+            return this;
+        }
+
+        /**
+         * Results are reduced on the state scheduler, which must run its tasks one at a time and
+         * in order, and states and effects are delivered on the ui scheduler. Without
+         * schedulers, everything runs on the thread each result comes on.
+         */
+        @NonNull
+        public Builder<I, A, R, S, E> schedulers(@NonNull Scheduler stateScheduler,
+                                              @NonNull Scheduler uiScheduler) {
+            mStateScheduler = checkNotNull(stateScheduler);
+            mUiScheduler = checkNotNull(uiScheduler);
+            return this;
+        }
+
+        @NonNull
+        public Builder<I, A, R, S, E> middlewares(@NonNull Collection<MviMiddleware> middlewares) {
+            mMiddlewares.addAll(checkNotNull(middlewares));
+            return this;
+        }
+
+        @NonNull
+        public MviStore<I, A, R, S, E> build() {
+            checkNotNull(mActionFromIntent, "actionFromIntent is required");
+            checkNotNull(mActionProcessor, "actionProcessor is required");
+            checkNotNull(mReducer, "reducer is required");
+            return new MviStore<>(this);
+        }
+
+        /**
+         * The installed middlewares as a single one, null if there are none.
+         */
+        @Nullable
+        private MviMiddleware middleware() {
+            if (mMiddlewares.isEmpty()) return null;
+            if (mMiddlewares.size() == 1) return mMiddlewares.get(0);
+            MviMiddleware[] middlewares = mMiddlewares.toArray(new MviMiddleware[0]);
+            return new MviMiddleware() {
+                @Override
+                public void onIntent(MviIntent intent) {
+                    for (MviMiddleware middleware : middlewares) middleware.onIntent(intent);
+                }
+
+                @Override
+                public void onAction(MviAction action) {
+                    for (MviMiddleware middleware : middlewares) middleware.onAction(action);
+                }
+
+                @Override
+                public void onResult(MviResult result) {
+                    for (MviMiddleware middleware : middlewares) middleware.onResult(result);
+                }
+
+                @Override
+                public void onState(MviViewState state) {
+                    for (MviMiddleware middleware : middlewares) middleware.onState(state);
+                }
+
+                @Override
+                public void onEffect(MviEffect effect) {
+                    for (MviMiddleware middleware : middlewares) middleware.onEffect(effect);
+                }
+
+                @Override
+                public void onSubscribe(MviStore<?, ?, ?, ?, ?> store, Stream stream) {
+                    for (MviMiddleware middleware : middlewares) middleware.onSubscribe(store, stream);
+                }
+
+                @Override
+                public void onDispose(MviStore<?, ?, ?, ?, ?> store, Stream stream) {
+                    for (MviMiddleware middleware : middlewares) middleware.onDispose(store, stream);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+import timber.log.Timber;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Records what flows through the MVI loops into a ring buffer allocated once, overwriting the
+ * oldest events when full.
+ * <p>
+ * Recording an event stores references only: nothing is formatted, and nothing allocated, until
+ * the buffer is read. Events below the current {@link Level} are skipped after a single
+ * comparison, and only one event out of every sampling interval is kept.
+ */
+public final class MviTracer {
+    public enum Level {
+        OFF, INFO, DEBUG, VERBOSE
+    }
+
+    public enum Stage {
+        INTENT(Level.INFO),
+        EFFECT(Level.INFO),
+        ACTION(Level.DEBUG),
+        RESULT(Level.DEBUG),
+        STATE(Level.VERBOSE);
+
+        @NonNull
+        private final Level mLevel;
+
+        Stage(@NonNull Level level) {
+            mLevel = level;
+        }
+    }
+
+    public interface Visitor {
+        void visit(long timeNanos, @NonNull Stage stage, @NonNull Object item);
+    }
+
+    @NonNull
+    private final long[] mTimes;
+    @NonNull
+    private final Stage[] mStages;
+    @NonNull
+    private final Object[] mItems;
+    private final int mIndexMask;
+    private final int mSamplingMask;
+    @NonNull
+    private volatile Level mLevel;
+    /**
+     * Number of events passing the level guard, sampled or not. Guarded by this.
+     */
+    private long mSeenCount;
+    /**
+     * Number of events recorded since the last clear, the next slot being this modulo the
+     * capacity. Guarded by this.
+     */
+    private long mRecordedCount;
+
+    /**
+     * @param capacity         number of events kept, a power of two
+     * @param level            most detailed level recorded
+     * @param samplingInterval one event out of this many is recorded, a power of two
+     */
+    public MviTracer(int capacity, @NonNull Level level, int samplingInterval) {
+        checkArgument(Integer.bitCount(capacity) == 1, "capacity must be a power of two");
+        checkArgument(Integer.bitCount(samplingInterval) == 1,
+                "samplingInterval must be a power of two");
+        mTimes = new long[capacity];
+        mStages = new Stage[capacity];
+        mItems = new Object[capacity];
+        mIndexMask = capacity - 1;
+        mSamplingMask = samplingInterval - 1;
+        mLevel = checkNotNull(level);
+    }
+
+    public void setLevel(@NonNull Level level) {
+        mLevel = checkNotNull(level);
+    }
+
+    public boolean isEnabled(@NonNull Stage stage) {
+        return stage.mLevel.ordinal() <= mLevel.ordinal();
+    }
+
+    public void trace(@NonNull Stage stage, @NonNull Object item) {
+        if (!isEnabled(stage)) return;
+        synchronized (this) {
+            if ((mSeenCount++ & mSamplingMask) != 0) return;
+            int slot = (int) (mRecordedCount++ & mIndexMask);
+            mTimes[slot] = System.nanoTime();
+            mStages[slot] = stage;
+            mItems[slot] = item;
+        }
+    }
+
+    /**
+     * Visits the recorded events, oldest first.
+     */
+    public synchronized void forEach(@NonNull Visitor visitor) {
+        int capacity = mItems.length;
+        long first = Math.max(0, mRecordedCount - capacity);
+        for (long i = first; i < mRecordedCount; i++) {
+            int slot = (int) (i & mIndexMask);
+            visitor.visit(mTimes[slot], mStages[slot], mItems[slot]);
+        }
+    }
+
+    /**
+     * Logs the recorded events, oldest first. This is where they get formatted.
+     */
+    public void dump() {
+        forEach((timeNanos, stage, item) -> Timber.d("%d %s: %s", timeNanos, stage, item));
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(mItems, null);
+        mRecordedCount = 0;
+    }
+}
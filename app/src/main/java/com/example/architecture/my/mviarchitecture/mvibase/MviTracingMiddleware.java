@@ -0,0 +1,43 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import android.support.annotation.NonNull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Records every intent, action, result, state and effect going through an {@link MviStore} into
+ * an {@link MviTracer}.
+ */
+public class MviTracingMiddleware implements MviMiddleware {
+    @NonNull
+    private final MviTracer mTracer;
+
+    public MviTracingMiddleware(@NonNull MviTracer tracer) {
+        mTracer = checkNotNull(tracer);
+    }
+
+    @Override
+    public void onIntent(MviIntent intent) {
+        mTracer.trace(MviTracer.Stage.INTENT, intent);
+    }
+
+    @Override
+    public void onAction(MviAction action) {
+        mTracer.trace(MviTracer.Stage.ACTION, action);
+    }
+
+    @Override
+    public void onResult(MviResult result) {
+        mTracer.trace(MviTracer.Stage.RESULT, result);
+    }
+
+    @Override
+    public void onState(MviViewState state) {
+        mTracer.trace(MviTracer.Stage.STATE, state);
+    }
+
+    @Override
+    public void onEffect(MviEffect effect) {
+        mTracer.trace(MviTracer.Stage.EFFECT, effect);
+    }
+}
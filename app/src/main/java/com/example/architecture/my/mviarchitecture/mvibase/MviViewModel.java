@@ -1,7 +1,7 @@
 package com.example.architecture.my.mviarchitecture.mvibase;
 
 import io.reactivex.Observable;
-import timber.log.Timber;
+import io.reactivex.disposables.Disposable;
 
 /**
  * Object that will subscribes to a view's intents, process it and emit a state back.
@@ -11,23 +11,22 @@ import timber.log.Timber;
  * @param <S> Top class of the {@link MviViewState} the {@link MviViewModel} will be emitting.
  */
 public interface MviViewModel<I extends MviIntent, S extends MviViewState> {
-    void processIntents(Observable<I> intents);
+    /**
+     * Binds the intents of a view, unbinding those of the previous view. The returned disposable
+     * unbinds them, to be disposed along with the view.
+     */
+    Disposable processIntents(Observable<I> intents);
 
+    /**
+     * Emits the latest state right away on subscription, then every new one.
+     */
     Observable<S> states();
 
-    static void logIntent(MviIntent intent) {
-        Timber.d("Intent: " + intent);
-    }
-
-    static void logAction(MviAction action) {
-        Timber.d("Action: " + action);
-    }
-
-    static void logResult(MviResult result) {
-        Timber.d("Result: " + result);
-    }
-
-    static void logState(MviViewState state) {
-        Timber.d("State: " + state);
+    /**
+     * Emits one-shot events, each delivered at most once: effects are never replayed, so a view
+     * subscribing later does not see those which occurred before.
+     */
+    default Observable<? extends MviEffect> effects() {
+        return Observable.empty();
     }
 }
@@ -2,6 +2,9 @@ package com.example.architecture.my.mviarchitecture.mvibase;
 
 /**
  * Immutable object which contains all the information needed to render a view.
+ * <p>
+ * Implementations are value types: equal states render the same, so only distinct states are
+ * emitted to the view.
  */
 public interface MviViewState {
 }
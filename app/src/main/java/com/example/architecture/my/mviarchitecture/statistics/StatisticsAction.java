@@ -12,9 +12,12 @@ interface StatisticsAction extends MviAction {
     }
 
     @AutoValue
-    abstract class GetLastState implements StatisticsAction {
-        public static GetLastState create() {
-            return new AutoValue_StatisticsAction_GetLastState();
+    abstract class LoadTrends implements StatisticsAction {
+        abstract int dayCount();
+
+        public static LoadTrends create(int dayCount) {
+            return new AutoValue_StatisticsAction_LoadTrends(dayCount);
         }
     }
+
 }
@@ -2,18 +2,24 @@ package com.example.architecture.my.mviarchitecture.statistics;
 
 import android.support.annotation.NonNull;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
 import com.example.architecture.my.mviarchitecture.data.source.TasksRepository;
-import com.example.architecture.my.mviarchitecture.util.Pair;
+import com.example.architecture.my.mviarchitecture.mvibase.MviActionRouter;
+import com.example.architecture.my.mviarchitecture.mvibase.MviProcessors;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 
+import java.util.concurrent.TimeUnit;
+
 import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
-import io.reactivex.Single;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class StatisticsActionProcessorHolder {
+    /**
+     * Shortest interval between two live statistics updates: one display frame.
+     */
+    private static final long FRAME_MILLIS = 16;
+
     @NonNull
     private TasksRepository mTasksRepository;
     @NonNull
@@ -26,37 +32,38 @@ public class StatisticsActionProcessorHolder {
 
     }
 
+    /**
+     * Keeps the statistics live: counts are re-emitted whenever a mutation changes them, at most
+     * once per frame. The repository adjusts its counters by each mutation's delta, so no task is
+     * read to follow them.
+     */
     private ObservableTransformer<StatisticsAction.LoadStatistics, StatisticsResult.LoadStatistics>
-            loadStatisticsProcessor = actions ->
-            actions.flatMap(action ->
-                    mTasksRepository.getTasks()
-                            .toObservable()
-                            .flatMap(Observable::fromIterable)
-                            .publish(shared ->
-                                    Single.zip(
-                                            shared.filter(Task::isActive).count(),
-                                            shared.filter(Task::isCompleted).count(),
-                                            Pair::create).toObservable())
-                            .map(pair -> StatisticsResult.LoadStatistics.success(pair.first().intValue(),
-                                    pair.second().intValue()))
+            loadStatisticsProcessor =
+            MviProcessors.latest(action ->
+                    mTasksRepository.observeTaskCounts()
+                            .publish(counts -> Observable.merge(
+                                    counts.take(1),
+                                    counts.skip(1).sample(FRAME_MILLIS, TimeUnit.MILLISECONDS,
+                                            mSchedulerProvider.computation())))
+                            .map(counts -> StatisticsResult.LoadStatistics.success(
+                                    counts.activeCount(), counts.completedCount()))
                             .onErrorReturn(StatisticsResult.LoadStatistics::failure)
                             .subscribeOn(mSchedulerProvider.io())
-                            .observeOn(mSchedulerProvider.ui())
                             .startWith(StatisticsResult.LoadStatistics.inFlight()));
 
-    private ObservableTransformer<StatisticsAction.GetLastState, StatisticsResult.GetLastState>
-            getLastStateProcessor =
-            actions -> actions.map(ignored -> StatisticsResult.GetLastState.create());
+    private ObservableTransformer<StatisticsAction.LoadTrends, StatisticsResult.LoadTrends>
+            loadTrendsProcessor =
+            MviProcessors.latest(action ->
+                    mTasksRepository.getDailyTaskStats(action.dayCount())
+                            .toObservable()
+                            .map(StatisticsResult.LoadTrends::success)
+                            .onErrorReturn(StatisticsResult.LoadTrends::failure)
+                            .subscribeOn(mSchedulerProvider.io())
+                            .startWith(StatisticsResult.LoadTrends.inFlight()));
 
     ObservableTransformer<StatisticsAction, StatisticsResult> actionProcessor =
-            actions -> actions.publish(shared -> Observable.merge(
-                    shared.ofType(StatisticsAction.LoadStatistics.class).compose(loadStatisticsProcessor),
-                    shared.ofType(StatisticsAction.GetLastState.class).compose(getLastStateProcessor))
-                    .mergeWith(
-                            // Error for not implemented actions
-                            shared.filter(v -> !(v instanceof StatisticsAction.LoadStatistics)
-                                    && !(v instanceof StatisticsAction.GetLastState))
-                                    .flatMap(w -> Observable.error(
-                                            new IllegalArgumentException("Unknown Action type: " + w)))));
-
+            new MviActionRouter.Builder<StatisticsAction, StatisticsResult>()
+                    .on(StatisticsAction.LoadStatistics.class, loadStatisticsProcessor)
+                    .on(StatisticsAction.LoadTrends.class, loadTrendsProcessor)
+                    .build();
 }
@@ -27,10 +27,15 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.example.architecture.my.mviarchitecture.Injection;
 import com.example.architecture.my.mviarchitecture.R;
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFrameConflation;
 import com.example.architecture.my.mviarchitecture.mvibase.MviView;
 import com.example.architecture.my.mviarchitecture.util.ToDoViewModelFactory;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
 
@@ -39,11 +44,15 @@ import io.reactivex.disposables.CompositeDisposable;
  */
 public class StatisticsFragment extends Fragment
         implements MviView<StatisticsIntent, StatisticsViewState>, LifecycleRegistryOwner {
+    private static final int TREND_DAY_COUNT = 4 * TaskStatsPeriod.DAYS_PER_WEEK;
+
     private LifecycleRegistry mLifecycleRegistry = new LifecycleRegistry(this);
 
     private TextView mStatisticsTV;
     private StatisticsViewModel mViewModel;
     private CompositeDisposable mDisposables;
+    @Nullable
+    private StatisticsViewState mRenderedState;
 
     public static StatisticsFragment newInstance() {
         return new StatisticsFragment();
@@ -68,19 +77,26 @@ public class StatisticsFragment extends Fragment
     }
 
     private void bind() {
-        mDisposables.add(mViewModel.states().subscribe(this::render));
-        mViewModel.processIntents(intents());
+        mRenderedState = null;
+        mDisposables.add(mViewModel.states()
+                .compose(new MviFrameConflation<>(Injection.provideMviFrameClock()))
+                .subscribe(this::render));
+        mDisposables.add(mViewModel.processIntents(intents()));
     }
 
     @Override
-    public void onDestroy() {
-        super.onDestroy();
+    public void onDestroyView() {
+        super.onDestroyView();
         mDisposables.dispose();
     }
 
     @Override
     public Observable<StatisticsIntent> intents() {
-        return initialIntent();
+        return Observable.merge(initialIntent(), loadTrendsIntent());
+    }
+
+    private Observable<StatisticsIntent> loadTrendsIntent() {
+        return Observable.just(StatisticsIntent.LoadTrendsIntent.create(TREND_DAY_COUNT));
     }
 
     private Observable<StatisticsIntent> initialIntent() {
@@ -89,17 +105,23 @@ public class StatisticsFragment extends Fragment
 
     @Override
     public void render(StatisticsViewState state) {
+        // the daily trend is not displayed, only summed into the weekly one
+        int changes = state.changes(mRenderedState) & ~StatisticsViewState.DAILY_TREND;
+        mRenderedState = state;
+        if (changes == 0) return;
+
         if (state.isLoading()) mStatisticsTV.setText(getString(R.string.loading));
         if (state.error() != null) {
             mStatisticsTV.setText(getResources().getString(R.string.statistics_error));
         }
 
         if (state.error() == null && !state.isLoading()) {
-            showStatistics(state.activeCount(), state.completedCount());
+            showStatistics(state.activeCount(), state.completedCount(), state.weeklyTrend());
         }
     }
 
-    private void showStatistics(int numberOfActiveTasks, int numberOfCompletedTasks) {
+    private void showStatistics(int numberOfActiveTasks, int numberOfCompletedTasks,
+                                List<TaskStatsPeriod> weeklyTrend) {
         if (numberOfCompletedTasks == 0 && numberOfActiveTasks == 0) {
             mStatisticsTV.setText(getResources().getString(R.string.statistics_no_tasks));
         } else {
@@ -109,11 +131,22 @@ public class StatisticsFragment extends Fragment
                     + "\n"
                     + getResources().getString(R.string.statistics_completed_tasks)
                     + " "
-                    + numberOfCompletedTasks;
+                    + numberOfCompletedTasks
+                    + weeklyTrendString(weeklyTrend);
             mStatisticsTV.setText(displayString);
         }
     }
 
+    private String weeklyTrendString(List<TaskStatsPeriod> weeklyTrend) {
+        if (weeklyTrend.isEmpty()) return "";
+        StringBuilder trend = new StringBuilder("\n\n")
+                .append(getResources().getString(R.string.statistics_completed_per_week));
+        for (TaskStatsPeriod week : weeklyTrend) {
+            trend.append(' ').append(week.completedCount());
+        }
+        return trend.toString();
+    }
+
     @Override
     public LifecycleRegistry getLifecycle() {
         return mLifecycleRegistry;
@@ -12,11 +12,14 @@ interface StatisticsIntent extends MviIntent {
         }
     }
 
-    // should we create a top singleton that any view could use?
     @AutoValue
-    abstract class GetLastState implements StatisticsIntent {
-        public static GetLastState create() {
-            return new AutoValue_StatisticsIntent_GetLastState();
+    abstract class LoadTrendsIntent implements StatisticsIntent {
+        abstract int dayCount();
+
+        public static LoadTrendsIntent create(int dayCount) {
+            return new AutoValue_StatisticsIntent_LoadTrendsIntent(dayCount);
         }
     }
+
+    // should we create a top singleton that any view could use?
 }
@@ -2,10 +2,13 @@ package com.example.architecture.my.mviarchitecture.statistics;
 
 import android.support.annotation.NonNull;
 
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
 import com.example.architecture.my.mviarchitecture.mvibase.LceStatus;
 import com.example.architecture.my.mviarchitecture.mvibase.MviResult;
 import com.google.auto.value.AutoValue;
 
+import java.util.List;
+
 import javax.annotation.Nullable;
 
 interface StatisticsResult extends MviResult {
@@ -39,9 +42,33 @@ interface StatisticsResult extends MviResult {
     }
 
     @AutoValue
-    abstract class GetLastState implements StatisticsResult {
-        static GetLastState create() {
-            return new AutoValue_StatisticsResult_GetLastState();
+    abstract class LoadTrends implements StatisticsResult {
+        @NonNull
+        abstract LceStatus status();
+
+        /**
+         * Tasks created and completed per day, oldest first.
+         */
+        @Nullable
+        abstract List<TaskStatsPeriod> days();
+
+        @Nullable
+        abstract Throwable error();
+
+        @NonNull
+        static LoadTrends success(@NonNull List<TaskStatsPeriod> days) {
+            return new AutoValue_StatisticsResult_LoadTrends(LceStatus.SUCCESS, days, null);
+        }
+
+        @NonNull
+        static LoadTrends failure(Throwable error) {
+            return new AutoValue_StatisticsResult_LoadTrends(LceStatus.FAILURE, null, error);
+        }
+
+        @NonNull
+        static LoadTrends inFlight() {
+            return new AutoValue_StatisticsResult_LoadTrends(LceStatus.IN_FLIGHT, null, null);
         }
     }
+
 }
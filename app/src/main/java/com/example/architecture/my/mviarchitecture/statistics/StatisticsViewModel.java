@@ -19,12 +19,19 @@ package com.example.architecture.my.mviarchitecture.statistics;
 import android.arch.lifecycle.ViewModel;
 import android.support.annotation.NonNull;
 
-import com.example.architecture.my.mviarchitecture.mvibase.MviIntent;
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffect;
+import com.example.architecture.my.mviarchitecture.mvibase.MviIntentMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviMiddleware;
+import com.example.architecture.my.mviarchitecture.mvibase.MviResultReducer;
+import com.example.architecture.my.mviarchitecture.mvibase.MviStore;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewModel;
+import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
+
+import java.util.List;
 
 import io.reactivex.Observable;
-import io.reactivex.functions.BiFunction;
-import io.reactivex.subjects.PublishSubject;
+import io.reactivex.disposables.Disposable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -35,86 +42,89 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class StatisticsViewModel extends ViewModel
         implements MviViewModel<StatisticsIntent, StatisticsViewState> {
     @NonNull
-    private PublishSubject<StatisticsIntent> mIntentsSubject;
-    @NonNull
-    private PublishSubject<StatisticsViewState> mStatesSubject;
-    @NonNull
     private StatisticsActionProcessorHolder mActionProcessorHolder;
+    @NonNull
+    private MviStore<StatisticsIntent, StatisticsAction, StatisticsResult, StatisticsViewState,
+            MviEffect> mStore;
 
-    public StatisticsViewModel(@NonNull StatisticsActionProcessorHolder actionProcessorHolder) {
+    public StatisticsViewModel(@NonNull StatisticsActionProcessorHolder actionProcessorHolder,
+                               @NonNull BaseSchedulerProvider schedulerProvider,
+                               @NonNull List<MviMiddleware> middlewares) {
         this.mActionProcessorHolder = checkNotNull(actionProcessorHolder, "actionProcessorHolder cannot be null");
-
-        mIntentsSubject = PublishSubject.create();
-        mStatesSubject = PublishSubject.create();
-
-        compose().subscribe(this.mStatesSubject);
+        checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
+        mStore = new MviStore.Builder<StatisticsIntent, StatisticsAction, StatisticsResult, StatisticsViewState,
+                MviEffect>()
+                .initialIntent(StatisticsIntent.InitialIntent.class)
+                .initialIntent(StatisticsIntent.LoadTrendsIntent.class)
+                .actionFromIntent(actionFromIntent)
+                .actionProcessor(mActionProcessorHolder.actionProcessor)
+                .reducer(StatisticsViewState.idle(), reducer)
+                .schedulers(schedulerProvider.state(), schedulerProvider.ui())
+                .middlewares(middlewares)
+                .build();
     }
 
     @Override
-    public void processIntents(Observable<StatisticsIntent> intents) {
-        intents.subscribe(mIntentsSubject);
+    public Disposable processIntents(Observable<StatisticsIntent> intents) {
+        return mStore.processIntents(intents);
     }
 
     @Override
     public Observable<StatisticsViewState> states() {
-        return mStatesSubject;
+        return mStore.states();
     }
 
-    private Observable<StatisticsViewState> compose() {
-        return mIntentsSubject.doOnNext(MviViewModel::logIntent)
-                .scan(initialIntentFilter)
-                .map(this::actionFromIntent)
-                .doOnNext(MviViewModel::logAction)
-                .compose(mActionProcessorHolder.actionProcessor)
-                .doOnNext(MviViewModel::logResult)
-                .scan(StatisticsViewState.idle(), reducer)
-                .doOnNext(MviViewModel::logState);
+    @Override
+    protected void onCleared() {
+        mStore.dispose();
     }
 
-    private BiFunction<StatisticsIntent, StatisticsIntent, StatisticsIntent> initialIntentFilter =
-            (previousIntent, newIntent) -> {
-                // if isReConnection (e.g. after config change)
-                // i.e. we are inside the scan, meaning there has already
-                // been intent in the past, meaning the InitialIntent cannot
-                // be the first => it is a reconnection.
-                if (newIntent instanceof StatisticsIntent.InitialIntent) {
-                    return StatisticsIntent.GetLastState.create();
-                } else {
-                    return newIntent;
-                }
-            };
+    private static final MviIntentMapper<StatisticsIntent, StatisticsAction> actionFromIntent =
+            new MviIntentMapper.Builder<StatisticsIntent, StatisticsAction>()
+                    .on(StatisticsIntent.InitialIntent.class,
+                            intent -> StatisticsAction.LoadStatistics.create())
+                    .on(StatisticsIntent.LoadTrendsIntent.class,
+                            intent -> StatisticsAction.LoadTrends.create(intent.dayCount()))
+                    .build();
 
-    private StatisticsAction actionFromIntent(MviIntent intent) {
-        if (intent instanceof StatisticsIntent.InitialIntent) {
-            return StatisticsAction.LoadStatistics.create();
-        }
-        if (intent instanceof StatisticsIntent.GetLastState) {
-            return StatisticsAction.GetLastState.create();
+    private static final MviResultReducer<StatisticsViewState, StatisticsResult> reducer =
+            new MviResultReducer.Builder<StatisticsViewState, StatisticsResult>()
+                    .on(StatisticsResult.LoadStatistics.class, StatisticsViewModel::reduceLoadStatistics)
+                    .on(StatisticsResult.LoadTrends.class, StatisticsViewModel::reduceLoadTrends)
+                    .build();
+
+    private static StatisticsViewState reduceLoadStatistics(StatisticsViewState previousState,
+                                                            StatisticsResult.LoadStatistics loadResult) {
+        StatisticsViewState.Builder stateBuilder = previousState.buildWith();
+        switch (loadResult.status()) {
+            case SUCCESS:
+                return stateBuilder.isLoading(false)
+                        .activeCount(loadResult.activeCount())
+                        .completedCount(loadResult.completedCount())
+                        .build();
+            case FAILURE:
+                return stateBuilder.isLoading(false).error(loadResult.error()).build();
+            case IN_FLIGHT:
+                return stateBuilder.isLoading(true).build();
         }
-        throw new IllegalArgumentException("do not know how to treat this intent " + intent);
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
     }
 
-    private static BiFunction<StatisticsViewState, StatisticsResult, StatisticsViewState> reducer =
-            (previousState, result) -> {
-                StatisticsViewState.Builder stateBuilder = previousState.buildWith();
-                if (result instanceof StatisticsResult.LoadStatistics) {
-                    StatisticsResult.LoadStatistics loadResult = (StatisticsResult.LoadStatistics) result;
-                    switch (loadResult.status()) {
-                        case SUCCESS:
-                            return stateBuilder.isLoading(false)
-                                    .activeCount(loadResult.activeCount())
-                                    .completedCount(loadResult.completedCount())
-                                    .build();
-                        case FAILURE:
-                            return stateBuilder.isLoading(false).error(loadResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.isLoading(true).build();
-                    }
-                } else if (result instanceof StatisticsResult.GetLastState) {
-                    return stateBuilder.build();
-                } else {
-                    throw new IllegalArgumentException("Don't know this result " + result);
-                }
-                throw new IllegalStateException("Mishandled result? Should not happen (as always)");
-            };
+    private static StatisticsViewState reduceLoadTrends(StatisticsViewState previousState,
+                                                        StatisticsResult.LoadTrends trendsResult) {
+        StatisticsViewState.Builder stateBuilder = previousState.buildWith();
+        switch (trendsResult.status()) {
+            case SUCCESS:
+                // Weeks are summed from the days: O(days), never O(tasks).
+                List<TaskStatsPeriod> days = checkNotNull(trendsResult.days());
+                return stateBuilder.dailyTrend(days)
+                        .weeklyTrend(TaskStatsPeriod.weeks(days))
+                        .build();
+            case FAILURE:
+                return stateBuilder.error(trendsResult.error()).build();
+            case IN_FLIGHT:
+                return stateBuilder.build();
+        }
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
+    }
 }
@@ -2,26 +2,61 @@ package com.example.architecture.my.mviarchitecture.statistics;
 
 import android.support.annotation.Nullable;
 
+import com.example.architecture.my.mviarchitecture.data.TaskStatsPeriod;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewState;
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Objects;
+
+import java.util.Collections;
+import java.util.List;
 
 @AutoValue
 abstract class StatisticsViewState implements MviViewState {
+    static final int IS_LOADING = 1;
+    static final int ACTIVE_COUNT = 1 << 1;
+    static final int COMPLETED_COUNT = 1 << 2;
+    static final int DAILY_TREND = 1 << 3;
+    static final int WEEKLY_TREND = 1 << 4;
+    static final int ERROR = 1 << 5;
+    static final int ALL_FIELDS = ~0;
+
     abstract boolean isLoading();
 
     abstract int activeCount();
 
     abstract int completedCount();
 
+    abstract List<TaskStatsPeriod> dailyTrend();
+
+    abstract List<TaskStatsPeriod> weeklyTrend();
+
     @Nullable
     abstract Throwable error();
 
     public abstract Builder buildWith();
 
+    /**
+     * Returns the bit set of the fields which differ from the given state, all of them if it is
+     * null.
+     */
+    int changes(@Nullable StatisticsViewState previousState) {
+        if (previousState == null) return ALL_FIELDS;
+        int changes = 0;
+        if (isLoading() != previousState.isLoading()) changes |= IS_LOADING;
+        if (activeCount() != previousState.activeCount()) changes |= ACTIVE_COUNT;
+        if (completedCount() != previousState.completedCount()) changes |= COMPLETED_COUNT;
+        if (!dailyTrend().equals(previousState.dailyTrend())) changes |= DAILY_TREND;
+        if (!weeklyTrend().equals(previousState.weeklyTrend())) changes |= WEEKLY_TREND;
+        if (!Objects.equal(error(), previousState.error())) changes |= ERROR;
+        return changes;
+    }
+
     static StatisticsViewState idle() {
         return new AutoValue_StatisticsViewState.Builder().isLoading(false)
                 .activeCount(0)
                 .completedCount(0)
+                .dailyTrend(Collections.emptyList())
+                .weeklyTrend(Collections.emptyList())
                 .error(null)
                 .build();
     }
@@ -34,6 +69,10 @@ abstract class StatisticsViewState implements MviViewState {
 
         abstract Builder completedCount(int completedCount);
 
+        abstract Builder dailyTrend(List<TaskStatsPeriod> dailyTrend);
+
+        abstract Builder weeklyTrend(List<TaskStatsPeriod> weeklyTrend);
+
         abstract Builder error(@Nullable Throwable error);
 
         abstract StatisticsViewState build();
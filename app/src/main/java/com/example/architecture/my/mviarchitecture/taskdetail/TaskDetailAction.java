@@ -43,10 +43,4 @@ interface TaskDetailAction extends MviAction {
         }
     }
 
-    @AutoValue
-    abstract class GetLastState implements TaskDetailAction {
-        public static GetLastState create() {
-            return new AutoValue_TaskDetailAction_GetLastState();
-        }
-    }
 }
@@ -3,6 +3,9 @@ package com.example.architecture.my.mviarchitecture.taskdetail;
 import android.support.annotation.NonNull;
 
 import com.example.architecture.my.mviarchitecture.data.source.TasksRepository;
+import com.example.architecture.my.mviarchitecture.mvibase.MviActionRouter;
+import com.example.architecture.my.mviarchitecture.mvibase.MviKeyedExecutor;
+import com.example.architecture.my.mviarchitecture.mvibase.MviProcessors;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 
 import io.reactivex.Observable;
@@ -15,81 +18,70 @@ public class TaskDetailActionProcessorHolder {
     private TasksRepository mTasksRepository;
     @NonNull
     private BaseSchedulerProvider mSchedulerProvider;
+    @NonNull
+    private MviKeyedExecutor mTaskWriteExecutor;
 
     public TaskDetailActionProcessorHolder(@NonNull TasksRepository tasksRepository,
-                                           @NonNull BaseSchedulerProvider schedulerProvider) {
+                                           @NonNull BaseSchedulerProvider schedulerProvider,
+                                           @NonNull MviKeyedExecutor taskWriteExecutor) {
         this.mTasksRepository = checkNotNull(tasksRepository, "tasksRepository cannot be null");
         this.mSchedulerProvider = checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
-
+        this.mTaskWriteExecutor = checkNotNull(taskWriteExecutor, "taskWriteExecutor cannot be null");
     }
 
     private ObservableTransformer<TaskDetailAction.PopulateTask, TaskDetailResult.PopulateTask>
             populateTaskProcessor =
-            actions -> actions.flatMap(action -> mTasksRepository
+            MviProcessors.latest(action -> mTasksRepository
                     .getTask(action.taskId())
                     .toObservable()
                     .map(TaskDetailResult.PopulateTask::success)
                     .onErrorReturn(TaskDetailResult.PopulateTask::failure)
                     .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
                     .startWith(TaskDetailResult.PopulateTask.inFlight()));
 
 
-    private ObservableTransformer<TaskDetailAction.GetLastState, TaskDetailResult.GetLastState>
-            getLastStateProcessor =
-            actions -> actions.map(ignored -> TaskDetailResult.GetLastState.create());
-
+    /**
+     * Writes to the task are serialized with those of every other screen, and issued on
+     * subscription once their turn has come.
+     */
     private ObservableTransformer<TaskDetailAction.CompleteTask, TaskDetailResult.CompleteTaskResult>
-            completeTaskProcessor = actions -> actions.flatMap(
-            action -> mTasksRepository.completeTask(action.taskId())
+            completeTaskProcessor = actions -> actions.compose(MviProcessors.keyedSerial(
+            mTaskWriteExecutor,
+            TaskDetailAction.CompleteTask::taskId,
+            action -> Observable.defer(() -> mTasksRepository.completeTask(action.taskId())
                     .andThen(mTasksRepository.getTask(action.taskId()))
                     .toObservable()
                     .map(TaskDetailResult.CompleteTaskResult::success)
                     .onErrorReturn(TaskDetailResult.CompleteTaskResult::failure)
-                    .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
-                    .startWith(TaskDetailResult.CompleteTaskResult.inFlight()));
+                    .subscribeOn(mSchedulerProvider.io()))
+                    .startWith(TaskDetailResult.CompleteTaskResult.inFlight())));
 
     private ObservableTransformer<TaskDetailAction.ActivateTask, TaskDetailResult.ActivateTaskResult>
-            activateTaskProcessor = actions -> actions.flatMap(
-            action -> mTasksRepository.activateTask(action.taskId())
+            activateTaskProcessor = actions -> actions.compose(MviProcessors.keyedSerial(
+            mTaskWriteExecutor,
+            TaskDetailAction.ActivateTask::taskId,
+            action -> Observable.defer(() -> mTasksRepository.activateTask(action.taskId())
                     .andThen(mTasksRepository.getTask(action.taskId()))
                     .toObservable()
                     .map(TaskDetailResult.ActivateTaskResult::success)
                     .onErrorReturn(TaskDetailResult.ActivateTaskResult::failure)
-                    .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
-                    .startWith(TaskDetailResult.ActivateTaskResult.inFlight()));
+                    .subscribeOn(mSchedulerProvider.io()))
+                    .startWith(TaskDetailResult.ActivateTaskResult.inFlight())));
 
     private ObservableTransformer<TaskDetailAction.DeleteTask, TaskDetailResult.DeleteTaskResult>
-            deleteTaskProcessor = actions -> actions.flatMap(
-            action -> mTasksRepository.deleteTask(action.taskId())
-                    .andThen(Observable.just(TaskDetailResult.DeleteTaskResult.success()))
-                    .onErrorReturn(TaskDetailResult.DeleteTaskResult::failure)
-                    .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
+            deleteTaskProcessor = MviProcessors.dropWhileBusy(
+            action -> mTaskWriteExecutor.execute(action.taskId(), Observable.defer(
+                    () -> mTasksRepository.deleteTask(action.taskId())
+                            .andThen(Observable.just(TaskDetailResult.DeleteTaskResult.success()))
+                            .onErrorReturn(TaskDetailResult.DeleteTaskResult::failure)
+                            .subscribeOn(mSchedulerProvider.io())))
                     .startWith(TaskDetailResult.DeleteTaskResult.inFlight()));
 
     ObservableTransformer<TaskDetailAction, TaskDetailResult> actionProcessor =
-            actions -> actions.publish(shared -> Observable.merge(
-                    shared.ofType(TaskDetailAction.PopulateTask.class).compose(populateTaskProcessor),
-                    shared.ofType(TaskDetailAction.CompleteTask.class).compose(completeTaskProcessor),
-                    shared.ofType(TaskDetailAction.ActivateTask.class).compose(activateTaskProcessor))
-                    .mergeWith(
-                            Observable.merge(
-                                    shared.ofType(TaskDetailAction.DeleteTask.class).compose(deleteTaskProcessor),
-                                    shared.ofType(TaskDetailAction.GetLastState.class).compose(getLastStateProcessor))
-
-                    )
-                    .mergeWith(
-                            // Error for not implemented actions
-                            shared.filter(v -> !(v instanceof TaskDetailAction.PopulateTask) &&
-                                    !(v instanceof TaskDetailAction.CompleteTask) &&
-                                    !(v instanceof TaskDetailAction.ActivateTask) &&
-                                    !(v instanceof TaskDetailAction.DeleteTask) &&
-                                    !(v instanceof TaskDetailAction.GetLastState))
-                                    .flatMap(w -> Observable.error(
-                                            new IllegalArgumentException("Unknown Action type: " + w)))));
-
-
+            new MviActionRouter.Builder<TaskDetailAction, TaskDetailResult>()
+                    .on(TaskDetailAction.PopulateTask.class, populateTaskProcessor)
+                    .on(TaskDetailAction.CompleteTask.class, completeTaskProcessor)
+                    .on(TaskDetailAction.ActivateTask.class, activateTaskProcessor)
+                    .on(TaskDetailAction.DeleteTask.class, deleteTaskProcessor)
+                    .build();
 }
@@ -0,0 +1,27 @@
+package com.example.architecture.my.mviarchitecture.taskdetail;
+
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffect;
+import com.google.auto.value.AutoValue;
+
+interface TaskDetailEffect extends MviEffect {
+    @AutoValue
+    abstract class TaskCompleted implements TaskDetailEffect {
+        static TaskCompleted create() {
+            return new AutoValue_TaskDetailEffect_TaskCompleted();
+        }
+    }
+
+    @AutoValue
+    abstract class TaskActivated implements TaskDetailEffect {
+        static TaskActivated create() {
+            return new AutoValue_TaskDetailEffect_TaskActivated();
+        }
+    }
+
+    @AutoValue
+    abstract class TaskDeleted implements TaskDetailEffect {
+        static TaskDeleted create() {
+            return new AutoValue_TaskDetailEffect_TaskDeleted();
+        }
+    }
+}
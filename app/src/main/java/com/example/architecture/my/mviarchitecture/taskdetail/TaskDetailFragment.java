@@ -34,9 +34,11 @@ import android.view.ViewGroup;
 import android.widget.CheckBox;
 import android.widget.TextView;
 
+import com.example.architecture.my.mviarchitecture.Injection;
 import com.example.architecture.my.mviarchitecture.R;
 import com.example.architecture.my.mviarchitecture.addedittask.AddEditTaskActivity;
 import com.example.architecture.my.mviarchitecture.addedittask.AddEditTaskFragment;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFrameConflation;
 import com.example.architecture.my.mviarchitecture.mvibase.MviView;
 import com.example.architecture.my.mviarchitecture.util.ToDoViewModelFactory;
 import com.jakewharton.rxbinding2.view.RxView;
@@ -66,6 +68,8 @@ public class TaskDetailFragment extends Fragment implements MviView<TaskDetailIn
     TaskDetailViewModel mViewModel;
 
     private CompositeDisposable mDisposables = new CompositeDisposable();
+    @Nullable
+    private TaskDetailViewState mRenderedState;
     private PublishSubject<TaskDetailIntent.DeleteTask> mDeleteTaskIntentPublisher = PublishSubject.create();
 
     public static TaskDetailFragment newInstance(@Nullable String taskId) {
@@ -103,16 +107,20 @@ public class TaskDetailFragment extends Fragment implements MviView<TaskDetailIn
     }
 
     private void bind() {
-        mDisposables.add(mViewModel.states().subscribe(this::render));
-        mViewModel.processIntents(intents());
-
-        RxView.clicks(fab).debounce(200, TimeUnit.MILLISECONDS)
-                .subscribe(view -> showEditTask(getArgumentTaskId()));
+        mRenderedState = null;
+        mDisposables.add(mViewModel.states()
+                .compose(new MviFrameConflation<>(Injection.provideMviFrameClock()))
+                .subscribe(this::render));
+        mDisposables.add(mViewModel.effects().subscribe(this::handle));
+        mDisposables.add(mViewModel.processIntents(intents()));
+
+        mDisposables.add(RxView.clicks(fab).debounce(200, TimeUnit.MILLISECONDS)
+                .subscribe(view -> showEditTask(getArgumentTaskId())));
     }
 
     @Override
-    public void onDestroy() {
-        super.onDestroy();
+    public void onDestroyView() {
+        super.onDestroyView();
 
         mDisposables.dispose();
     }
@@ -152,35 +160,42 @@ public class TaskDetailFragment extends Fragment implements MviView<TaskDetailIn
 
     @Override
     public void render(TaskDetailViewState state) {
+        int changes = state.changes(mRenderedState);
+        mRenderedState = state;
 
-        setLoadingIndicator(state.loading());
-
-        if (!state.title().isEmpty()) {
-            showTitle(state.title());
-        } else {
-            hideTitle();
+        if ((changes & TaskDetailViewState.LOADING) != 0) {
+            setLoadingIndicator(state.loading());
         }
 
-        if (!state.description().isEmpty()) {
-            showDescription(state.description());
-        } else {
-            hideDescription();
+        if ((changes & TaskDetailViewState.TITLE) != 0) {
+            if (!state.title().isEmpty()) {
+                showTitle(state.title());
+            } else {
+                hideTitle();
+            }
         }
 
-        showActive(state.active());
-
-        if (state.taskComplete()){
-            showTaskMarkedComplete();
+        if ((changes & TaskDetailViewState.DESCRIPTION) != 0) {
+            if (!state.description().isEmpty()) {
+                showDescription(state.description());
+            } else {
+                hideDescription();
+            }
         }
 
-        if (state.taskActivated()){
-            showTaskMarkedActive();
+        if ((changes & TaskDetailViewState.ACTIVE) != 0) {
+            showActive(state.active());
         }
+    }
 
-        if (state.taskDeleted()){
+    private void handle(TaskDetailEffect effect) {
+        if (effect instanceof TaskDetailEffect.TaskCompleted) {
+            showTaskMarkedComplete();
+        } else if (effect instanceof TaskDetailEffect.TaskActivated) {
+            showTaskMarkedActive();
+        } else if (effect instanceof TaskDetailEffect.TaskDeleted) {
             showTaskDeleted();
         }
-
     }
 
     @Override
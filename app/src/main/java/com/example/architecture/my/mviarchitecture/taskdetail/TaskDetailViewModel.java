@@ -20,13 +20,20 @@ import android.arch.lifecycle.ViewModel;
 import android.support.annotation.NonNull;
 
 import com.example.architecture.my.mviarchitecture.data.Task;
-import com.example.architecture.my.mviarchitecture.mvibase.MviIntent;
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffectMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviIntentMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviMiddleware;
+import com.example.architecture.my.mviarchitecture.mvibase.MviResultReducer;
+import com.example.architecture.my.mviarchitecture.mvibase.MviStore;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewModel;
+import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
+
+import java.util.List;
 
 import io.reactivex.Observable;
-import io.reactivex.functions.BiFunction;
-import io.reactivex.subjects.PublishSubject;
+import io.reactivex.disposables.Disposable;
 
+import static com.example.architecture.my.mviarchitecture.mvibase.LceStatus.SUCCESS;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -36,161 +43,143 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class TaskDetailViewModel extends ViewModel
         implements MviViewModel<TaskDetailIntent, TaskDetailViewState> {
 
-    @NonNull
-    private PublishSubject<TaskDetailIntent> mIntentsSubject;
-    @NonNull
-    private PublishSubject<TaskDetailViewState> mStatesSubject;
     @NonNull
     private TaskDetailActionProcessorHolder mActionProcessorHolder;
+    @NonNull
+    private MviStore<TaskDetailIntent, TaskDetailAction, TaskDetailResult, TaskDetailViewState,
+            TaskDetailEffect> mStore;
 
     /**
      * Creates a presenter for the add/edit view.
      */
-    public TaskDetailViewModel(@NonNull TaskDetailActionProcessorHolder actionProcessorHolder) {
+    public TaskDetailViewModel(@NonNull TaskDetailActionProcessorHolder actionProcessorHolder,
+                               @NonNull BaseSchedulerProvider schedulerProvider,
+                               @NonNull List<MviMiddleware> middlewares) {
         mActionProcessorHolder = checkNotNull(actionProcessorHolder);
-
-        mIntentsSubject = PublishSubject.create();
-        mStatesSubject = PublishSubject.create();
-
-        compose().subscribe(this.mStatesSubject);
+        checkNotNull(schedulerProvider);
+        mStore = new MviStore.Builder<TaskDetailIntent, TaskDetailAction, TaskDetailResult, TaskDetailViewState,
+                TaskDetailEffect>()
+                .initialIntent(TaskDetailIntent.InitialIntent.class)
+                .actionFromIntent(actionFromIntent)
+                .actionProcessor(mActionProcessorHolder.actionProcessor)
+                .reducer(TaskDetailViewState.idle(), reducer)
+                .schedulers(schedulerProvider.state(), schedulerProvider.ui())
+                .effects(effectFromResult)
+                .middlewares(middlewares)
+                .build();
     }
 
     @Override
-    public void processIntents(Observable<TaskDetailIntent> intents) {
-        intents.subscribe(mIntentsSubject);
+    public Disposable processIntents(Observable<TaskDetailIntent> intents) {
+        return mStore.processIntents(intents);
     }
 
     @Override
     public Observable<TaskDetailViewState> states() {
-        return mStatesSubject;
+        return mStore.states();
     }
 
-    private Observable<TaskDetailViewState> compose() {
-        return mIntentsSubject.doOnNext(MviViewModel::logIntent)
-                .scan(initialIntentFilter)
-                .map(this::actionFromIntent)
-                .doOnNext(MviViewModel::logAction)
-                .compose(mActionProcessorHolder.actionProcessor)
-                .doOnNext(MviViewModel::logResult)
-                .scan(TaskDetailViewState.idle(), reducer)
-                .doOnNext(MviViewModel::logState);
+    @Override
+    public Observable<TaskDetailEffect> effects() {
+        return mStore.effects();
     }
 
-    private BiFunction<TaskDetailIntent, TaskDetailIntent, TaskDetailIntent> initialIntentFilter =
-            (previousIntent, newIntent) -> {
-                // if isReConnection (e.g. after config change)
-                // i.e. we are inside the scan, meaning there has already
-                // been intent in the past, meaning the InitialIntent cannot
-                // be the first => it is a reconnection.
-                if (newIntent instanceof TaskDetailIntent.InitialIntent) {
-                    return TaskDetailIntent.GetLastState.create();
-                } else {
-                    return newIntent;
-                }
-            };
-
-    private TaskDetailAction actionFromIntent(MviIntent intent) {
-        if (intent instanceof TaskDetailIntent.InitialIntent) {
-            String taskId = ((TaskDetailIntent.InitialIntent) intent).taskId();
-            checkNotNull(taskId);
-            return TaskDetailAction.PopulateTask.create(taskId);
-        }
-        if (intent instanceof TaskDetailIntent.DeleteTask) {
-            TaskDetailIntent.DeleteTask deleteTaskIntent = (TaskDetailIntent.DeleteTask) intent;
-            final String taskId = deleteTaskIntent.taskId();
-            return TaskDetailAction.DeleteTask.create(taskId);
-        }
+    @Override
+    protected void onCleared() {
+        mStore.dispose();
+    }
 
-        if (intent instanceof TaskDetailIntent.CompleteTaskIntent) {
-            TaskDetailIntent.CompleteTaskIntent completeTaskIntent = (TaskDetailIntent.CompleteTaskIntent) intent;
-            final String taskId = completeTaskIntent.taskId();
-            return TaskDetailAction.CompleteTask.create(taskId);
+    private static final MviIntentMapper<TaskDetailIntent, TaskDetailAction> actionFromIntent =
+            new MviIntentMapper.Builder<TaskDetailIntent, TaskDetailAction>()
+                    .on(TaskDetailIntent.InitialIntent.class,
+                            intent -> TaskDetailAction.PopulateTask.create(checkNotNull(intent.taskId())))
+                    .on(TaskDetailIntent.DeleteTask.class,
+                            intent -> TaskDetailAction.DeleteTask.create(intent.taskId()))
+                    .on(TaskDetailIntent.CompleteTaskIntent.class,
+                            intent -> TaskDetailAction.CompleteTask.create(intent.taskId()))
+                    .on(TaskDetailIntent.ActivateTaskIntent.class,
+                            intent -> TaskDetailAction.ActivateTask.create(intent.taskId()))
+                    .build();
+
+    private static final MviResultReducer<TaskDetailViewState, TaskDetailResult> reducer =
+            new MviResultReducer.Builder<TaskDetailViewState, TaskDetailResult>()
+                    .on(TaskDetailResult.PopulateTask.class, TaskDetailViewModel::reducePopulateTask)
+                    .on(TaskDetailResult.DeleteTaskResult.class, TaskDetailViewModel::reduceDeleteTask)
+                    .on(TaskDetailResult.ActivateTaskResult.class, TaskDetailViewModel::reduceActivateTask)
+                    .on(TaskDetailResult.CompleteTaskResult.class, TaskDetailViewModel::reduceCompleteTask)
+                    .build();
+
+    private static final MviEffectMapper<TaskDetailResult, TaskDetailEffect> effectFromResult =
+            new MviEffectMapper.Builder<TaskDetailResult, TaskDetailEffect>()
+                    .on(TaskDetailResult.CompleteTaskResult.class, result -> result.status() == SUCCESS
+                            ? TaskDetailEffect.TaskCompleted.create() : null)
+                    .on(TaskDetailResult.ActivateTaskResult.class, result -> result.status() == SUCCESS
+                            ? TaskDetailEffect.TaskActivated.create() : null)
+                    .on(TaskDetailResult.DeleteTaskResult.class, result -> result.status() == SUCCESS
+                            ? TaskDetailEffect.TaskDeleted.create() : null)
+                    .build();
+
+    private static TaskDetailViewState reducePopulateTask(TaskDetailViewState previousState,
+                                                          TaskDetailResult.PopulateTask populateTaskResult) {
+        TaskDetailViewState.Builder stateBuilder = previousState.buildWith();
+        switch (populateTaskResult.status()) {
+            case SUCCESS:
+                Task task = checkNotNull(populateTaskResult.task());
+                stateBuilder.title(task.getTitle());
+                stateBuilder.description(task.getDescription());
+                stateBuilder.active(task.isActive());
+                stateBuilder.loading(false);
+                return stateBuilder.build();
+            case FAILURE:
+                Throwable error = checkNotNull(populateTaskResult.error());
+                stateBuilder.loading(false);
+                return stateBuilder.error(error).build();
+            case IN_FLIGHT:
+                stateBuilder.loading(true);
+                return stateBuilder.build();
         }
+        throw new IllegalStateException("Mishandled result? Should not happen―as always: " + populateTaskResult);
+    }
 
-        if (intent instanceof TaskDetailIntent.ActivateTaskIntent) {
-            TaskDetailIntent.ActivateTaskIntent activateTaskIntent = (TaskDetailIntent.ActivateTaskIntent) intent;
-            final String taskId = activateTaskIntent.taskId();
-            return TaskDetailAction.ActivateTask.create(taskId);
+    private static TaskDetailViewState reduceDeleteTask(TaskDetailViewState previousState,
+                                                        TaskDetailResult.DeleteTaskResult deleteTaskResult) {
+        switch (deleteTaskResult.status()) {
+            case SUCCESS:
+                // the view is left with the TaskDeleted effect
+                return previousState;
+            case FAILURE:
+                return previousState.buildWith().error(deleteTaskResult.error()).build();
+            case IN_FLIGHT:
+                return previousState;
         }
+        throw new IllegalStateException("Mishandled result? Should not happen―as always: " + deleteTaskResult);
+    }
 
-        if (intent instanceof TaskDetailIntent.GetLastState) {
-            return TaskDetailAction.GetLastState.create();
+    private static TaskDetailViewState reduceActivateTask(TaskDetailViewState previousState,
+                                                          TaskDetailResult.ActivateTaskResult activateTaskResult) {
+        TaskDetailViewState.Builder stateBuilder = previousState.buildWith();
+        switch (activateTaskResult.status()) {
+            case SUCCESS:
+                return stateBuilder.active(checkNotNull(activateTaskResult.task()).isActive()).build();
+            case FAILURE:
+                return stateBuilder.error(activateTaskResult.error()).build();
+            case IN_FLIGHT:
+                return previousState;
         }
-        throw new IllegalArgumentException("do not know how to treat this intent " + intent);
+        throw new IllegalStateException("Mishandled result? Should not happen―as always: " + activateTaskResult);
     }
 
-    private static BiFunction<TaskDetailViewState, TaskDetailResult, TaskDetailViewState> reducer =
-            (previousState, result) -> {
-                TaskDetailViewState.Builder stateBuilder = previousState.buildWith();
-                if (result instanceof TaskDetailResult.GetLastState) {
-                    return stateBuilder.build();
-                }
-                if (result instanceof TaskDetailResult.PopulateTask) {
-                    TaskDetailResult.PopulateTask populateTaskResult =
-                            (TaskDetailResult.PopulateTask) result;
-                    switch (populateTaskResult.status()) {
-                        case SUCCESS:
-                            Task task = checkNotNull(populateTaskResult.task());
-                            stateBuilder.title(task.getTitle());
-                            stateBuilder.description(task.getDescription());
-                            stateBuilder.active(task.isActive());
-                            stateBuilder.loading(false);
-                            return stateBuilder.build();
-                        case FAILURE:
-                            Throwable error = checkNotNull(populateTaskResult.error());
-                            stateBuilder.loading(false);
-                            return stateBuilder.error(error).build();
-                        case IN_FLIGHT:
-                            stateBuilder.loading(true);
-                            return stateBuilder.build();
-                    }
-                }
-                if (result instanceof TaskDetailResult.DeleteTaskResult) {
-                    TaskDetailResult.DeleteTaskResult deleteTaskResult =
-                            (TaskDetailResult.DeleteTaskResult) result;
-                    switch (deleteTaskResult.status()) {
-                        case SUCCESS:
-                            return stateBuilder.taskDeleted(true).build();
-                        case FAILURE:
-                            return stateBuilder.taskDeleted(false).error(deleteTaskResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.taskDeleted(true).build();
-                    }
-                } else if (result instanceof TaskDetailResult.ActivateTaskResult) {
-                    TaskDetailResult.ActivateTaskResult activateTaskResult =
-                            (TaskDetailResult.ActivateTaskResult) result;
-                    switch (activateTaskResult.status()) {
-                        case SUCCESS:
-                            return stateBuilder
-                                    .taskActivated(true)
-                                    .active(true)
-                                    .build();
-
-                        case FAILURE:
-                            return stateBuilder
-                                    .taskActivated(false)
-                                    .error(activateTaskResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.taskActivated(true).build();
-                    }
-                } else if (result instanceof TaskDetailResult.CompleteTaskResult) {
-                    TaskDetailResult.CompleteTaskResult completeTaskResult =
-                            (TaskDetailResult.CompleteTaskResult) result;
-                    switch (completeTaskResult.status()) {
-                        case SUCCESS:
-                            return stateBuilder
-                                    .taskComplete(true)
-                                    .active(true)
-                                    .build();
-
-                        case FAILURE:
-                            return stateBuilder
-                                    .taskComplete(false)
-                                    .error(completeTaskResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.taskComplete(true).build();
-                    }
-                }
-                throw new IllegalStateException("Mishandled result? Should not happen―as always: " + result);
-            };
+    private static TaskDetailViewState reduceCompleteTask(TaskDetailViewState previousState,
+                                                          TaskDetailResult.CompleteTaskResult completeTaskResult) {
+        TaskDetailViewState.Builder stateBuilder = previousState.buildWith();
+        switch (completeTaskResult.status()) {
+            case SUCCESS:
+                return stateBuilder.active(checkNotNull(completeTaskResult.task()).isActive()).build();
+            case FAILURE:
+                return stateBuilder.error(completeTaskResult.error()).build();
+            case IN_FLIGHT:
+                return previousState;
+        }
+        throw new IllegalStateException("Mishandled result? Should not happen―as always: " + completeTaskResult);
+    }
 }
@@ -4,9 +4,16 @@ import android.support.annotation.Nullable;
 
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewState;
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Objects;
 
 @AutoValue
 abstract class TaskDetailViewState implements MviViewState {
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 1 << 1;
+    static final int ACTIVE = 1 << 2;
+    static final int LOADING = 1 << 3;
+    static final int ERROR = 1 << 4;
+    static final int ALL_FIELDS = ~0;
 
     abstract String title();
 
@@ -19,14 +26,23 @@ abstract class TaskDetailViewState implements MviViewState {
     @Nullable
     abstract Throwable error();
 
-    public abstract boolean taskComplete();
-
-    public abstract boolean taskActivated();
-
-    public abstract boolean taskDeleted();
-
     public abstract Builder buildWith();
 
+    /**
+     * Returns the bit set of the fields which differ from the given state, all of them if it is
+     * null.
+     */
+    int changes(@Nullable TaskDetailViewState previousState) {
+        if (previousState == null) return ALL_FIELDS;
+        int changes = 0;
+        if (!title().equals(previousState.title())) changes |= TITLE;
+        if (!description().equals(previousState.description())) changes |= DESCRIPTION;
+        if (active() != previousState.active()) changes |= ACTIVE;
+        if (loading() != previousState.loading()) changes |= LOADING;
+        if (!Objects.equal(error(), previousState.error())) changes |= ERROR;
+        return changes;
+    }
+
     static TaskDetailViewState idle() {
         return new AutoValue_TaskDetailViewState.Builder()
                 .title("")
@@ -34,9 +50,6 @@ abstract class TaskDetailViewState implements MviViewState {
                 .active(false)
                 .loading(false)
                 .error(null)
-                .taskComplete(false)
-                .taskActivated(false)
-                .taskDeleted(false)
                 .build();
     }
 
@@ -52,12 +65,6 @@ abstract class TaskDetailViewState implements MviViewState {
 
         abstract Builder error(@Nullable Throwable error);
 
-        abstract Builder taskComplete(boolean taskComplete);
-
-        abstract Builder taskActivated(boolean taskActivated);
-
-        abstract Builder taskDeleted(boolean taskDeleted);
-
         abstract TaskDetailViewState build();
     }
 }
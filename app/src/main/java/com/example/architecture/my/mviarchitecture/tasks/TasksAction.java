@@ -2,7 +2,7 @@ package com.example.architecture.my.mviarchitecture.tasks;
 
 import android.support.annotation.Nullable;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.mvibase.MviAction;
 import com.google.auto.value.AutoValue;
 
@@ -23,27 +23,20 @@ interface TasksAction extends MviAction {
         }
     }
 
-    @AutoValue
-    abstract class GetLastState implements TasksAction {
-        public static GetLastState create() {
-            return new AutoValue_TasksAction_GetLastState();
-        }
-    }
-
     @AutoValue
     abstract class ActivateTaskAction implements TasksAction {
-        abstract Task task();
+        abstract TaskSummary task();
 
-        public static ActivateTaskAction create(Task task) {
+        public static ActivateTaskAction create(TaskSummary task) {
             return new AutoValue_TasksAction_ActivateTaskAction(task);
         }
     }
 
     @AutoValue
     abstract class CompleteTaskAction implements TasksAction {
-        abstract Task task();
+        abstract TaskSummary task();
 
-        public static CompleteTaskAction create(Task task) {
+        public static CompleteTaskAction create(TaskSummary task) {
             return new AutoValue_TasksAction_CompleteTaskAction(task);
         }
     }
@@ -2,11 +2,18 @@ package com.example.architecture.my.mviarchitecture.tasks;
 
 import android.support.annotation.NonNull;
 
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.data.source.TasksRepository;
+import com.example.architecture.my.mviarchitecture.mvibase.MviActionRouter;
+import com.example.architecture.my.mviarchitecture.mvibase.MviKeyedExecutor;
+import com.example.architecture.my.mviarchitecture.mvibase.MviProcessors;
 import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 
+import java.util.List;
+
 import io.reactivex.Observable;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.Single;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -15,73 +22,99 @@ public class TasksActionProcessorHolder {
     private TasksRepository mTasksRepository;
     @NonNull
     private BaseSchedulerProvider mSchedulerProvider;
+    @NonNull
+    private MviKeyedExecutor mTaskWriteExecutor;
 
     public TasksActionProcessorHolder(@NonNull TasksRepository tasksRepository,
-                                      @NonNull BaseSchedulerProvider schedulerProvider) {
+                                      @NonNull BaseSchedulerProvider schedulerProvider,
+                                      @NonNull MviKeyedExecutor taskWriteExecutor) {
         this.mTasksRepository = checkNotNull(tasksRepository, "tasksRepository cannot be null");
         this.mSchedulerProvider = checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
+        this.mTaskWriteExecutor = checkNotNull(taskWriteExecutor, "taskWriteExecutor cannot be null");
     }
 
+    /**
+     * A refresh or filter change cancels the load in progress, which could otherwise complete
+     * after it and overwrite its result.
+     */
     private ObservableTransformer<TasksAction.LoadTasks, TasksResult.LoadTasks> loadTasksProcessor =
-            actions -> actions.flatMap(action -> mTasksRepository.getTasks(action.forceUpdate())
+            MviProcessors.latest(TasksActionProcessorHolder::coalesce, action -> loadTasks(action)
                     .toObservable()
-                    .map(tasks -> TasksResult.LoadTasks.success(tasks, action.filterType()))
                     .onErrorReturn(TasksResult.LoadTasks::failure)
                     .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
                     .startWith(TasksResult.LoadTasks.inFlight()));
 
-    private ObservableTransformer<TasksAction.GetLastState, TasksResult.GetLastState>
-            getLastStateProcessor = actions -> actions.map(ignored -> TasksResult.GetLastState.create());
+    /**
+     * A load cancelled by a newer one is folded into it: the update is still forced, and the filter
+     * still applied, if the cancelled load asked for it.
+     */
+    private static TasksAction.LoadTasks coalesce(TasksAction.LoadTasks cancelled,
+                                                  TasksAction.LoadTasks action) {
+        boolean forceUpdate = cancelled.forceUpdate() || action.forceUpdate();
+        TasksFilterType filterType =
+                action.filterType() != null ? action.filterType() : cancelled.filterType();
+        return filterType == null
+                ? TasksAction.LoadTasks.load(forceUpdate)
+                : TasksAction.LoadTasks.loadAndFilter(forceUpdate, filterType);
+    }
+
+    /**
+     * Archived tasks are only read when switching to the completed filter, which is the only one
+     * displaying them.
+     */
+    private Single<TasksResult.LoadTasks> loadTasks(TasksAction.LoadTasks action) {
+        Single<List<TaskSummary>> tasks = mTasksRepository.getTaskSummaries(action.forceUpdate());
+        if (action.filterType() != TasksFilterType.COMPLETED_TASKS) {
+            return tasks.map(loaded -> TasksResult.LoadTasks.success(loaded, action.filterType()));
+        }
+        return Single.zip(tasks, mTasksRepository.getArchivedTaskSummaries(),
+                (loaded, archived) -> TasksResult.LoadTasks.success(loaded, archived, action.filterType()));
+    }
 
+    /**
+     * Writes to a same task are serialized, whichever screen they come from; writes to different
+     * tasks run concurrently. The write is issued on subscription, once its turn has come.
+     * <p>
+     * The result only carries the written task: the tasks are not read again, and results of
+     * different tasks commute whatever order they arrive in.
+     */
     private ObservableTransformer<TasksAction.ActivateTaskAction, TasksResult.ActivateTaskResult>
-            activateTaskProcessor = actions -> actions.flatMap(
-            action -> mTasksRepository.activateTask(action.task())
-                    .andThen(mTasksRepository.getTasks())
-                    .toObservable()
-                    .map(TasksResult.ActivateTaskResult::success)
+            activateTaskProcessor = actions -> actions.compose(MviProcessors.keyedSerial(
+            mTaskWriteExecutor,
+            action -> action.task().getId(),
+            action -> Observable.defer(() -> mTasksRepository.activateTask(action.task().getId())
+                    .andThen(Observable.just(
+                            TasksResult.ActivateTaskResult.success(action.task().withCompleted(false))))
                     .onErrorReturn(TasksResult.ActivateTaskResult::failure)
-                    .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
-                    .startWith(TasksResult.ActivateTaskResult.inFlight()));
+                    .subscribeOn(mSchedulerProvider.io()))
+                    .startWith(TasksResult.ActivateTaskResult.inFlight())));
 
     private ObservableTransformer<TasksAction.CompleteTaskAction, TasksResult.CompleteTaskResult>
-            completeTaskProcessor = actions -> actions.flatMap(
-            action -> mTasksRepository.completeTask(action.task())
-                    .andThen(mTasksRepository.getTasks())
-                    .toObservable()
-                    .map(TasksResult.CompleteTaskResult::success)
+            completeTaskProcessor = actions -> actions.compose(MviProcessors.keyedSerial(
+            mTaskWriteExecutor,
+            action -> action.task().getId(),
+            action -> Observable.defer(() -> mTasksRepository.completeTask(action.task().getId())
+                    .andThen(Observable.just(
+                            TasksResult.CompleteTaskResult.success(action.task().withCompleted(true))))
                     .onErrorReturn(TasksResult.CompleteTaskResult::failure)
-                    .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
-                    .startWith(TasksResult.CompleteTaskResult.inFlight()));
+                    .subscribeOn(mSchedulerProvider.io()))
+                    .startWith(TasksResult.CompleteTaskResult.inFlight())));
 
     private ObservableTransformer<TasksAction.ClearCompletedTasksAction, TasksResult.ClearCompletedTasksResult>
-            clearCompletedTasksProcessor = actions -> actions.flatMap(
+            clearCompletedTasksProcessor = MviProcessors.dropWhileBusy(
             action -> mTasksRepository.clearCompletedTasks()
-                    .andThen(mTasksRepository.getTasks())
+                    .andThen(mTasksRepository.getTaskSummaries())
                     .toObservable()
                     .map(TasksResult.ClearCompletedTasksResult::success)
                     .onErrorReturn(TasksResult.ClearCompletedTasksResult::failure)
                     .subscribeOn(mSchedulerProvider.io())
-                    .observeOn(mSchedulerProvider.ui())
                     .startWith(TasksResult.ClearCompletedTasksResult.inFlight()));
 
     ObservableTransformer<TasksAction, TasksResult> actionProcessor =
-            (Observable<TasksAction> actions) -> actions.publish(shared -> Observable.merge(
-                    shared.ofType(TasksAction.LoadTasks.class).compose(loadTasksProcessor),
-                    shared.ofType(TasksAction.GetLastState.class).compose(getLastStateProcessor),
-                    shared.ofType(TasksAction.ActivateTaskAction.class).compose(activateTaskProcessor),
-                    shared.ofType(TasksAction.CompleteTaskAction.class).compose(completeTaskProcessor))
-                    .mergeWith(shared.ofType(TasksAction.ClearCompletedTasksAction.class)
-                            .compose(clearCompletedTasksProcessor))
-                    .mergeWith(
-                            // Error for not implemented actions
-                            shared.filter(v -> !(v instanceof TasksAction.LoadTasks)
-                                    && !(v instanceof TasksAction.GetLastState)
-                                    && !(v instanceof TasksAction.ActivateTaskAction)
-                                    && !(v instanceof TasksAction.CompleteTaskAction)
-                                    && !(v instanceof TasksAction.ClearCompletedTasksAction))
-                                    .flatMap(w -> Observable.error(
-                                            new IllegalArgumentException("Unknown Action type: " + w)))));
+            new MviActionRouter.Builder<TasksAction, TasksResult>()
+                    .on(TasksAction.LoadTasks.class, loadTasksProcessor)
+                    .on(TasksAction.ActivateTaskAction.class, activateTaskProcessor)
+                    .on(TasksAction.CompleteTaskAction.class, completeTaskProcessor)
+                    .on(TasksAction.ClearCompletedTasksAction.class, clearCompletedTasksProcessor)
+                    .build();
 }
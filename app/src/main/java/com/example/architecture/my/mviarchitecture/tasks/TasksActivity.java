@@ -26,6 +26,7 @@ import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.view.MenuItem;
 
+import com.example.architecture.my.mviarchitecture.Injection;
 import com.example.architecture.my.mviarchitecture.R;
 import com.example.architecture.my.mviarchitecture.statistics.StatisticsActivity;
 import com.example.architecture.my.mviarchitecture.util.ActivityUtils;
@@ -62,6 +63,18 @@ public class TasksActivity extends AppCompatActivity {
             ActivityUtils.addFragmentToActivity(getSupportFragmentManager(), tasksFragment,
                     R.id.contentFrame);
         }
+
+        if (savedInstanceState == null) {
+            // Archive old completed tasks once the list is up and the main thread is idle.
+            Injection.provideTasksArchiver(getApplicationContext()).scheduleAtIdle();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // debug builds keep the latest scheduler timings in a file, to be pulled with adb
+        Injection.dumpSchedulerDiagnostics(getApplicationContext());
     }
 
     @Override
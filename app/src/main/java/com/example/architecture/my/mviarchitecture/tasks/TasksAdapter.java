@@ -8,7 +8,7 @@ import android.widget.CheckBox;
 import android.widget.TextView;
 
 import com.example.architecture.my.mviarchitecture.R;
-import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 
 import java.util.List;
 
@@ -19,28 +19,28 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public class TasksAdapter extends BaseAdapter {
 
-    private PublishSubject<Task> mTaskClickObservable = PublishSubject.create();
-    private PublishSubject<Task> mTaskToggleObservable = PublishSubject.create();
-    private List<Task> mTasks;
+    private PublishSubject<TaskSummary> mTaskClickObservable = PublishSubject.create();
+    private PublishSubject<TaskSummary> mTaskToggleObservable = PublishSubject.create();
+    private List<TaskSummary> mTasks;
 
-    public TasksAdapter(List<Task> tasks) {
+    public TasksAdapter(List<TaskSummary> tasks) {
         setList(tasks);
     }
 
-    public void replaceData(List<Task> tasks) {
+    public void replaceData(List<TaskSummary> tasks) {
         setList(tasks);
         notifyDataSetChanged();
     }
 
-    Observable<Task> getTaskClickObservable() {
+    Observable<TaskSummary> getTaskClickObservable() {
         return mTaskClickObservable;
     }
 
-    Observable<Task> getTaskToggleObservable() {
+    Observable<TaskSummary> getTaskToggleObservable() {
         return mTaskToggleObservable;
     }
 
-    private void setList(List<Task> tasks) {
+    private void setList(List<TaskSummary> tasks) {
         this.mTasks = checkNotNull(tasks);
     }
 
@@ -50,7 +50,7 @@ public class TasksAdapter extends BaseAdapter {
     }
 
     @Override
-    public Task getItem(int position) {
+    public TaskSummary getItem(int position) {
         return mTasks.get(position);
     }
 
@@ -67,7 +67,7 @@ public class TasksAdapter extends BaseAdapter {
             rowView = inflater.inflate(R.layout.task_item, viewGroup, false);
         }
 
-        final Task task = getItem(position);
+        final TaskSummary task = getItem(position);
 
         TextView titleTV = (TextView) rowView.findViewById(R.id.title);
         titleTV.setText(task.getTitleForList());
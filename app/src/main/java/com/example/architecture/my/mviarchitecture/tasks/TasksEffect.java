@@ -0,0 +1,27 @@
+package com.example.architecture.my.mviarchitecture.tasks;
+
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffect;
+import com.google.auto.value.AutoValue;
+
+interface TasksEffect extends MviEffect {
+    @AutoValue
+    abstract class TaskCompleted implements TasksEffect {
+        static TaskCompleted create() {
+            return new AutoValue_TasksEffect_TaskCompleted();
+        }
+    }
+
+    @AutoValue
+    abstract class TaskActivated implements TasksEffect {
+        static TaskActivated create() {
+            return new AutoValue_TasksEffect_TaskActivated();
+        }
+    }
+
+    @AutoValue
+    abstract class CompletedTasksCleared implements TasksEffect {
+        static CompletedTasksCleared create() {
+            return new AutoValue_TasksEffect_CompletedTasksCleared();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import android.arch.lifecycle.LifecycleRegistry;
 import android.arch.lifecycle.LifecycleRegistryOwner;
 import android.arch.lifecycle.ViewModelProviders;
 import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.design.widget.FloatingActionButton;
@@ -39,9 +40,12 @@ import android.widget.LinearLayout;
 import android.widget.ListView;
 import android.widget.TextView;
 
+import com.example.architecture.my.mviarchitecture.Injection;
 import com.example.architecture.my.mviarchitecture.R;
 import com.example.architecture.my.mviarchitecture.addedittask.AddEditTaskActivity;
 import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.mvibase.MviFrameConflation;
+import com.example.architecture.my.mviarchitecture.mvibase.MviSelector;
 import com.example.architecture.my.mviarchitecture.mvibase.MviView;
 import com.example.architecture.my.mviarchitecture.taskdetail.TaskDetailActivity;
 import com.example.architecture.my.mviarchitecture.util.ToDoViewModelFactory;
@@ -79,7 +83,23 @@ public class TasksFragment extends Fragment
             PublishSubject.create();
     private PublishSubject<TasksIntent.ChangeFilterIntent> mChangeFilterIntentPublisher =
             PublishSubject.create();
-    private CompositeDisposable mDisposables = new CompositeDisposable();
+    private CompositeDisposable mDisposables;
+    /**
+     * Last state rendered on the current view, null until the first one.
+     */
+    @Nullable
+    private TasksViewState mRenderedState;
+    /**
+     * True if the tasks were not rendered for the last state, because of an error.
+     */
+    private boolean mTasksRenderPending;
+    /**
+     * Resources shown for a filter, looked up again only when the filter changes.
+     */
+    private final MviSelector<TasksFilterType, String> mFilterLabel =
+            new MviSelector<>(this::filterLabelOf);
+    private final MviSelector<TasksFilterType, NoTasks> mNoTasks =
+            new MviSelector<>(this::noTasksOf);
 
     public static TasksFragment newInstance() {
         return new TasksFragment();
@@ -97,12 +117,19 @@ public class TasksFragment extends Fragment
 
         mViewModel = ViewModelProviders.of(this, ToDoViewModelFactory.getInstance(getContext()))
                 .get(TasksViewModel.class);
+        mDisposables = new CompositeDisposable();
         bind();
     }
 
     private void bind() {
-        mDisposables.add(mViewModel.states().subscribe(this::render));
-        mViewModel.processIntents(intents());
+        // a new view has nothing rendered yet
+        mRenderedState = null;
+        mDisposables.add(mViewModel.states()
+                .compose(new MviFrameConflation<>(Injection.provideMviFrameClock()))
+                .subscribe(this::render));
+        mDisposables.add(mViewModel.effects().subscribe(this::handle));
+        mDisposables.add(mViewModel.droppedIntents().subscribe(this::onIntentDropped));
+        mDisposables.add(mViewModel.processIntents(intents()));
 
         mDisposables.add(
                 mListAdapter.getTaskClickObservable().subscribe(task -> showTaskDetailsUi(task.getId())));
@@ -117,8 +144,8 @@ public class TasksFragment extends Fragment
     }
 
     @Override
-    public void onDestroy() {
-        super.onDestroy();
+    public void onDestroyView() {
+        super.onDestroyView();
 
         mDisposables.dispose();
     }
@@ -200,47 +227,78 @@ public class TasksFragment extends Fragment
 
     @Override
     public void render(TasksViewState state) {
-        mSwipeRefreshLayout.setRefreshing(state.isLoading());
+        int changes = state.changes(mRenderedState);
+        mRenderedState = state;
+        if (changes == 0) return;
+
+        if ((changes & TasksViewState.IS_LOADING) != 0) {
+            mSwipeRefreshLayout.setRefreshing(state.isLoading());
+        }
         if (state.error() != null) {
-            showLoadingTasksError();
+            if ((changes & TasksViewState.ERROR) != 0) showLoadingTasksError();
+            mTasksRenderPending = true;
             return;
         }
 
-        if (state.taskActivated()) showMessage(getString(R.string.task_marked_active));
+        if (mTasksRenderPending
+                || (changes & (TasksViewState.TASKS | TasksViewState.TASKS_FILTER_TYPE)) != 0) {
+            mTasksRenderPending = false;
+            renderTasks(state);
+        }
+    }
 
-        if (state.taskComplete()) showMessage(getString(R.string.task_marked_complete));
+    private void handle(TasksEffect effect) {
+        if (effect instanceof TasksEffect.TaskActivated) {
+            showMessage(getString(R.string.task_marked_active));
+        } else if (effect instanceof TasksEffect.TaskCompleted) {
+            showMessage(getString(R.string.task_marked_complete));
+        } else if (effect instanceof TasksEffect.CompletedTasksCleared) {
+            showMessage(getString(R.string.completed_tasks_cleared));
+        }
+    }
 
-        if (state.completedTasksCleared()) showMessage(getString(R.string.completed_tasks_cleared));
+    private void onIntentDropped(TasksIntent intent) {
+        // a dropped swipe refresh loads nothing: stop the spinner it started
+        if (intent instanceof TasksIntent.RefreshIntent && mRenderedState != null) {
+            mSwipeRefreshLayout.setRefreshing(mRenderedState.isLoading());
+        }
+    }
 
+    private void renderTasks(TasksViewState state) {
         if (state.tasks().isEmpty()) {
-            switch (state.tasksFilterType()) {
-                case ACTIVE_TASKS:
-                    showNoActiveTasks();
-                    break;
-                case COMPLETED_TASKS:
-                    showNoCompletedTasks();
-                    break;
-                default:
-                    showNoTasks();
-                    break;
-            }
+            showNoTasksViews(mNoTasks.select(state.tasksFilterType()));
         } else {
             mListAdapter.replaceData(state.tasks());
 
             mTasksView.setVisibility(View.VISIBLE);
             mNoTasksView.setVisibility(View.GONE);
 
-            switch (state.tasksFilterType()) {
-                case ACTIVE_TASKS:
-                    showActiveFilterLabel();
-                    break;
-                case COMPLETED_TASKS:
-                    showCompletedFilterLabel();
-                    break;
-                default:
-                    showAllFilterLabel();
-                    break;
-            }
+            mFilteringLabelView.setText(mFilterLabel.select(state.tasksFilterType()));
+        }
+    }
+
+    private String filterLabelOf(TasksFilterType filterType) {
+        switch (filterType) {
+            case ACTIVE_TASKS:
+                return getString(R.string.label_active);
+            case COMPLETED_TASKS:
+                return getString(R.string.label_completed);
+            default:
+                return getString(R.string.label_all);
+        }
+    }
+
+    private NoTasks noTasksOf(TasksFilterType filterType) {
+        switch (filterType) {
+            case ACTIVE_TASKS:
+                return new NoTasks(getString(R.string.no_tasks_active),
+                        getResources().getDrawable(R.drawable.ic_check_circle_24dp), false);
+            case COMPLETED_TASKS:
+                return new NoTasks(getString(R.string.no_tasks_completed),
+                        getResources().getDrawable(R.drawable.ic_verified_user_24dp), false);
+            default:
+                return new NoTasks(getString(R.string.no_tasks_all),
+                        getResources().getDrawable(R.drawable.ic_assignment_turned_in_24dp), true);
         }
     }
 
@@ -305,44 +363,17 @@ public class TasksFragment extends Fragment
         });
     }
 
-    private void showNoActiveTasks() {
-        showNoTasksViews(getResources().getString(R.string.no_tasks_active),
-                R.drawable.ic_check_circle_24dp, false);
-    }
-
-    private void showNoTasks() {
-        showNoTasksViews(getResources().getString(R.string.no_tasks_all),
-                R.drawable.ic_assignment_turned_in_24dp, true);
-    }
-
-    private void showNoCompletedTasks() {
-        showNoTasksViews(getResources().getString(R.string.no_tasks_completed),
-                R.drawable.ic_verified_user_24dp, false);
-    }
-
     private void showSuccessfullySavedMessage() {
         showMessage(getString(R.string.successfully_saved_task_message));
     }
 
-    private void showNoTasksViews(String mainText, int iconRes, boolean showAddView) {
+    private void showNoTasksViews(NoTasks noTasks) {
         mTasksView.setVisibility(View.GONE);
         mNoTasksView.setVisibility(View.VISIBLE);
 
-        mNoTaskMainView.setText(mainText);
-        mNoTaskIcon.setImageDrawable(getResources().getDrawable(iconRes));
-        mNoTaskAddView.setVisibility(showAddView ? View.VISIBLE : View.GONE);
-    }
-
-    private void showActiveFilterLabel() {
-        mFilteringLabelView.setText(getResources().getString(R.string.label_active));
-    }
-
-    private void showCompletedFilterLabel() {
-        mFilteringLabelView.setText(getResources().getString(R.string.label_completed));
-    }
-
-    private void showAllFilterLabel() {
-        mFilteringLabelView.setText(getResources().getString(R.string.label_all));
+        mNoTaskMainView.setText(noTasks.mMainText);
+        mNoTaskIcon.setImageDrawable(noTasks.mIcon);
+        mNoTaskAddView.setVisibility(noTasks.mShowAddView ? View.VISIBLE : View.GONE);
     }
 
     private void showAddTask() {
@@ -361,4 +392,19 @@ public class TasksFragment extends Fragment
     private void showLoadingTasksError() {
         showMessage(getString(R.string.loading_tasks_error));
     }
+
+    /**
+     * What the views show when the current filter has no tasks.
+     */
+    private static final class NoTasks {
+        final String mMainText;
+        final Drawable mIcon;
+        final boolean mShowAddView;
+
+        NoTasks(String mainText, Drawable icon, boolean showAddView) {
+            mMainText = mainText;
+            mIcon = icon;
+            mShowAddView = showAddView;
+        }
+    }
 }
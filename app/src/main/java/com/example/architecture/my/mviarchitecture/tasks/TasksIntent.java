@@ -1,6 +1,6 @@
 package com.example.architecture.my.mviarchitecture.tasks;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.mvibase.MviIntent;
 import com.google.auto.value.AutoValue;
 
@@ -12,13 +12,6 @@ interface TasksIntent extends MviIntent {
         }
     }
 
-    @AutoValue
-    abstract class GetLastState implements TasksIntent {
-        public static GetLastState create() {
-            return new AutoValue_TasksIntent_GetLastState();
-        }
-    }
-
     @AutoValue
     abstract class RefreshIntent implements TasksIntent {
         abstract boolean forceUpdate();
@@ -30,18 +23,18 @@ interface TasksIntent extends MviIntent {
 
     @AutoValue
     abstract class ActivateTaskIntent implements TasksIntent {
-        abstract Task task();
+        abstract TaskSummary task();
 
-        public static ActivateTaskIntent create(Task task) {
+        public static ActivateTaskIntent create(TaskSummary task) {
             return new AutoValue_TasksIntent_ActivateTaskIntent(task);
         }
     }
 
     @AutoValue
     abstract class CompleteTaskIntent implements TasksIntent {
-        abstract Task task();
+        abstract TaskSummary task();
 
-        public static CompleteTaskIntent create(Task task) {
+        public static CompleteTaskIntent create(TaskSummary task) {
             return new AutoValue_TasksIntent_CompleteTaskIntent(task);
         }
     }
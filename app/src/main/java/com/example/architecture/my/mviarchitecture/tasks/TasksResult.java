@@ -2,7 +2,7 @@ package com.example.architecture.my.mviarchitecture.tasks;
 
 import android.support.annotation.NonNull;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.mvibase.LceStatus;
 import com.example.architecture.my.mviarchitecture.mvibase.MviResult;
 import com.google.auto.value.AutoValue;
@@ -22,7 +22,13 @@ interface TasksResult extends MviResult {
         abstract LceStatus status();
 
         @Nullable
-        abstract List<Task> tasks();
+        abstract List<TaskSummary> tasks();
+
+        /**
+         * Archived tasks, only loaded for the completed filter. Null when they were not loaded.
+         */
+        @Nullable
+        abstract List<TaskSummary> archivedTasks();
 
         @Nullable
         abstract TasksFilterType filterType();
@@ -31,25 +37,24 @@ interface TasksResult extends MviResult {
         abstract Throwable error();
 
         @NonNull
-        static LoadTasks success(@NonNull List<Task> tasks, @Nullable TasksFilterType filterType) {
-            return new AutoValue_TasksResult_LoadTasks(SUCCESS, tasks, filterType, null);
+        static LoadTasks success(@NonNull List<TaskSummary> tasks, @Nullable TasksFilterType filterType) {
+            return new AutoValue_TasksResult_LoadTasks(SUCCESS, tasks, null, filterType, null);
         }
 
         @NonNull
-        static LoadTasks failure(Throwable error) {
-            return new AutoValue_TasksResult_LoadTasks(FAILURE, null, null, error);
+        static LoadTasks success(@NonNull List<TaskSummary> tasks, @NonNull List<TaskSummary> archivedTasks,
+                                 @Nullable TasksFilterType filterType) {
+            return new AutoValue_TasksResult_LoadTasks(SUCCESS, tasks, archivedTasks, filterType, null);
         }
 
         @NonNull
-        static LoadTasks inFlight() {
-            return new AutoValue_TasksResult_LoadTasks(IN_FLIGHT, null, null, null);
+        static LoadTasks failure(Throwable error) {
+            return new AutoValue_TasksResult_LoadTasks(FAILURE, null, null, null, error);
         }
-    }
 
-    @AutoValue
-    abstract class GetLastState implements TasksResult {
-        static GetLastState create() {
-            return new AutoValue_TasksResult_GetLastState();
+        @NonNull
+        static LoadTasks inFlight() {
+            return new AutoValue_TasksResult_LoadTasks(IN_FLIGHT, null, null, null, null);
         }
     }
 
@@ -58,15 +63,18 @@ interface TasksResult extends MviResult {
         @NonNull
         abstract LceStatus status();
 
+        /**
+         * The task once activated, patched into the list in place of its previous version.
+         */
         @Nullable
-        abstract List<Task> tasks();
+        abstract TaskSummary task();
 
         @Nullable
         abstract Throwable error();
 
         @NonNull
-        static ActivateTaskResult success(@NonNull List<Task> tasks) {
-            return new AutoValue_TasksResult_ActivateTaskResult(SUCCESS, tasks, null);
+        static ActivateTaskResult success(@NonNull TaskSummary task) {
+            return new AutoValue_TasksResult_ActivateTaskResult(SUCCESS, task, null);
         }
 
         @NonNull
@@ -85,15 +93,18 @@ interface TasksResult extends MviResult {
         @NonNull
         abstract LceStatus status();
 
+        /**
+         * The task once completed, patched into the list in place of its previous version.
+         */
         @Nullable
-        abstract List<Task> tasks();
+        abstract TaskSummary task();
 
         @Nullable
         abstract Throwable error();
 
         @NonNull
-        static CompleteTaskResult success(@NonNull List<Task> tasks) {
-            return new AutoValue_TasksResult_CompleteTaskResult(SUCCESS, tasks, null);
+        static CompleteTaskResult success(@NonNull TaskSummary task) {
+            return new AutoValue_TasksResult_CompleteTaskResult(SUCCESS, task, null);
         }
 
         @NonNull
@@ -113,13 +124,13 @@ interface TasksResult extends MviResult {
         abstract LceStatus status();
 
         @Nullable
-        abstract List<Task> tasks();
+        abstract List<TaskSummary> tasks();
 
         @Nullable
         abstract Throwable error();
 
         @NonNull
-        static ClearCompletedTasksResult success(@NonNull List<Task> tasks) {
+        static ClearCompletedTasksResult success(@NonNull List<TaskSummary> tasks) {
             return new AutoValue_TasksResult_ClearCompletedTasksResult(SUCCESS, tasks, null);
         }
 
@@ -19,187 +19,304 @@ package com.example.architecture.my.mviarchitecture.tasks;
 import android.arch.lifecycle.ViewModel;
 import android.support.annotation.NonNull;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
-import com.example.architecture.my.mviarchitecture.mvibase.MviIntent;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
+import com.example.architecture.my.mviarchitecture.mvibase.MviBiSelector;
+import com.example.architecture.my.mviarchitecture.mvibase.MviEffectMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviIntentMapper;
+import com.example.architecture.my.mviarchitecture.mvibase.MviIntentPolicies;
+import com.example.architecture.my.mviarchitecture.mvibase.MviMiddleware;
+import com.example.architecture.my.mviarchitecture.mvibase.MviResultReducer;
+import com.example.architecture.my.mviarchitecture.mvibase.MviStore;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewModel;
+import com.example.architecture.my.mviarchitecture.util.Pair;
+import com.example.architecture.my.mviarchitecture.util.PersistentOrderedList;
+import com.example.architecture.my.mviarchitecture.util.schedulers.BaseSchedulerProvider;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Observable;
-import io.reactivex.functions.BiFunction;
-import io.reactivex.subjects.PublishSubject;
+import io.reactivex.disposables.Disposable;
 
+import static com.example.architecture.my.mviarchitecture.mvibase.LceStatus.SUCCESS;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Listens to user actions from the UI ({@link TasksFragment}), retrieves the data and updates the
  * UI as required.
  */
 public class TasksViewModel extends ViewModel implements MviViewModel<TasksIntent, TasksViewState> {
+    /**
+     * Collapses a burst of refreshes, e.g. swipes, into the last one, forced if any of
+     * them was.
+     */
+    private static final long REFRESH_DEBOUNCE_MILLIS = 250;
+    /**
+     * A refresh right after a load, e.g. the one of onResume on top of the initial intent, is
+     * dropped.
+     */
+    private static final long REFRESH_FRESHNESS_SECONDS = 2;
+    private static final long CLEAR_COMPLETED_THROTTLE_SECONDS = 1;
+
     @NonNull
-    private PublishSubject<TasksIntent> mIntentsSubject;
+    private TasksActionProcessorHolder mActionProcessorHolder;
     @NonNull
-    private PublishSubject<TasksViewState> mStatesSubject;
+    private MviIntentPolicies<TasksIntent> mIntentPolicies;
     @NonNull
-    private TasksActionProcessorHolder mActionProcessorHolder;
+    private MviStore<TasksIntent, TasksAction, TasksResult, TasksViewState,
+            TasksEffect> mStore;
 
-    public TasksViewModel(@NonNull TasksActionProcessorHolder taskActionProcessorHolder) {
+    public TasksViewModel(@NonNull TasksActionProcessorHolder taskActionProcessorHolder,
+                          @NonNull BaseSchedulerProvider schedulerProvider,
+                          @NonNull List<MviMiddleware> middlewares) {
         this.mActionProcessorHolder = checkNotNull(taskActionProcessorHolder, "taskActionProcessorHolder cannot be null");
-
-        mIntentsSubject = PublishSubject.create();
-        mStatesSubject = PublishSubject.create();
-
-        compose().subscribe(this.mStatesSubject);
+        checkNotNull(schedulerProvider, "schedulerProvider cannot be null");
+        mIntentPolicies = new MviIntentPolicies.Builder<TasksIntent>(schedulerProvider.ui())
+                .debounce(TasksIntent.RefreshIntent.class, REFRESH_DEBOUNCE_MILLIS, MILLISECONDS,
+                        (pending, next) -> TasksIntent.RefreshIntent.create(
+                                pending.forceUpdate() || next.forceUpdate()))
+                .freshFor(TasksIntent.RefreshIntent.class, REFRESH_FRESHNESS_SECONDS, SECONDS,
+                        TasksIntent.InitialIntent.class, TasksIntent.ChangeFilterIntent.class)
+                .exempt(TasksIntent.RefreshIntent.class, TasksIntent.RefreshIntent::forceUpdate)
+                .throttleFirst(TasksIntent.ClearCompletedTasksIntent.class,
+                        CLEAR_COMPLETED_THROTTLE_SECONDS, SECONDS)
+                .build();
+        mStore = new MviStore.Builder<TasksIntent, TasksAction, TasksResult, TasksViewState,
+                TasksEffect>()
+                .initialIntent(TasksIntent.InitialIntent.class)
+                .intentPolicies(mIntentPolicies)
+                .actionFromIntent(actionFromIntent)
+                .actionProcessor(mActionProcessorHolder.actionProcessor)
+                .reducer(TasksViewState.idle(), mReducer)
+                .schedulers(schedulerProvider.state(), schedulerProvider.ui())
+                .effects(effectFromResult)
+                .middlewares(middlewares)
+                .build();
     }
 
     @Override
-    public void processIntents(Observable<TasksIntent> intents) {
-        intents.subscribe(mIntentsSubject);
+    public Disposable processIntents(Observable<TasksIntent> intents) {
+        return mStore.processIntents(intents);
     }
 
     @Override
     public Observable<TasksViewState> states() {
-        return mStatesSubject;
+        return mStore.states();
     }
 
-    private Observable<TasksViewState> compose() {
-        return mIntentsSubject.doOnNext(MviViewModel::logIntent)
-                .scan(initialIntentFilter)
-                .map(this::actionFromIntent)
-                .doOnNext(MviViewModel::logAction)
-                .compose(mActionProcessorHolder.actionProcessor)
-                .doOnNext(MviViewModel::logResult)
-                .scan(TasksViewState.idle(), reducer)
-                .doOnNext(MviViewModel::logState);
+    @Override
+    public Observable<TasksEffect> effects() {
+        return mStore.effects();
+    }
+
+    /**
+     * Emits the intents dropped by the rate policies, on the main thread.
+     */
+    public Observable<TasksIntent> droppedIntents() {
+        return mIntentPolicies.dropped();
     }
 
-    private BiFunction<TasksIntent, TasksIntent, TasksIntent> initialIntentFilter =
-            (previousIntent, newIntent) -> {
-                // if isReConnection (e.g. after config change)
-                // i.e. we are inside the scan, meaning there has already
-                // been intent in the past, meaning the InitialIntent cannot
-                // be the first => it is a reconnection.
-                if (newIntent instanceof TasksIntent.InitialIntent) {
-                    return TasksIntent.GetLastState.create();
+    public long droppedIntentCount() {
+        return mIntentPolicies.droppedCount();
+    }
+
+    @Override
+    protected void onCleared() {
+        mStore.dispose();
+    }
+
+    private static final MviIntentMapper<TasksIntent, TasksAction> actionFromIntent =
+            new MviIntentMapper.Builder<TasksIntent, TasksAction>()
+                    .on(TasksIntent.InitialIntent.class,
+                            intent -> TasksAction.LoadTasks.loadAndFilter(true, TasksFilterType.ALL_TASKS))
+                    .on(TasksIntent.ChangeFilterIntent.class,
+                            intent -> TasksAction.LoadTasks.loadAndFilter(false, intent.filterType()))
+                    .on(TasksIntent.RefreshIntent.class,
+                            intent -> TasksAction.LoadTasks.load(intent.forceUpdate()))
+                    .on(TasksIntent.ActivateTaskIntent.class,
+                            intent -> TasksAction.ActivateTaskAction.create(intent.task()))
+                    .on(TasksIntent.CompleteTaskIntent.class,
+                            intent -> TasksAction.CompleteTaskAction.create(intent.task()))
+                    .on(TasksIntent.ClearCompletedTasksIntent.class,
+                            intent -> TasksAction.ClearCompletedTasksAction.create())
+                    .build();
+
+    private final MviResultReducer<TasksViewState, TasksResult> mReducer =
+            new MviResultReducer.Builder<TasksViewState, TasksResult>()
+                    .on(TasksResult.LoadTasks.class, this::reduceLoadTasks)
+                    .on(TasksResult.CompleteTaskResult.class, TasksViewModel::reduceCompleteTask)
+                    .on(TasksResult.ActivateTaskResult.class, TasksViewModel::reduceActivateTask)
+                    .on(TasksResult.ClearCompletedTasksResult.class, this::reduceClearCompletedTasks)
+                    .build();
+
+    /**
+     * Filtered tasks and task order of each filter, kept while the loaded tasks are the same
+     * instance: switching filters back and forth over an unchanged cache reuses them.
+     */
+    private final Map<TasksFilterType, MviBiSelector<List<TaskSummary>, List<TaskSummary>,
+            Pair<PersistentOrderedList<TaskSummary>, Map<String, Integer>>>> mFilteredTasks =
+            new EnumMap<>(TasksFilterType.class);
+
+    private static final MviEffectMapper<TasksResult, TasksEffect> effectFromResult =
+            new MviEffectMapper.Builder<TasksResult, TasksEffect>()
+                    .on(TasksResult.CompleteTaskResult.class, result -> result.status() == SUCCESS
+                            ? TasksEffect.TaskCompleted.create() : null)
+                    .on(TasksResult.ActivateTaskResult.class, result -> result.status() == SUCCESS
+                            ? TasksEffect.TaskActivated.create() : null)
+                    .on(TasksResult.ClearCompletedTasksResult.class, result -> result.status() == SUCCESS
+                            ? TasksEffect.CompletedTasksCleared.create() : null)
+                    .build();
+
+    private TasksViewState reduceLoadTasks(TasksViewState previousState,
+                                           TasksResult.LoadTasks loadResult) {
+        TasksViewState.Builder stateBuilder = previousState.buildWith();
+        switch (loadResult.status()) {
+            case SUCCESS:
+                TasksFilterType filterType = loadResult.filterType();
+                List<TaskSummary> archivedTasks;
+                if (filterType == null) {
+                    // plain refresh: the archive is not reloaded
+                    filterType = previousState.tasksFilterType();
+                    archivedTasks = previousState.archivedTasks();
+                } else if (loadResult.archivedTasks() != null) {
+                    archivedTasks = loadResult.archivedTasks();
                 } else {
-                    return newIntent;
+                    archivedTasks = Collections.emptyList();
                 }
-            };
-
-    private TasksAction actionFromIntent(MviIntent intent) {
-        if (intent instanceof TasksIntent.InitialIntent) {
-            return TasksAction.LoadTasks.loadAndFilter(true, TasksFilterType.ALL_TASKS);
+                return withFilteredTasks(stateBuilder, checkNotNull(loadResult.tasks()),
+                        archivedTasks, filterType)
+                        .isLoading(false)
+                        .archivedTasks(archivedTasks)
+                        .tasksFilterType(filterType)
+                        .build();
+            case FAILURE:
+                return stateBuilder.isLoading(false).error(loadResult.error()).build();
+            case IN_FLIGHT:
+                return stateBuilder.isLoading(true).build();
         }
-        if (intent instanceof TasksIntent.ChangeFilterIntent) {
-            return TasksAction.LoadTasks.loadAndFilter(false,
-                    ((TasksIntent.ChangeFilterIntent) intent).filterType());
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
+    }
+
+    private static TasksViewState reduceCompleteTask(TasksViewState previousState,
+                                                     TasksResult.CompleteTaskResult completeTaskResult) {
+        TasksViewState.Builder stateBuilder = previousState.buildWith();
+        switch (completeTaskResult.status()) {
+            case SUCCESS:
+                return patchTask(previousState, checkNotNull(completeTaskResult.task()));
+            case FAILURE:
+                return stateBuilder.error(completeTaskResult.error()).build();
+            case IN_FLIGHT:
+                return previousState;
         }
-        if (intent instanceof TasksIntent.RefreshIntent) {
-            return TasksAction.LoadTasks.load(((TasksIntent.RefreshIntent) intent).forceUpdate());
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
+    }
+
+    private static TasksViewState reduceActivateTask(TasksViewState previousState,
+                                                     TasksResult.ActivateTaskResult activateTaskResult) {
+        TasksViewState.Builder stateBuilder = previousState.buildWith();
+        switch (activateTaskResult.status()) {
+            case SUCCESS:
+                return patchTask(previousState, checkNotNull(activateTaskResult.task()));
+            case FAILURE:
+                return stateBuilder.error(activateTaskResult.error()).build();
+            case IN_FLIGHT:
+                return previousState;
         }
-        if (intent instanceof TasksIntent.GetLastState) {
-            return TasksAction.GetLastState.create();
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
+    }
+
+    private TasksViewState reduceClearCompletedTasks(
+            TasksViewState previousState, TasksResult.ClearCompletedTasksResult clearCompletedTasks) {
+        TasksViewState.Builder stateBuilder = previousState.buildWith();
+        switch (clearCompletedTasks.status()) {
+            case SUCCESS:
+                // clearing completed tasks empties the archive as well
+                return withFilteredTasks(stateBuilder, checkNotNull(clearCompletedTasks.tasks()),
+                        Collections.emptyList(), previousState.tasksFilterType())
+                        .archivedTasks(Collections.emptyList())
+                        .build();
+            case FAILURE:
+                return stateBuilder.error(clearCompletedTasks.error()).build();
+            case IN_FLIGHT:
+                return previousState;
         }
-        if (intent instanceof TasksIntent.ActivateTaskIntent) {
-            return TasksAction.ActivateTaskAction.create(
-                    ((TasksIntent.ActivateTaskIntent) intent).task());
+        throw new IllegalStateException("Mishandled result? Should not happen (as always)");
+    }
+
+    /**
+     * Sets the tasks shown by the filter, and the order of the loaded ones.
+     */
+    private TasksViewState.Builder withFilteredTasks(TasksViewState.Builder stateBuilder,
+                                                     @NonNull List<TaskSummary> tasks,
+                                                     @NonNull List<TaskSummary> archivedTasks,
+                                                     @NonNull TasksFilterType filterType) {
+        MviBiSelector<List<TaskSummary>, List<TaskSummary>,
+                Pair<PersistentOrderedList<TaskSummary>, Map<String, Integer>>> selector =
+                mFilteredTasks.get(filterType);
+        if (selector == null) {
+            selector = new MviBiSelector<>((loaded, archived) -> filterTasks(loaded, archived, filterType));
+            mFilteredTasks.put(filterType, selector);
         }
-        if (intent instanceof TasksIntent.CompleteTaskIntent) {
-            return TasksAction.CompleteTaskAction.create(
-                    ((TasksIntent.CompleteTaskIntent) intent).task());
+        Pair<PersistentOrderedList<TaskSummary>, Map<String, Integer>> filteredTasks =
+                selector.select(tasks, archivedTasks);
+        return stateBuilder.tasks(filteredTasks.first()).taskOrder(filteredTasks.second());
+    }
+
+    /**
+     * Returns the tasks shown by the filter, and the order of the loaded ones. Archived tasks are
+     * appended to the completed filter only, skipping any that was reactivated (and thus moved
+     * back to the main list) since the archive was loaded.
+     */
+    private static Pair<PersistentOrderedList<TaskSummary>, Map<String, Integer>> filterTasks(
+            @NonNull List<TaskSummary> tasks, @NonNull List<TaskSummary> archivedTasks,
+            @NonNull TasksFilterType filterType) {
+        Map<String, Integer> taskOrder = new HashMap<>(tasks.size() + archivedTasks.size());
+        PersistentOrderedList.Builder<TaskSummary> filteredTasks = new PersistentOrderedList.Builder<>();
+        int order = 0;
+        for (TaskSummary task : tasks) {
+            taskOrder.put(task.getId(), order);
+            if (isShown(task, filterType)) filteredTasks.add(order, task);
+            order++;
         }
-        if (intent instanceof TasksIntent.ClearCompletedTasksIntent) {
-            return TasksAction.ClearCompletedTasksAction.create();
+        if (filterType == TasksFilterType.COMPLETED_TASKS) {
+            for (TaskSummary task : archivedTasks) {
+                if (taskOrder.containsKey(task.getId())) continue;
+                taskOrder.put(task.getId(), order);
+                filteredTasks.add(order, task);
+                order++;
+            }
         }
-        throw new IllegalArgumentException("do not know how to treat this intent " + intent);
+        return Pair.create(filteredTasks.build(), Collections.unmodifiableMap(taskOrder));
     }
 
-    private static BiFunction<TasksViewState, TasksResult, TasksViewState> reducer =
-            (previousState, result) -> {
-                TasksViewState.Builder stateBuilder = previousState.buildWith();
-                if (result instanceof TasksResult.LoadTasks) {
-                    TasksResult.LoadTasks loadResult = (TasksResult.LoadTasks) result;
-                    switch (loadResult.status()) {
-                        case SUCCESS:
-                            TasksFilterType filterType = loadResult.filterType();
-                            if (filterType == null) {
-                                filterType = previousState.tasksFilterType();
-                            }
-                            List<Task> tasks = filteredTasks(checkNotNull(loadResult.tasks()), filterType);
-                            return stateBuilder.isLoading(false).tasks(tasks).tasksFilterType(filterType).build();
-                        case FAILURE:
-                            return stateBuilder.isLoading(false).error(loadResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.isLoading(true).build();
-                    }
-                } else if (result instanceof TasksResult.GetLastState) {
-                    return stateBuilder.build();
-                } else if (result instanceof TasksResult.CompleteTaskResult) {
-                    TasksResult.CompleteTaskResult completeTaskResult =
-                            (TasksResult.CompleteTaskResult) result;
-                    switch (completeTaskResult.status()) {
-                        case SUCCESS:
-                            List<Task> tasks = filteredTasks(checkNotNull(completeTaskResult.tasks()),
-                                    previousState.tasksFilterType());
-                            return stateBuilder.taskComplete(false).tasks(tasks).build();
-                        case FAILURE:
-                            return stateBuilder.taskComplete(false).error(completeTaskResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.taskComplete(true).build();
-                    }
-                } else if (result instanceof TasksResult.ActivateTaskResult) {
-                    TasksResult.ActivateTaskResult activateTaskResult =
-                            (TasksResult.ActivateTaskResult) result;
-                    switch (activateTaskResult.status()) {
-                        case SUCCESS:
-                            List<Task> tasks = filteredTasks(checkNotNull(activateTaskResult.tasks()),
-                                    previousState.tasksFilterType());
-                            return stateBuilder.taskActivated(false).tasks(tasks).build();
-                        case FAILURE:
-                            return stateBuilder.taskActivated(false).error(activateTaskResult.error()).build();
-                        case IN_FLIGHT:
-                            return stateBuilder.taskActivated(true).build();
-                    }
-                } else if (result instanceof TasksResult.ClearCompletedTasksResult) {
-                    TasksResult.ClearCompletedTasksResult clearCompletedTasks =
-                            (TasksResult.ClearCompletedTasksResult) result;
-                    switch (clearCompletedTasks.status()) {
-                        case SUCCESS:
-                            List<Task> tasks = filteredTasks(checkNotNull(clearCompletedTasks.tasks()),
-                                    previousState.tasksFilterType());
-                            return stateBuilder.completedTasksCleared(false).tasks(tasks).build();
-                        case FAILURE:
-                            return stateBuilder.completedTasksCleared(false)
-                                    .error(clearCompletedTasks.error())
-                                    .build();
-                        case IN_FLIGHT:
-                            return stateBuilder.completedTasksCleared(true).build();
-                    }
-                } else {
-                    throw new IllegalArgumentException("Don't know this result " + result);
-                }
-                throw new IllegalStateException("Mishandled result? Should not happen (as always)");
-            };
+    /**
+     * Replaces the task in the shown ones, in O(log n), the new list sharing all but O(log n)
+     * nodes with the previous one. It is removed if the filter no longer shows it, and inserted
+     * back at its place if the filter now does.
+     */
+    private static TasksViewState patchTask(TasksViewState previousState, @NonNull TaskSummary task) {
+        Integer order = previousState.taskOrder().get(task.getId());
+        // not loaded in the list yet: the next load shows it
+        if (order == null) return previousState;
+        PersistentOrderedList<TaskSummary> tasks = isShown(task, previousState.tasksFilterType())
+                ? previousState.tasks().with(order, task)
+                : previousState.tasks().without(order);
+        return previousState.buildWith().tasks(tasks).build();
+    }
 
-    private static List<Task> filteredTasks(@NonNull List<Task> tasks,
-                                            @NonNull TasksFilterType filterType) {
-        List<Task> filteredTasks = new ArrayList<>(tasks.size());
+    private static boolean isShown(@NonNull TaskSummary task, @NonNull TasksFilterType filterType) {
         switch (filterType) {
-            case ALL_TASKS:
-                filteredTasks.addAll(tasks);
-                break;
             case ACTIVE_TASKS:
-                for (Task task : tasks) {
-                    if (task.isActive()) filteredTasks.add(task);
-                }
-                break;
+                return task.isActive();
             case COMPLETED_TASKS:
-                for (Task task : tasks) {
-                    if (task.isCompleted()) filteredTasks.add(task);
-                }
-                break;
+                return task.isCompleted();
+            default:
+                return true;
         }
-        return filteredTasks;
     }
 }
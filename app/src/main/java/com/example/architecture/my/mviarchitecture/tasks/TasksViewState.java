@@ -2,42 +2,74 @@ package com.example.architecture.my.mviarchitecture.tasks;
 
 import android.support.annotation.Nullable;
 
-import com.example.architecture.my.mviarchitecture.data.Task;
+import com.example.architecture.my.mviarchitecture.data.TaskSummary;
 import com.example.architecture.my.mviarchitecture.mvibase.MviViewState;
+import com.example.architecture.my.mviarchitecture.util.PersistentOrderedList;
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Objects;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static com.example.architecture.my.mviarchitecture.tasks.TasksFilterType.ALL_TASKS;
 
 @AutoValue
 abstract class TasksViewState implements MviViewState {
+    static final int IS_LOADING = 1;
+    static final int TASKS_FILTER_TYPE = 1 << 1;
+    static final int TASKS = 1 << 2;
+    static final int ARCHIVED_TASKS = 1 << 3;
+    static final int ERROR = 1 << 4;
+    static final int ALL_FIELDS = ~0;
+
     public abstract boolean isLoading();
 
     public abstract TasksFilterType tasksFilterType();
 
-    public abstract List<Task> tasks();
-
-    @Nullable
-    abstract Throwable error();
+    /**
+     * Tasks shown by the filter, keyed by their order in {@link #taskOrder()}.
+     */
+    public abstract PersistentOrderedList<TaskSummary> tasks();
 
-    public abstract boolean taskComplete();
+    /**
+     * Order of every loaded task, by id: the position of the task in the loaded tasks, archived
+     * tasks coming after. Unchanged until the next load, so that a task can be patched in place.
+     */
+    abstract Map<String, Integer> taskOrder();
 
-    public abstract boolean taskActivated();
+    /**
+     * Archived tasks, loaded while the completed filter is selected and empty otherwise.
+     */
+    abstract List<TaskSummary> archivedTasks();
 
-    public abstract boolean completedTasksCleared();
+    @Nullable
+    abstract Throwable error();
 
     public abstract Builder buildWith();
 
+    /**
+     * Returns the bit set of the fields which differ from the given state, all of them if it is
+     * null.
+     */
+    int changes(@Nullable TasksViewState previousState) {
+        if (previousState == null) return ALL_FIELDS;
+        int changes = 0;
+        if (isLoading() != previousState.isLoading()) changes |= IS_LOADING;
+        if (tasksFilterType() != previousState.tasksFilterType()) changes |= TASKS_FILTER_TYPE;
+        if (!tasks().equals(previousState.tasks())) changes |= TASKS;
+        if (!archivedTasks().equals(previousState.archivedTasks())) changes |= ARCHIVED_TASKS;
+        if (!Objects.equal(error(), previousState.error())) changes |= ERROR;
+        return changes;
+    }
+
     static TasksViewState idle() {
         return new AutoValue_TasksViewState.Builder().isLoading(false)
                 .tasksFilterType(ALL_TASKS)
-                .tasks(Collections.emptyList())
+                .tasks(PersistentOrderedList.empty())
+                .taskOrder(Collections.emptyMap())
+                .archivedTasks(Collections.emptyList())
                 .error(null)
-                .taskComplete(false)
-                .taskActivated(false)
-                .completedTasksCleared(false)
                 .build();
     }
 
@@ -47,15 +79,13 @@ abstract class TasksViewState implements MviViewState {
 
         abstract Builder tasksFilterType(TasksFilterType tasksFilterType);
 
-        abstract Builder tasks(@Nullable List<Task> tasks);
+        abstract Builder tasks(PersistentOrderedList<TaskSummary> tasks);
 
-        abstract Builder error(@Nullable Throwable error);
+        abstract Builder taskOrder(Map<String, Integer> taskOrder);
 
-        abstract Builder taskComplete(boolean taskComplete);
+        abstract Builder archivedTasks(List<TaskSummary> archivedTasks);
 
-        abstract Builder taskActivated(boolean taskActivated);
-
-        abstract Builder completedTasksCleared(boolean completedTasksCleared);
+        abstract Builder error(@Nullable Throwable error);
 
         abstract TasksViewState build();
     }
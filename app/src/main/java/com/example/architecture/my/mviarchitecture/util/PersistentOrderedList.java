@@ -0,0 +1,348 @@
+package com.example.architecture.my.mviarchitecture.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Immutable list whose elements are each given an int key, and kept sorted by it.
+ * <p>
+ * Backed by a balanced tree: reading an element by index, or putting or removing one by key,
+ * takes O(log n). Putting or removing returns a new list sharing all the tree with this one but
+ * the O(log n) nodes on the path to the element, so that nothing is copied. Comparing two lists
+ * sharing most of their nodes skips the shared ones.
+ */
+public final class PersistentOrderedList<E> extends AbstractList<E> {
+    private static final PersistentOrderedList<?> EMPTY = new PersistentOrderedList<>(null);
+
+    @Nullable
+    private final Node<E> mRoot;
+
+    private PersistentOrderedList(@Nullable Node<E> root) {
+        mRoot = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <E> PersistentOrderedList<E> empty() {
+        return (PersistentOrderedList<E>) EMPTY;
+    }
+
+    @Override
+    public int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public E get(int index) {
+        checkElementIndex(index, size());
+        Node<E> node = mRoot;
+        while (true) {
+            int leftSize = size(node.mLeft);
+            if (index < leftSize) {
+                node = node.mLeft;
+            } else if (index == leftSize) {
+                return node.mValue;
+            } else {
+                index -= leftSize + 1;
+                node = node.mRight;
+            }
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Returns the element of the given key, null if there is none.
+     */
+    @Nullable
+    public E getByKey(int key) {
+        Node<E> node = find(key);
+        return node == null ? null : node.mValue;
+    }
+
+    /**
+     * Returns this list with the element of the given key replaced, or inserted at its place if
+     * there is none.
+     */
+    @NonNull
+    public PersistentOrderedList<E> with(int key, E value) {
+        Node<E> root = put(mRoot, key, value);
+        return root == mRoot ? this : new PersistentOrderedList<>(root);
+    }
+
+    /**
+     * Returns this list without the element of the given key, this list if there is none.
+     */
+    @NonNull
+    public PersistentOrderedList<E> without(int key) {
+        Node<E> root = remove(mRoot, key);
+        return root == mRoot ? this : new PersistentOrderedList<>(root);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Cursor<E> mCursor = new Cursor<>(mRoot);
+
+            @Override
+            public boolean hasNext() {
+                return !mCursor.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (mCursor.isEmpty()) throw new NoSuchElementException();
+                while (mCursor.topIsTree()) mCursor.expand();
+                return mCursor.popElement();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof PersistentOrderedList)) return super.equals(o);
+        PersistentOrderedList<?> other = (PersistentOrderedList<?>) o;
+        if (size() != other.size()) return false;
+        Cursor<?> cursor = new Cursor<>(mRoot);
+        Cursor<?> otherCursor = new Cursor<>(other.mRoot);
+        while (!cursor.isEmpty()) {
+            if (cursor.topIsTree() && otherCursor.topIsTree()) {
+                Node<?> tree = cursor.top();
+                Node<?> otherTree = otherCursor.top();
+                if (tree == otherTree) {
+                    // shared subtree, at the same index in both lists
+                    cursor.pop();
+                    otherCursor.pop();
+                } else if (tree.mSize >= otherTree.mSize) {
+                    cursor.expand();
+                } else {
+                    otherCursor.expand();
+                }
+            } else if (cursor.topIsTree()) {
+                cursor.expand();
+            } else if (otherCursor.topIsTree()) {
+                otherCursor.expand();
+            } else if (!Objects.equal(cursor.popElement(), otherCursor.popElement())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Builds a list from elements added by increasing key, in O(n).
+     */
+    public static final class Builder<E> {
+        private int[] mKeys = new int[16];
+        private Object[] mValues = new Object[16];
+        private int mSize;
+
+        @NonNull
+        public Builder<E> add(int key, E value) {
+            checkArgument(mSize == 0 || key > mKeys[mSize - 1], "keys must be increasing");
+            if (mSize == mKeys.length) {
+                int[] keys = new int[mSize * 2];
+                Object[] values = new Object[mSize * 2];
+                System.arraycopy(mKeys, 0, keys, 0, mSize);
+                System.arraycopy(mValues, 0, values, 0, mSize);
+                mKeys = keys;
+                mValues = values;
+            }
+            mKeys[mSize] = key;
+            mValues[mSize] = value;
+            mSize++;
+            return this;
+        }
+
+        @NonNull
+        public PersistentOrderedList<E> build() {
+            if (mSize == 0) return empty();
+            return new PersistentOrderedList<>(balanced(0, mSize));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        private Node<E> balanced(int from, int to) {
+            if (from == to) return null;
+            int middle = (from + to) >>> 1;
+            return new Node<>(mKeys[middle], (E) mValues[middle],
+                    balanced(from, middle), balanced(middle + 1, to));
+        }
+    }
+
+    private static final class Node<E> {
+        final int mKey;
+        final E mValue;
+        @Nullable
+        final Node<E> mLeft;
+        @Nullable
+        final Node<E> mRight;
+        final int mSize;
+        final int mHeight;
+
+        Node(int key, E value, @Nullable Node<E> left, @Nullable Node<E> right) {
+            mKey = key;
+            mValue = value;
+            mLeft = left;
+            mRight = right;
+            mSize = size(left) + size(right) + 1;
+            mHeight = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    /**
+     * In-order walk over subtrees and elements: a subtree is either skipped whole, or expanded
+     * into its left subtree, its own element and its right subtree.
+     */
+    private static final class Cursor<E> {
+        @NonNull
+        private final Object[] mNodes;
+        @NonNull
+        private final boolean[] mIsTree;
+        private int mDepth;
+
+        Cursor(@Nullable Node<E> root) {
+            // each expansion replaces an entry by three
+            int capacity = 2 * height(root) + 1;
+            mNodes = new Object[capacity];
+            mIsTree = new boolean[capacity];
+            if (root != null) push(root, true);
+        }
+
+        boolean isEmpty() {
+            return mDepth == 0;
+        }
+
+        boolean topIsTree() {
+            return mIsTree[mDepth - 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<E> top() {
+            return (Node<E>) mNodes[mDepth - 1];
+        }
+
+        void pop() {
+            mNodes[--mDepth] = null;
+        }
+
+        E popElement() {
+            E value = top().mValue;
+            pop();
+            return value;
+        }
+
+        void expand() {
+            Node<E> node = top();
+            pop();
+            if (node.mRight != null) push(node.mRight, true);
+            push(node, false);
+            if (node.mLeft != null) push(node.mLeft, true);
+        }
+
+        private void push(@NonNull Node<E> node, boolean isTree) {
+            mNodes[mDepth] = node;
+            mIsTree[mDepth] = isTree;
+            mDepth++;
+        }
+    }
+
+    @Nullable
+    private Node<E> find(int key) {
+        Node<E> node = mRoot;
+        while (node != null) {
+            if (key == node.mKey) return node;
+            node = key < node.mKey ? node.mLeft : node.mRight;
+        }
+        return null;
+    }
+
+    private static int size(@Nullable Node<?> node) {
+        return node == null ? 0 : node.mSize;
+    }
+
+    private static int height(@Nullable Node<?> node) {
+        return node == null ? 0 : node.mHeight;
+    }
+
+    @NonNull
+    private static <E> Node<E> put(@Nullable Node<E> node, int key, E value) {
+        if (node == null) return new Node<>(key, value, null, null);
+        if (key < node.mKey) {
+            Node<E> left = put(node.mLeft, key, value);
+            return left == node.mLeft ? node : balance(node.mKey, node.mValue, left, node.mRight);
+        }
+        if (key > node.mKey) {
+            Node<E> right = put(node.mRight, key, value);
+            return right == node.mRight ? node : balance(node.mKey, node.mValue, node.mLeft, right);
+        }
+        return node.mValue == value ? node : new Node<>(key, value, node.mLeft, node.mRight);
+    }
+
+    @Nullable
+    private static <E> Node<E> remove(@Nullable Node<E> node, int key) {
+        if (node == null) return null;
+        if (key < node.mKey) {
+            Node<E> left = remove(node.mLeft, key);
+            return left == node.mLeft ? node : balance(node.mKey, node.mValue, left, node.mRight);
+        }
+        if (key > node.mKey) {
+            Node<E> right = remove(node.mRight, key);
+            return right == node.mRight ? node : balance(node.mKey, node.mValue, node.mLeft, right);
+        }
+        if (node.mLeft == null) return node.mRight;
+        if (node.mRight == null) return node.mLeft;
+        Node<E> first = node.mRight;
+        while (first.mLeft != null) first = first.mLeft;
+        return balance(first.mKey, first.mValue, node.mLeft, remove(node.mRight, first.mKey));
+    }
+
+    /**
+     * Returns a node of the given key, value and children, rotated if their heights differ by
+     * two.
+     */
+    @NonNull
+    private static <E> Node<E> balance(int key, E value, @Nullable Node<E> left,
+                                       @Nullable Node<E> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.mLeft) >= height(left.mRight)) {
+                return new Node<>(left.mKey, left.mValue, left.mLeft,
+                        new Node<>(key, value, left.mRight, right));
+            }
+            Node<E> pivot = left.mRight;
+            return new Node<>(pivot.mKey, pivot.mValue,
+                    new Node<>(left.mKey, left.mValue, left.mLeft, pivot.mLeft),
+                    new Node<>(key, value, pivot.mRight, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.mRight) >= height(right.mLeft)) {
+                return new Node<>(right.mKey, right.mValue,
+                        new Node<>(key, value, left, right.mLeft), right.mRight);
+            }
+            Node<E> pivot = right.mLeft;
+            return new Node<>(pivot.mKey, pivot.mValue,
+                    new Node<>(key, value, left, pivot.mLeft),
+                    new Node<>(right.mKey, right.mValue, pivot.mRight, right.mRight));
+        }
+        return new Node<>(key, value, left, right);
+    }
+}
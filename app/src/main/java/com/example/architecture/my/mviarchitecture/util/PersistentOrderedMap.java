@@ -0,0 +1,141 @@
+package com.example.architecture.my.mviarchitecture.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.common.base.Objects;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable map keeping its values in insertion order, like a {@link java.util.LinkedHashMap}
+ * which would be copied on every write, without the copy.
+ * <p>
+ * Putting or removing a value takes O(log n) and returns a new map sharing all but O(log n)
+ * nodes with this one. {@link #values()} is the map's own immutable list, so that a snapshot of
+ * the map costs nothing.
+ */
+public final class PersistentOrderedMap<K, V> {
+    private static final PersistentOrderedMap<?, ?> EMPTY = new PersistentOrderedMap<>(
+            PersistentOrderedList.empty(), PersistentOrderedList.empty(), 0);
+
+    /**
+     * Insertion order of the keys, by key hash code.
+     */
+    @NonNull
+    private final PersistentOrderedList<Entry<K>> mOrders;
+    /**
+     * Values, by insertion order.
+     */
+    @NonNull
+    private final PersistentOrderedList<V> mValues;
+    private final int mNextOrder;
+
+    private PersistentOrderedMap(@NonNull PersistentOrderedList<Entry<K>> orders,
+                                 @NonNull PersistentOrderedList<V> values, int nextOrder) {
+        mOrders = orders;
+        mValues = values;
+        mNextOrder = nextOrder;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public static <K, V> PersistentOrderedMap<K, V> empty() {
+        return (PersistentOrderedMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return mValues.size();
+    }
+
+    public boolean isEmpty() {
+        return mValues.isEmpty();
+    }
+
+    public boolean containsKey(@NonNull K key) {
+        return orderOf(key) != null;
+    }
+
+    @Nullable
+    public V get(@NonNull K key) {
+        Integer order = orderOf(key);
+        return order == null ? null : mValues.getByKey(order);
+    }
+
+    /**
+     * Values in insertion order: a value replaced keeps the place of the previous one.
+     */
+    @NonNull
+    public List<V> values() {
+        return mValues;
+    }
+
+    /**
+     * Returns this map with the given value for the key.
+     */
+    @NonNull
+    public PersistentOrderedMap<K, V> with(@NonNull K key, @NonNull V value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        Integer order = orderOf(key);
+        if (order != null) {
+            PersistentOrderedList<V> values = mValues.with(order, value);
+            return values == mValues ? this : new PersistentOrderedMap<>(mOrders, values, mNextOrder);
+        }
+        int hash = key.hashCode();
+        Entry<K> entry = new Entry<>(key, mNextOrder, mOrders.getByKey(hash));
+        return new PersistentOrderedMap<>(mOrders.with(hash, entry),
+                mValues.with(mNextOrder, value), mNextOrder + 1);
+    }
+
+    /**
+     * Returns this map without the key, this map if it has no value for it.
+     */
+    @NonNull
+    public PersistentOrderedMap<K, V> without(@NonNull K key) {
+        Integer order = orderOf(key);
+        if (order == null) return this;
+        int hash = key.hashCode();
+        Entry<K> entries = Entry.without(mOrders.getByKey(hash), key);
+        PersistentOrderedList<Entry<K>> orders =
+                entries == null ? mOrders.without(hash) : mOrders.with(hash, entries);
+        if (orders.isEmpty()) return empty();
+        return new PersistentOrderedMap<>(orders, mValues.without(order), mNextOrder);
+    }
+
+    @Nullable
+    private Integer orderOf(@NonNull K key) {
+        for (Entry<K> entry = mOrders.getByKey(key.hashCode()); entry != null;
+             entry = entry.mNext) {
+            if (Objects.equal(entry.mKey, key)) return entry.mOrder;
+        }
+        return null;
+    }
+
+    /**
+     * Insertion order of a key, chained to those of the other keys with the same hash code.
+     */
+    private static final class Entry<K> {
+        @NonNull
+        final K mKey;
+        final int mOrder;
+        @Nullable
+        final Entry<K> mNext;
+
+        Entry(@NonNull K key, int order, @Nullable Entry<K> next) {
+            mKey = key;
+            mOrder = order;
+            mNext = next;
+        }
+
+        @Nullable
+        static <K> Entry<K> without(@Nullable Entry<K> entry, @NonNull K key) {
+            if (entry == null) return null;
+            if (Objects.equal(entry.mKey, key)) return entry.mNext;
+            Entry<K> next = without(entry.mNext, key);
+            return next == entry.mNext ? entry : new Entry<>(entry.mKey, entry.mOrder, next);
+        }
+    }
+}
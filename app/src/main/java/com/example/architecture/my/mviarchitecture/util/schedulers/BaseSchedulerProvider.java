@@ -17,4 +17,11 @@ public interface BaseSchedulerProvider {
 
     @NonNull
     Scheduler ui();
+
+    /**
+     * Single thread running its tasks in the order they are scheduled, which the MVI stores
+     * reduce their results on.
+     */
+    @NonNull
+    Scheduler state();
 }
@@ -27,4 +27,10 @@ public class ImmediateSchedulerProvider implements BaseSchedulerProvider {
     public Scheduler ui() {
         return Schedulers.trampoline();
     }
+
+    @NonNull
+    @Override
+    public Scheduler state() {
+        return Schedulers.trampoline();
+    }
 }
@@ -0,0 +1,247 @@
+package com.example.architecture.my.mviarchitecture.util.schedulers;
+
+import android.support.annotation.NonNull;
+
+import com.example.architecture.my.mviarchitecture.mvibase.MviActionContext;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decorates the schedulers of another provider, timing every task they run: how long it waited
+ * in the queue past its due time, and how long it ran, in histograms by scheduler and by class of
+ * the action the task works for, see {@link MviActionContext}.
+ * <p>
+ * A task scheduled for no action is counted under {@link #NO_ACTION}. A task scheduled by another
+ * one works for the same action, so that e.g. the hop of a result from io to the state thread is
+ * counted under the action the io work was for.
+ */
+public final class InstrumentedSchedulerProvider implements BaseSchedulerProvider {
+    public static final String NO_ACTION = "-";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    @NonNull
+    private final InstrumentedScheduler mComputation;
+    @NonNull
+    private final InstrumentedScheduler mIo;
+    @NonNull
+    private final InstrumentedScheduler mUi;
+    @NonNull
+    private final InstrumentedScheduler mState;
+    @NonNull
+    private final InstrumentedScheduler[] mSchedulers;
+
+    public InstrumentedSchedulerProvider(@NonNull BaseSchedulerProvider schedulerProvider) {
+        checkNotNull(schedulerProvider);
+        mComputation = new InstrumentedScheduler("computation", schedulerProvider.computation());
+        mIo = new InstrumentedScheduler("io", schedulerProvider.io());
+        mUi = new InstrumentedScheduler("ui", schedulerProvider.ui());
+        mState = new InstrumentedScheduler("state", schedulerProvider.state());
+        mSchedulers = new InstrumentedScheduler[]{mComputation, mIo, mUi, mState};
+    }
+
+    @NonNull
+    @Override
+    public Scheduler computation() {
+        return mComputation;
+    }
+
+    @NonNull
+    @Override
+    public Scheduler io() {
+        return mIo;
+    }
+
+    @NonNull
+    @Override
+    public Scheduler ui() {
+        return mUi;
+    }
+
+    @NonNull
+    @Override
+    public Scheduler state() {
+        return mState;
+    }
+
+    public interface Visitor {
+        void visit(@NonNull String scheduler, @NonNull String actionType,
+                   @NonNull LatencyHistogram queueWait, @NonNull LatencyHistogram runTime);
+    }
+
+    /**
+     * Visits the histograms of every scheduler and action type a task ran for so far.
+     */
+    public void forEach(@NonNull Visitor visitor) {
+        checkNotNull(visitor);
+        for (InstrumentedScheduler scheduler : mSchedulers) {
+            Timings noAction = scheduler.mNoAction;
+            if (noAction.mQueueWait.count() > 0) {
+                visitor.visit(scheduler.mName, NO_ACTION, noAction.mQueueWait, noAction.mRunTime);
+            }
+            for (Map.Entry<Class<?>, Timings> entry : scheduler.mTimings.entrySet()) {
+                Timings timings = entry.getValue();
+                visitor.visit(scheduler.mName, MviActionContext.nameOf(entry.getKey()),
+                        timings.mQueueWait, timings.mRunTime);
+            }
+        }
+    }
+
+    public void reset() {
+        forEach((scheduler, actionType, queueWait, runTime) -> {
+            queueWait.reset();
+            runTime.reset();
+        });
+    }
+
+    /**
+     * Writes the count, percentiles and maximum of every histogram to the given file, in
+     * microseconds, one line per scheduler and action type.
+     */
+    public void dump(@NonNull File file) throws IOException {
+        try (PrintWriter writer =
+                     new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8))) {
+            writer.println("scheduler\taction\tcount"
+                    + "\twait p50\twait p90\twait p99\twait max"
+                    + "\trun p50\trun p90\trun p99\trun max");
+            forEach((scheduler, actionType, queueWait, runTime) -> {
+                writer.print(scheduler + '\t' + actionType + '\t' + runTime.count());
+                print(writer, queueWait);
+                print(writer, runTime);
+                writer.println();
+            });
+            if (writer.checkError()) throw new IOException("Cannot write " + file);
+        }
+    }
+
+    private static void print(@NonNull PrintWriter writer, @NonNull LatencyHistogram histogram) {
+        for (double percentile : PERCENTILES) {
+            writer.print('\t');
+            writer.print(toMicros(histogram.nanosAtPercentile(percentile)));
+        }
+        writer.print('\t');
+        writer.print(toMicros(histogram.maxNanos()));
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static final class Timings {
+        final LatencyHistogram mQueueWait = new LatencyHistogram();
+        final LatencyHistogram mRunTime = new LatencyHistogram();
+    }
+
+    private static final class InstrumentedScheduler extends Scheduler {
+        @NonNull
+        final String mName;
+        @NonNull
+        private final Scheduler mScheduler;
+        @NonNull
+        final Timings mNoAction = new Timings();
+        /**
+         * Timings by action class.
+         */
+        @NonNull
+        final ConcurrentMap<Class<?>, Timings> mTimings = new ConcurrentHashMap<>();
+
+        InstrumentedScheduler(@NonNull String name, @NonNull Scheduler scheduler) {
+            mName = name;
+            mScheduler = scheduler;
+        }
+
+        @NonNull
+        @Override
+        public Worker createWorker() {
+            Worker worker = mScheduler.createWorker();
+            return new Worker() {
+                @NonNull
+                @Override
+                public Disposable schedule(@NonNull Runnable run, long delay,
+                                           @NonNull TimeUnit unit) {
+                    return worker.schedule(timed(run, delay, unit), delay, unit);
+                }
+
+                @Override
+                public long now(@NonNull TimeUnit unit) {
+                    return worker.now(unit);
+                }
+
+                @Override
+                public void dispose() {
+                    worker.dispose();
+                }
+
+                @Override
+                public boolean isDisposed() {
+                    return worker.isDisposed();
+                }
+            };
+        }
+
+        @NonNull
+        @Override
+        public Disposable scheduleDirect(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            return mScheduler.scheduleDirect(timed(run, delay, unit), delay, unit);
+        }
+
+        @Override
+        public long now(@NonNull TimeUnit unit) {
+            return mScheduler.now(unit);
+        }
+
+        @Override
+        public void start() {
+            mScheduler.start();
+        }
+
+        @Override
+        public void shutdown() {
+            mScheduler.shutdown();
+        }
+
+        @NonNull
+        private Runnable timed(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+            Class<?> actionClass = MviActionContext.current();
+            Timings timings = actionClass == null ? mNoAction : timingsOf(actionClass);
+            long dueNanos = System.nanoTime() + Math.max(0, unit.toNanos(delay));
+            return () -> {
+                long startNanos = System.nanoTime();
+                timings.mQueueWait.record(startNanos - dueNanos);
+                Class<?> previous = MviActionContext.enter(actionClass);
+                try {
+                    run.run();
+                } finally {
+                    MviActionContext.exit(previous);
+                    timings.mRunTime.record(System.nanoTime() - startNanos);
+                }
+            };
+        }
+
+        @NonNull
+        private Timings timingsOf(@NonNull Class<?> actionClass) {
+            Timings timings = mTimings.get(actionClass);
+            if (timings == null) {
+                Timings created = new Timings();
+                timings = mTimings.putIfAbsent(actionClass, created);
+                if (timings == null) timings = created;
+            }
+            return timings;
+        }
+    }
+}
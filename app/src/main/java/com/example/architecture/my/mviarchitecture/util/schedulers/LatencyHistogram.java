@@ -0,0 +1,97 @@
+package com.example.architecture.my.mviarchitecture.util.schedulers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counts of durations in nanoseconds, in log-linear buckets as HdrHistogram does: each power of
+ * two is split into {@value #SUB_BUCKET_COUNT} buckets, so that any value is known within 1/16th,
+ * whatever its magnitude, in a fixed 4 KB.
+ * <p>
+ * Durations from 0 to about 68 s are told apart, longer ones counted as 68 s. Recording is lock
+ * free, and may run concurrently with reading, which then sees most of the concurrent records.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        mCounts.incrementAndGet(indexOf(value));
+        mTotalCount.incrementAndGet();
+        mTotalNanos.addAndGet(value);
+        long max;
+        do {
+            max = mMaxNanos.get();
+        } while (value > max && !mMaxNanos.compareAndSet(max, value));
+    }
+
+    public long count() {
+        return mTotalCount.get();
+    }
+
+    public long maxNanos() {
+        return mMaxNanos.get();
+    }
+
+    public long meanNanos() {
+        long count = mTotalCount.get();
+        return count == 0 ? 0 : mTotalNanos.get() / count;
+    }
+
+    /**
+     * Returns the highest value of the bucket holding the given percentile of the values, 0 if
+     * none was recorded.
+     *
+     * @param percentile from 0 to 100
+     */
+    public long nanosAtPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile must be within [0, 100]");
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) total += mCounts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts.get(i);
+            if (seen >= rank) return Math.min(highestValueOf(i), mMaxNanos.get());
+        }
+        return mMaxNanos.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) mCounts.set(i, 0);
+        mTotalCount.set(0);
+        mTotalNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    /**
+     * Values below twice the sub-bucket count have a bucket each; above, each power of two has
+     * {@link #SUB_BUCKET_COUNT} buckets, told apart by the bits following the highest one.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.architecture.my.mviarchitecture.util.schedulers;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.concurrent.Executors;
+
 import io.reactivex.Scheduler;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.schedulers.Schedulers;
@@ -15,6 +17,10 @@ public class SchedulerProvider implements BaseSchedulerProvider {
     @Nullable
     private static SchedulerProvider INSTANCE;
 
+    @NonNull
+    private final Scheduler mStateScheduler = Schedulers.from(
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "mvi-state")));
+
     // Prevent direct instantiation.
     private SchedulerProvider() {
     }
@@ -43,4 +49,10 @@ public class SchedulerProvider implements BaseSchedulerProvider {
     public Scheduler ui() {
         return AndroidSchedulers.mainThread();
     }
+
+    @Override
+    @NonNull
+    public Scheduler state() {
+        return mStateScheduler;
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MviClassMapTest {
+    @Test
+    public void get_resolvesASubclassToItsClosestRegisteredSuperclass() {
+        MviClassMap<String> map = new MviClassMap<>();
+        map.put(Base.class, "base");
+        map.put(Middle.class, "middle");
+
+        assertEquals("base", map.get(Base.class));
+        assertEquals("middle", map.get(Leaf.class));
+        assertEquals("middle", map.get(Leaf.class));
+    }
+
+    @Test
+    public void get_unregisteredClass_isNullEveryTime() {
+        MviClassMap<String> map = new MviClassMap<>();
+        map.put(Middle.class, "middle");
+
+        assertNull(map.get(Base.class));
+        assertNull(map.get(Base.class));
+    }
+
+    @Test
+    public void put_afterALookup_isSeenByTheNextOne() {
+        MviClassMap<String> map = new MviClassMap<>();
+        assertNull(map.get(Leaf.class));
+        map.put(Base.class, "base");
+        assertEquals("base", map.get(Leaf.class));
+
+        map.put(Middle.class, "middle");
+
+        assertEquals("middle", map.get(Leaf.class));
+    }
+
+    private static class Base {
+    }
+
+    private static class Middle extends Base {
+    }
+
+    private static final class Leaf extends Middle {
+    }
+}
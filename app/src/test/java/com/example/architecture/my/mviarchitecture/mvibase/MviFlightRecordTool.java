@@ -0,0 +1,31 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Prints the timeline of a flight record pulled from a device with {@link MviFlightRecordDecoder}.
+ * Not a test: run its {@link #main(String[])} on a JVM with the test classpath, e.g.
+ * <pre>
+ * java -cp &lt;test classpath&gt; \
+ *     com.example.architecture.my.mviarchitecture.mvibase.MviFlightRecordTool mvi-flight.rec
+ * </pre>
+ */
+public final class MviFlightRecordTool {
+    private MviFlightRecordTool() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: MviFlightRecordTool <file>");
+            System.exit(2);
+        }
+        byte[] bytes;
+        try (RandomAccessFile file = new RandomAccessFile(args[0], "r")) {
+            bytes = new byte[(int) file.length()];
+            file.readFully(bytes);
+        }
+        MviFlightRecordDecoder.decode(ByteBuffer.wrap(bytes), System.out);
+    }
+}
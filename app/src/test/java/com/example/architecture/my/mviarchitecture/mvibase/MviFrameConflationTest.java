@@ -0,0 +1,132 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives {@link MviFrameConflation} with the frames of a {@link MviSchedulerFrameClock} on a
+ * {@link TestScheduler}.
+ */
+public class MviFrameConflationTest {
+    private static final long FRAME_MILLIS = 16;
+
+    private TestScheduler mScheduler;
+    private PublishSubject<Integer> mStates;
+    private TestObserver<Integer> mObserver;
+    /**
+     * The frame callbacks posted so far.
+     */
+    private List<Disposable> mFrameCallbacks;
+
+    @Before
+    public void setUp() {
+        mScheduler = new TestScheduler();
+        mStates = PublishSubject.create();
+        mFrameCallbacks = new ArrayList<>();
+        MviFrameClock schedulerFrameClock = new MviSchedulerFrameClock(
+                mScheduler, TimeUnit.MILLISECONDS.toNanos(FRAME_MILLIS));
+        MviFrameClock frameClock = callback -> {
+            Disposable frameCallback = schedulerFrameClock.postFrameCallback(callback);
+            mFrameCallbacks.add(frameCallback);
+            return frameCallback;
+        };
+        mObserver = mStates.compose(new MviFrameConflation<>(frameClock)).test();
+    }
+
+    @Test
+    public void firstState_isDeliveredRightAway() {
+        mStates.onNext(1);
+
+        mObserver.assertValues(1);
+    }
+
+    @Test
+    public void laterStates_waitForTheNextFrame() {
+        mStates.onNext(1);
+        mStates.onNext(2);
+
+        mObserver.assertValues(1);
+        mScheduler.advanceTimeBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        mObserver.assertValues(1, 2);
+    }
+
+    @Test
+    public void statesOfAFrame_areConflatedToTheLatest() {
+        mStates.onNext(1);
+        mStates.onNext(2);
+        mStates.onNext(3);
+        mStates.onNext(4);
+        mScheduler.advanceTimeBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+
+        mStates.onNext(5);
+        mStates.onNext(6);
+        mScheduler.advanceTimeBy(FRAME_MILLIS - 1, TimeUnit.MILLISECONDS);
+        mObserver.assertValues(1, 4);
+        mScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        mObserver.assertValues(1, 4, 6);
+        // one callback per frame, not per state
+        assertEquals(2, mFrameCallbacks.size());
+    }
+
+    @Test
+    public void stateInTheMiddleOfAFrame_isDeliveredAtItsEnd() {
+        mStates.onNext(1);
+        mScheduler.advanceTimeBy(FRAME_MILLIS / 2, TimeUnit.MILLISECONDS);
+        mStates.onNext(2);
+
+        mScheduler.advanceTimeBy(FRAME_MILLIS / 2 - 1, TimeUnit.MILLISECONDS);
+        mObserver.assertValues(1);
+        mScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        mObserver.assertValues(1, 2);
+    }
+
+    @Test
+    public void dispose_cancelsTheFrameCallback() {
+        mStates.onNext(1);
+        mStates.onNext(2);
+
+        mObserver.dispose();
+
+        assertFalse(mStates.hasObservers());
+        assertEquals(1, mFrameCallbacks.size());
+        assertTrue(mFrameCallbacks.get(0).isDisposed());
+        mScheduler.advanceTimeBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        mObserver.assertValues(1);
+    }
+
+    @Test
+    public void complete_deliversTheWaitingState() {
+        mStates.onNext(1);
+        mStates.onNext(2);
+
+        mStates.onComplete();
+
+        mObserver.assertResult(1, 2);
+    }
+
+    @Test
+    public void error_dropsTheWaitingState() {
+        IllegalStateException error = new IllegalStateException();
+        mStates.onNext(1);
+        mStates.onNext(2);
+
+        mStates.onError(error);
+        mScheduler.advanceTimeBy(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+
+        mObserver.assertFailure(IllegalStateException.class, 1);
+    }
+}
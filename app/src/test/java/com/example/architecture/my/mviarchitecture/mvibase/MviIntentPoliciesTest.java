@@ -0,0 +1,172 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Drives the windows of {@link MviIntentPolicies} with a {@link TestScheduler}.
+ */
+public class MviIntentPoliciesTest {
+    private static final long WINDOW_MILLIS = 100;
+
+    private TestScheduler mScheduler;
+    private PublishSubject<TestIntent> mIntents;
+
+    @Before
+    public void setUp() {
+        mScheduler = new TestScheduler();
+        mIntents = PublishSubject.create();
+    }
+
+    @Test
+    public void debounce_letsTheLastIntentOfABurstThrough() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .debounce(Refresh.class, WINDOW_MILLIS, MILLISECONDS)
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+        Refresh first = new Refresh(false);
+        Refresh second = new Refresh(false);
+        Refresh third = new Refresh(false);
+
+        mIntents.onNext(first);
+        advance(WINDOW_MILLIS - 1);
+        mIntents.onNext(second);
+        advance(WINDOW_MILLIS - 1);
+        mIntents.onNext(third);
+        advance(WINDOW_MILLIS - 1);
+        observer.assertNoValues();
+        advance(1);
+
+        observer.assertValues(third);
+        assertEquals(2, policies.droppedCount());
+    }
+
+    @Test
+    public void debounce_withMerge_keepsWhatTheBurstAskedFor() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .debounce(Refresh.class, WINDOW_MILLIS, MILLISECONDS,
+                        (pending, next) -> new Refresh(pending.mForced || next.mForced))
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+
+        mIntents.onNext(new Refresh(true));
+        mIntents.onNext(new Refresh(false));
+        advance(WINDOW_MILLIS);
+
+        observer.assertValueCount(1);
+        assertEquals(true, ((Refresh) observer.values().get(0)).mForced);
+
+        // the burst is over: the next one starts from its own intent
+        mIntents.onNext(new Refresh(false));
+        advance(WINDOW_MILLIS);
+        observer.assertValueCount(2);
+        assertEquals(false, ((Refresh) observer.values().get(1)).mForced);
+    }
+
+    @Test
+    public void debounce_leavesOtherIntentsAlone() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .debounce(Refresh.class, WINDOW_MILLIS, MILLISECONDS)
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+        Clear clear = new Clear();
+
+        mIntents.onNext(new Refresh(false));
+        mIntents.onNext(clear);
+
+        observer.assertValues(clear);
+    }
+
+    @Test
+    public void throttleFirst_dropsIntentsWithinTheWindow() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .throttleFirst(Clear.class, WINDOW_MILLIS, MILLISECONDS)
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+        Clear first = new Clear();
+        Clear dropped = new Clear();
+        Clear afterWindow = new Clear();
+
+        mIntents.onNext(first);
+        advance(WINDOW_MILLIS - 1);
+        mIntents.onNext(dropped);
+        advance(1);
+        mIntents.onNext(afterWindow);
+
+        observer.assertValues(first, afterWindow);
+        assertEquals(1, policies.droppedCount());
+    }
+
+    @Test
+    public void freshFor_dropsIntentsWithinTheWindowOfARefreshingIntent() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .freshFor(Refresh.class, WINDOW_MILLIS, MILLISECONDS, Initial.class)
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+        TestObserver<TestIntent> dropped = policies.dropped().test();
+        Initial initial = new Initial();
+        Refresh tooSoon = new Refresh(false);
+        Refresh fresh = new Refresh(false);
+        Refresh again = new Refresh(false);
+
+        mIntents.onNext(initial);
+        advance(WINDOW_MILLIS - 1);
+        mIntents.onNext(tooSoon);
+        advance(1);
+        mIntents.onNext(fresh);
+        mIntents.onNext(again);
+
+        observer.assertValues(initial, fresh);
+        dropped.assertValues(tooSoon, again);
+    }
+
+    @Test
+    public void exempt_letsMatchingIntentsThroughTheWindowAndRestartsIt() {
+        MviIntentPolicies<TestIntent> policies = new MviIntentPolicies.Builder<TestIntent>(mScheduler)
+                .freshFor(Refresh.class, WINDOW_MILLIS, MILLISECONDS, Initial.class)
+                .exempt(Refresh.class, refresh -> refresh.mForced)
+                .build();
+        TestObserver<TestIntent> observer = mIntents.compose(policies).test();
+        Initial initial = new Initial();
+        Refresh forced = new Refresh(true);
+        Refresh notForced = new Refresh(false);
+
+        mIntents.onNext(initial);
+        advance(WINDOW_MILLIS / 2);
+        mIntents.onNext(forced);
+        advance(WINDOW_MILLIS / 2);
+        mIntents.onNext(notForced);
+
+        observer.assertValues(initial, forced);
+    }
+
+    private void advance(long millis) {
+        mScheduler.advanceTimeBy(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private interface TestIntent extends MviIntent {
+    }
+
+    private static final class Initial implements TestIntent {
+    }
+
+    private static final class Clear implements TestIntent {
+    }
+
+    private static final class Refresh implements TestIntent {
+        final boolean mForced;
+
+        Refresh(boolean forced) {
+            mForced = forced;
+        }
+    }
+}
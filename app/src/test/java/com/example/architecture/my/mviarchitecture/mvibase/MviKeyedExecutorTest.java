@@ -0,0 +1,180 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress tests of {@link MviKeyedExecutor} and {@link MviProcessors#keyedSerial}.
+ */
+public class MviKeyedExecutorTest {
+    private static final int KEY_COUNT = 8;
+    private static final int WORK_PER_KEY = 200;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void execute_runsTheWorkOfAKeyOneAtATimeInSubmissionOrder() throws Exception {
+        MviKeyedExecutor executor = new MviKeyedExecutor();
+        List<List<Integer>> ran = new ArrayList<>();
+        AtomicInteger[] running = new AtomicInteger[KEY_COUNT];
+        AtomicInteger overlaps = new AtomicInteger();
+        for (int key = 0; key < KEY_COUNT; key++) {
+            ran.add(Collections.synchronizedList(new ArrayList<>()));
+            running[key] = new AtomicInteger();
+        }
+        Random random = new Random(42);
+        List<TestObserver<Integer>> observers = new ArrayList<>();
+        // submissions of the keys interleaved, each work on its own io thread
+        for (int i = 0; i < WORK_PER_KEY; i++) {
+            for (int key = 0; key < KEY_COUNT; key++) {
+                int k = key;
+                int index = i;
+                boolean sleep = random.nextInt(10) == 0;
+                Observable<Integer> work = Observable.fromCallable(() -> {
+                    if (running[k].incrementAndGet() > 1) overlaps.incrementAndGet();
+                    if (sleep) Thread.sleep(1);
+                    ran.get(k).add(index);
+                    running[k].decrementAndGet();
+                    return index;
+                }).subscribeOn(Schedulers.io());
+                observers.add(executor.execute(k, work).test());
+            }
+        }
+
+        for (TestObserver<Integer> observer : observers) {
+            assertTrue(observer.awaitTerminalEvent(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            observer.assertNoErrors();
+            observer.assertValueCount(1);
+        }
+        assertEquals(0, overlaps.get());
+        for (int key = 0; key < KEY_COUNT; key++) {
+            assertEquals(range(WORK_PER_KEY), ran.get(key));
+        }
+    }
+
+    @Test
+    public void execute_runsTheWorkOfDifferentKeysConcurrently() throws Exception {
+        MviKeyedExecutor executor = new MviKeyedExecutor();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        // each work waits for the other one to start: run one after the other, neither completes
+        Observable<Boolean> first = Observable.fromCallable(() -> {
+            bothStarted.countDown();
+            return bothStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }).subscribeOn(Schedulers.io());
+        Observable<Boolean> second = Observable.fromCallable(() -> {
+            bothStarted.countDown();
+            return bothStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }).subscribeOn(Schedulers.io());
+
+        TestObserver<Boolean> firstObserver = executor.execute("a", first).test();
+        TestObserver<Boolean> secondObserver = executor.execute("b", second).test();
+
+        assertTrue(firstObserver.awaitTerminalEvent(2 * TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(secondObserver.awaitTerminalEvent(2 * TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        firstObserver.assertResult(true);
+        secondObserver.assertResult(true);
+    }
+
+    @Test
+    public void execute_disposingAWaitingWork_keepsTheNextOneWaitingForTheRunningOne() {
+        MviKeyedExecutor executor = new MviKeyedExecutor();
+        PublishSubject<Integer> running = PublishSubject.create();
+        AtomicInteger waitingRuns = new AtomicInteger();
+        TestObserver<Integer> head = executor.execute("a", running).test();
+        TestObserver<Integer> waiting = executor.execute("a",
+                Observable.fromCallable(waitingRuns::incrementAndGet)).test();
+        TestObserver<Integer> next = executor.execute("a", Observable.just(3)).test();
+
+        waiting.dispose();
+
+        assertEquals(0, waitingRuns.get());
+        next.assertEmpty();
+        running.onNext(1);
+        running.onComplete();
+        head.assertResult(1);
+        // the disposed work is still written, before the next one
+        assertEquals(1, waitingRuns.get());
+        next.assertResult(3);
+    }
+
+    @Test
+    public void execute_disposingTheRunningWork_neitherCancelsItNorStartsTheNextOne() {
+        MviKeyedExecutor executor = new MviKeyedExecutor();
+        PublishSubject<Integer> running = PublishSubject.create();
+        TestObserver<Integer> head = executor.execute("a", running).test();
+        TestObserver<Integer> next = executor.execute("a", Observable.just(2)).test();
+
+        head.dispose();
+
+        assertTrue(running.hasObservers());
+        next.assertEmpty();
+        running.onComplete();
+        next.assertResult(2);
+    }
+
+    @Test
+    public void keyedSerial_ordersTheResultsOfAKeyOnly() throws Exception {
+        MviKeyedExecutor executor = new MviKeyedExecutor();
+        List<TestAction> actions = new ArrayList<>();
+        for (int i = 0; i < WORK_PER_KEY; i++) {
+            for (int key = 0; key < KEY_COUNT; key++) actions.add(new TestAction(key, i));
+        }
+
+        TestObserver<TestResult> observer = Observable.fromIterable(actions)
+                .compose(MviProcessors.<TestAction, TestResult>keyedSerial(executor,
+                        action -> action.mKey,
+                        action -> Observable.fromCallable(() -> new TestResult(action))
+                                .subscribeOn(Schedulers.io())))
+                .test();
+
+        assertTrue(observer.awaitTerminalEvent(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        observer.assertNoErrors();
+        observer.assertValueCount(actions.size());
+        List<List<Integer>> results = new ArrayList<>();
+        for (int key = 0; key < KEY_COUNT; key++) results.add(new ArrayList<>());
+        for (TestResult result : observer.values()) {
+            results.get(result.mAction.mKey).add(result.mAction.mIndex);
+        }
+        for (int key = 0; key < KEY_COUNT; key++) {
+            assertEquals(range(WORK_PER_KEY), results.get(key));
+        }
+    }
+
+    private static List<Integer> range(int count) {
+        List<Integer> range = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) range.add(i);
+        return range;
+    }
+
+    private static final class TestAction implements MviAction {
+        final int mKey;
+        final int mIndex;
+
+        TestAction(int key, int index) {
+            mKey = key;
+            mIndex = index;
+        }
+    }
+
+    private static final class TestResult implements MviResult {
+        final TestAction mAction;
+
+        TestResult(TestAction action) {
+            mAction = action;
+        }
+    }
+}
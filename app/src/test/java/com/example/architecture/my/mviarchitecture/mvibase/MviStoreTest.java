@@ -0,0 +1,85 @@
+package com.example.architecture.my.mviarchitecture.mvibase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Observable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Binds the intents of successive views to a {@link MviStore} without schedulers.
+ */
+public class MviStoreTest {
+    private List<TestIntent> mProcessed;
+    private MviStore<TestIntent, TestAction, TestResult, TestState, MviEffect> mStore;
+
+    @Before
+    public void setUp() {
+        mProcessed = new ArrayList<>();
+        mStore = new MviStore.Builder<TestIntent, TestAction, TestResult, TestState, MviEffect>()
+                .initialIntent(Initial.class)
+                .initialIntent(LoadTrends.class)
+                .actionFromIntent(intent -> {
+                    mProcessed.add(intent);
+                    return new TestAction();
+                })
+                .actionProcessor(actions -> actions.map(action -> new TestResult()))
+                .reducer(new TestState(0), (state, result) -> new TestState(state.mCount + 1))
+                .build();
+    }
+
+    @Test
+    public void initialIntents_areProcessedForTheFirstViewOnly() {
+        Initial initial = new Initial();
+        LoadTrends loadTrends = new LoadTrends();
+        mStore.processIntents(Observable.just(initial, loadTrends));
+
+        // the view is recreated: it binds the same intents again
+        mStore.processIntents(Observable.just(new Initial(), new LoadTrends()));
+
+        assertEquals(2, mProcessed.size());
+        assertSame(initial, mProcessed.get(0));
+        assertSame(loadTrends, mProcessed.get(1));
+        mStore.states().test().assertValue(state -> state.mCount == 2);
+    }
+
+    @Test
+    public void otherIntents_areProcessedEveryTime() {
+        mStore.processIntents(Observable.just(new Initial(), new Refresh()));
+
+        mStore.processIntents(Observable.just(new Initial(), new Refresh()));
+
+        assertEquals(3, mProcessed.size());
+    }
+
+    private interface TestIntent extends MviIntent {
+    }
+
+    private static final class Initial implements TestIntent {
+    }
+
+    private static final class LoadTrends implements TestIntent {
+    }
+
+    private static final class Refresh implements TestIntent {
+    }
+
+    private static final class TestAction implements MviAction {
+    }
+
+    private static final class TestResult implements MviResult {
+    }
+
+    private static final class TestState implements MviViewState {
+        final int mCount;
+
+        TestState(int count) {
+            mCount = count;
+        }
+    }
+}
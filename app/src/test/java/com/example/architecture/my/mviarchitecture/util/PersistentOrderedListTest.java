@@ -0,0 +1,107 @@
+package com.example.architecture.my.mviarchitecture.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link PersistentOrderedList} against a {@link TreeMap} given the same random puts and
+ * removes.
+ */
+public class PersistentOrderedListTest {
+    private static final int ROUNDS = 50;
+    private static final int OPERATIONS = 1000;
+
+    @Test
+    public void randomPutsAndRemoves_matchATreeMap() {
+        Random random = new Random(1);
+        for (int round = 0; round < ROUNDS; round++) {
+            int keyCount = random.nextInt(300) + 1;
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            PersistentOrderedList.Builder<Integer> builder = new PersistentOrderedList.Builder<>();
+            for (int key = 0; key < keyCount; key++) {
+                if (random.nextBoolean()) {
+                    builder.add(key, key);
+                    expected.put(key, key);
+                }
+            }
+            PersistentOrderedList<Integer> list = builder.build();
+            assertMatches(expected, list);
+
+            for (int operation = 0; operation < OPERATIONS; operation++) {
+                int key = random.nextInt(keyCount + 1);
+                if (random.nextBoolean()) {
+                    int value = random.nextInt(5);
+                    list = list.with(key, value);
+                    expected.put(key, value);
+                } else {
+                    list = list.without(key);
+                    expected.remove(key);
+                }
+                assertMatches(expected, list);
+            }
+        }
+    }
+
+    @Test
+    public void with_andWithout_leaveTheSnapshotUnchanged() {
+        Random random = new Random(2);
+        PersistentOrderedList<Integer> list = PersistentOrderedList.empty();
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            PersistentOrderedList<Integer> snapshot = list;
+            List<Integer> snapshotCopy = new ArrayList<>(snapshot);
+            int key = random.nextInt(100);
+            list = random.nextBoolean() ? list.with(key, operation) : list.without(key);
+
+            assertEquals(snapshotCopy, snapshot);
+            assertEquals(snapshotCopy.equals(list), snapshot.equals(list));
+        }
+    }
+
+    @Test
+    public void with_sameValue_returnsTheSameList() {
+        PersistentOrderedList<String> list = PersistentOrderedList.<String>empty().with(1, "a");
+
+        assertSame(list, list.with(1, "a"));
+    }
+
+    @Test
+    public void without_missingKey_returnsTheSameList() {
+        PersistentOrderedList<String> list = PersistentOrderedList.<String>empty().with(1, "a");
+
+        assertSame(list, list.without(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsKeysOutOfOrder() {
+        new PersistentOrderedList.Builder<String>().add(2, "b").add(1, "a");
+    }
+
+    private static void assertMatches(TreeMap<Integer, Integer> expected,
+                                      PersistentOrderedList<Integer> list) {
+        List<Integer> values = new ArrayList<>(expected.values());
+        assertEquals(values.size(), list.size());
+        assertEquals(values, list);
+        assertEquals(values.hashCode(), list.hashCode());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(values.get(i), list.get(i));
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertTrue(list.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), list.getByKey(entry.getKey()));
+        }
+        int missing = expected.isEmpty() ? 0 : expected.lastKey() + 1;
+        assertFalse(list.containsKey(missing));
+        assertNull(list.getByKey(missing));
+    }
+}
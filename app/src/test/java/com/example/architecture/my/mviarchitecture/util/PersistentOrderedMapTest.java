@@ -0,0 +1,123 @@
+package com.example.architecture.my.mviarchitecture.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks {@link PersistentOrderedMap} against a {@link LinkedHashMap} given the same random puts
+ * and removes.
+ */
+public class PersistentOrderedMapTest {
+    private static final int KEY_COUNT = 60;
+    private static final int OPERATIONS = 20000;
+
+    @Test
+    public void randomPutsAndRemoves_matchALinkedHashMap() {
+        assertMatchesLinkedHashMap(new Random(3), false);
+    }
+
+    @Test
+    public void randomPutsAndRemoves_ofKeysWithCollidingHashes_matchALinkedHashMap() {
+        assertMatchesLinkedHashMap(new Random(4), true);
+    }
+
+    @Test
+    public void with_andWithout_leaveTheSnapshotUnchanged() {
+        Random random = new Random(5);
+        PersistentOrderedMap<Key, Integer> map = PersistentOrderedMap.empty();
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            PersistentOrderedMap<Key, Integer> snapshot = map;
+            List<Integer> snapshotValues = new ArrayList<>(snapshot.values());
+            Key key = new Key(random.nextInt(KEY_COUNT), true);
+            map = random.nextBoolean() ? map.with(key, operation) : map.without(key);
+
+            assertEquals(snapshotValues, snapshot.values());
+            assertEquals(snapshotValues.size(), snapshot.size());
+        }
+    }
+
+    @Test
+    public void with_replacedValue_keepsItsPlace() {
+        PersistentOrderedMap<String, Integer> map = PersistentOrderedMap.<String, Integer>empty()
+                .with("a", 1).with("b", 2).with("c", 3)
+                .with("b", 4);
+
+        assertEquals(listOf(1, 4, 3), map.values());
+    }
+
+    @Test
+    public void with_sameValue_returnsTheSameMap() {
+        PersistentOrderedMap<String, Integer> map =
+                PersistentOrderedMap.<String, Integer>empty().with("a", 1);
+
+        assertSame(map, map.with("a", 1));
+    }
+
+    @Test
+    public void without_missingKey_returnsTheSameMap() {
+        PersistentOrderedMap<String, Integer> map =
+                PersistentOrderedMap.<String, Integer>empty().with("a", 1);
+
+        assertSame(map, map.without("b"));
+    }
+
+    private static void assertMatchesLinkedHashMap(Random random, boolean collidingHashes) {
+        PersistentOrderedMap<Key, Integer> map = PersistentOrderedMap.empty();
+        LinkedHashMap<Integer, Integer> expected = new LinkedHashMap<>();
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            int key = random.nextInt(KEY_COUNT);
+            if (random.nextInt(3) > 0) {
+                map = map.with(new Key(key, collidingHashes), operation);
+                expected.put(key, operation);
+            } else {
+                map = map.without(new Key(key, collidingHashes));
+                expected.remove(key);
+            }
+
+            assertEquals(new ArrayList<>(expected.values()), map.values());
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.isEmpty(), map.isEmpty());
+            for (int other = 0; other < KEY_COUNT; other++) {
+                Key otherKey = new Key(other, collidingHashes);
+                assertEquals(expected.get(other), map.get(otherKey));
+                assertEquals(expected.containsKey(other), map.containsKey(otherKey));
+            }
+        }
+    }
+
+    private static List<Integer> listOf(Integer... values) {
+        List<Integer> list = new ArrayList<>();
+        for (Integer value : values) list.add(value);
+        return list;
+    }
+
+    /**
+     * Key whose hash code may be shared by many keys.
+     */
+    private static final class Key {
+        private final int mValue;
+        private final boolean mCollidingHash;
+
+        Key(int value, boolean collidingHash) {
+            mValue = value;
+            mCollidingHash = collidingHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).mValue == mValue;
+        }
+
+        @Override
+        public int hashCode() {
+            return mCollidingHash ? mValue % 7 : mValue;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.architecture.my.mviarchitecture.util.schedulers;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the bucket math of {@link LatencyHistogram} through its percentiles.
+ */
+public class LatencyHistogramTest {
+    private static final long MAX_VALUE = (1L << 36) - 1;
+
+    @Test
+    public void smallValues_areExact() {
+        for (long value = 0; value < 32; value++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+
+            assertEquals(value, histogram.nanosAtPercentile(50));
+            assertEquals(value, histogram.maxNanos());
+        }
+    }
+
+    @Test
+    public void percentile_isTheHighestValueOfItsBucket_withinASixteenth() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextLong() & (MAX_VALUE >>> random.nextInt(36));
+            LatencyHistogram histogram = new LatencyHistogram();
+            // a larger value, so that the percentile is the bound of the bucket, not the maximum
+            histogram.record(value);
+            histogram.record(MAX_VALUE);
+
+            long bound = histogram.nanosAtPercentile(50);
+            assertTrue(value + " bound by " + bound, bound >= value);
+            assertTrue(value + " bound by " + bound, bound - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void bucketBounds_areContiguous() {
+        // the value right after the bound of a bucket is the first of the next bucket
+        for (int exponent = 5; exponent < 36; exponent++) {
+            for (long subBucket = 16; subBucket < 32; subBucket++) {
+                long first = subBucket << (exponent - 4);
+                long last = ((subBucket + 1) << (exponent - 4)) - 1;
+                assertEquals(last, boundOf(first));
+                assertEquals(last, boundOf(last));
+            }
+        }
+    }
+
+    @Test
+    public void nanosAtPercentile_ranksTheRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) histogram.record(value * 1000);
+
+        assertEquals(100, histogram.count());
+        assertEquals(50500, histogram.meanNanos());
+        assertEquals(100000, histogram.maxNanos());
+        assertWithinASixteenth(1000, histogram.nanosAtPercentile(0));
+        assertWithinASixteenth(50000, histogram.nanosAtPercentile(50));
+        assertWithinASixteenth(90000, histogram.nanosAtPercentile(90));
+        assertWithinASixteenth(99000, histogram.nanosAtPercentile(99));
+        assertEquals(100000, histogram.nanosAtPercentile(100));
+    }
+
+    @Test
+    public void nanosAtPercentile_isZero_whenEmpty() {
+        assertEquals(0, new LatencyHistogram().nanosAtPercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nanosAtPercentile_rejectsPercentilesAbove100() {
+        new LatencyHistogram().nanosAtPercentile(101);
+    }
+
+    @Test
+    public void record_clampsNegativeAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.nanosAtPercentile(50));
+        assertEquals(MAX_VALUE, histogram.nanosAtPercentile(100));
+        assertEquals(MAX_VALUE, histogram.maxNanos());
+    }
+
+    @Test
+    public void reset_forgetsEveryValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.maxNanos());
+        assertEquals(0, histogram.meanNanos());
+        assertEquals(0, histogram.nanosAtPercentile(100));
+    }
+
+    @Test
+    public void record_concurrently_countsEveryValue() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = (t + 1) * 1000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) histogram.record(value);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(40000, histogram.count());
+        assertEquals(4000, histogram.maxNanos());
+        assertEquals(2500, histogram.meanNanos());
+        assertWithinASixteenth(1000, histogram.nanosAtPercentile(25));
+    }
+
+    /**
+     * The highest value of the bucket of the given value.
+     */
+    private static long boundOf(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(MAX_VALUE);
+        return histogram.nanosAtPercentile(50);
+    }
+
+    private static void assertWithinASixteenth(long expected, long actual) {
+        assertTrue(expected + " vs " + actual,
+                actual >= expected && actual - expected <= expected / 16);
+    }
+}